@@ -0,0 +1,283 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Monte Carlo matchups: a team against many opponent teams of six drawn at random from
+ * the calculated pool. Battles use a simplified level-50 model built on the fused
+ * stats: one 80-power STAB attack per turn in the attacker's better category, of
+ * whichever of its types hits hardest (TypeChart, ability immunities
+ * included), with the usual 85-100% damage roll. The faster side moves first, and a
+ * fainted member is replaced by the one that hits the opponent hardest.
+ *
+ * Fusions are flattened into primitive arrays once, and a battle only reads those and
+ * writes two six-slot HP arrays owned by its task, so battles allocate nothing. They
+ * run in chunks on the search pool, each chunk with its own SplittableRandom split
+ * from the seed, so a run is repeatable for a given seed.
+ */
+class BattleSimulator {
+    // Battles per parallel task
+    private static final int CHUNK = 4096;
+    // A battle still going after this many turns is a draw
+    private static final int MAX_TURNS = 200;
+    private static final int POWER = 80;
+    private static final double STAB = 1.5;
+    // 95% confidence
+    private static final double Z = 1.96;
+
+    private final Combatants pool;
+    private final long seed;
+
+    BattleSimulator(List<Fusion> pool, long seed) {
+        this.pool = new Combatants(pool);
+        this.seed = seed;
+    }
+
+    int poolSize() {
+        return pool.size;
+    }
+
+    /**
+     * The team's record over {@code battles} matchups against random opponents.
+     */
+    Result simulate(Team team, int battles) {
+        long start = System.nanoTime();
+        Combatants own = new Combatants(team.members);
+        if (own.size == 0 || pool.size < 6) return new Result(0, 0, 0, 0);
+
+        SplittableRandom root = new SplittableRandom(seed);
+        List<ForkJoinTask<long[]>> tasks = new ArrayList<>();
+        for (int from = 0; from < battles; from += CHUNK) {
+            int count = Math.min(CHUNK, battles - from);
+            SplittableRandom rnd = root.split();
+            tasks.add(ForkJoinTask.adapt(() -> new Arena(own, rnd).run(count)));
+        }
+        long[] totals = new long[3];
+        TeamBuilder.SEARCH_POOL.invoke(ForkJoinTask.adapt(() -> {
+            for (ForkJoinTask<long[]> t : ForkJoinTask.invokeAll(tasks)) {
+                long[] r = t.join();
+                for (int i = 0; i < 3; i++) totals[i] += r[i];
+            }
+        }));
+        return new Result(totals[0], totals[1], totals[2], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * The teams best score first; teams whose scores tie are ordered by their simulated
+     * win rate in {@code winRates} (keyed by identity) instead of arbitrarily.
+     */
+    static List<Team> breakTies(List<Team> teams, Map<Team, Double> winRates) {
+        List<Team> sorted = new ArrayList<>(teams);
+        sorted.sort((a, b) -> Double.compare(b.realScore, a.realScore));
+        for (int i = 0; i < sorted.size(); i++) {
+            int j = i + 1;
+            while (j < sorted.size() && sorted.get(i).realScore - sorted.get(j).realScore < 1e-9) j++;
+            if (j - i > 1) {
+                sorted.subList(i, j).sort((a, b) -> Double.compare(winRates.get(b), winRates.get(a)));
+            }
+            i = j - 1;
+        }
+        return sorted;
+    }
+
+    /**
+     * Battle-ready numbers of some fusions, one array slot per fusion: level-50 stats,
+     * attacking types and the packed TypeChart vector of what every attacking type
+     * does to it.
+     */
+    private static final class Combatants {
+        final int size;
+        final int[] hp, atk, def, spa, spd, spe;
+        // Attacking types (TypeChart index), -1 for none
+        final byte[] type1, type2;
+        final long[] taken;
+
+        Combatants(List<Fusion> fusions) {
+            size = fusions.size();
+            hp = new int[size]; atk = new int[size]; def = new int[size];
+            spa = new int[size]; spd = new int[size]; spe = new int[size];
+            type1 = new byte[size]; type2 = new byte[size];
+            taken = new long[size];
+            for (int i = 0; i < size; i++) {
+                Fusion f = fusions.get(i);
+                hp[i] = (2 * f.hp + 31) * 50 / 100 + 60;
+                atk[i] = stat(f.atk); def[i] = stat(f.def);
+                spa[i] = stat(f.spa); spd[i] = stat(f.spd); spe[i] = stat(f.spe);
+                int typing = TypeChart.typingId(f.typing);
+                type1[i] = (byte) (TypeChart.type1(typing) < TypeChart.TYPES ? TypeChart.type1(typing) : -1);
+                type2[i] = (byte) (TypeChart.type2(typing) < TypeChart.TYPES ? TypeChart.type2(typing) : -1);
+                taken[i] = TypeChart.vector(TypeChart.vectorId(typing, TypeChart.abilityId(f.chosenAbility)));
+            }
+        }
+
+        private static int stat(int base) {
+            return (2 * base + 31) * 50 / 100 + 5;
+        }
+    }
+
+    /**
+     * One task's battles: the opponent's six pool indices and both sides' HP live here
+     * and are reused battle after battle.
+     */
+    private final class Arena {
+        private final Combatants own;
+        private final SplittableRandom rnd;
+        private final int[] opponent = new int[6];
+        private final int[] ownHp = new int[6], oppHp = new int[6];
+
+        Arena(Combatants own, SplittableRandom rnd) {
+            this.own = own;
+            this.rnd = rnd;
+        }
+
+        // Wins, losses, draws
+        long[] run(int battles) {
+            long[] record = new long[3];
+            for (int b = 0; b < battles; b++) {
+                drawOpponent();
+                record[battle()]++;
+            }
+            return record;
+        }
+
+        private void drawOpponent() {
+            for (int k = 0; k < 6; k++) {
+                int pick;
+                boolean repeat;
+                do {
+                    pick = rnd.nextInt(pool.size);
+                    repeat = false;
+                    for (int m = 0; m < k; m++) repeat |= opponent[m] == pick;
+                } while (repeat);
+                opponent[k] = pick;
+            }
+        }
+
+        // 0 = the team wins, 1 = the opponent does, 2 = draw
+        private int battle() {
+            for (int k = 0; k < own.size; k++) ownHp[k] = own.hp[k];
+            for (int k = 0; k < 6; k++) oppHp[k] = pool.hp[opponent[k]];
+            int mine = 0, theirs = 0;
+
+            for (int turn = 0; turn < MAX_TURNS; turn++) {
+                int a = mine, o = opponent[theirs];
+                boolean ownFirst = own.spe[a] != pool.spe[o] ? own.spe[a] > pool.spe[o] : rnd.nextBoolean();
+                if (ownFirst) {
+                    oppHp[theirs] -= damage(own, a, pool, o);
+                    if (oppHp[theirs] <= 0) {
+                        theirs = nextOpponent(mine);
+                        if (theirs < 0) return 0;
+                        continue;
+                    }
+                    ownHp[mine] -= damage(pool, o, own, a);
+                    if (ownHp[mine] <= 0) {
+                        mine = nextOwn(theirs);
+                        if (mine < 0) return 1;
+                    }
+                } else {
+                    ownHp[mine] -= damage(pool, o, own, a);
+                    if (ownHp[mine] <= 0) {
+                        mine = nextOwn(theirs);
+                        if (mine < 0) return 1;
+                        continue;
+                    }
+                    oppHp[theirs] -= damage(own, a, pool, o);
+                    if (oppHp[theirs] <= 0) {
+                        theirs = nextOpponent(mine);
+                        if (theirs < 0) return 0;
+                    }
+                }
+            }
+            return 2;
+        }
+
+        // The team's member still standing that hits the opponent's active hardest, -1 if none
+        private int nextOwn(int theirs) {
+            int best = -1;
+            double bestHit = -1;
+            for (int k = 0; k < own.size; k++) {
+                if (ownHp[k] <= 0) continue;
+                double hit = expected(own, k, pool, opponent[theirs]);
+                if (hit > bestHit) {
+                    bestHit = hit;
+                    best = k;
+                }
+            }
+            return best;
+        }
+
+        private int nextOpponent(int mine) {
+            int best = -1;
+            double bestHit = -1;
+            for (int k = 0; k < 6; k++) {
+                if (oppHp[k] <= 0) continue;
+                double hit = expected(pool, opponent[k], own, mine);
+                if (hit > bestHit) {
+                    bestHit = hit;
+                    best = k;
+                }
+            }
+            return best;
+        }
+
+        private int damage(Combatants from, int i, Combatants to, int j) {
+            return (int) (expected(from, i, to, j) * (85 + rnd.nextInt(16)) / 100) + 1;
+        }
+    }
+
+    // Damage before the random roll
+    private static double expected(Combatants from, int i, Combatants to, int j) {
+        boolean physical = from.atk[i] >= from.spa[i];
+        int attack = physical ? from.atk[i] : from.spa[i];
+        int defense = physical ? to.def[j] : to.spd[j];
+        long vector = to.taken[j];
+        double eff = from.type1[i] >= 0 ? TypeChart.multiplier(vector, from.type1[i]) : 1;
+        if (from.type2[i] >= 0) eff = Math.max(eff, TypeChart.multiplier(vector, from.type2[i]));
+        return ((22.0 * POWER * attack / defense) / 50 + 2) * STAB * eff;
+    }
+
+    /**
+     * Wins, losses and draws of one run. A draw counts as half a win in the win rate.
+     */
+    static final class Result {
+        final long wins, losses, draws;
+        final long millis;
+
+        Result(long wins, long losses, long draws, long millis) {
+            this.wins = wins;
+            this.losses = losses;
+            this.draws = draws;
+            this.millis = millis;
+        }
+
+        long battles() {
+            return wins + losses + draws;
+        }
+
+        double winRate() {
+            return battles() == 0 ? 0 : (wins + 0.5 * draws) / battles();
+        }
+
+        // Wilson score interval around the win rate
+        double lower() {
+            return wilson(-1);
+        }
+
+        double upper() {
+            return wilson(1);
+        }
+
+        private double wilson(int sign) {
+            long n = battles();
+            if (n == 0) return 0;
+            double p = winRate(), z2 = Z * Z;
+            double centre = p + z2 / (2 * n);
+            double spread = Z * Math.sqrt(p * (1 - p) / n + z2 / (4.0 * n * n));
+            return Math.max(0, Math.min(1, (centre + sign * spread) / (1 + z2 / n)));
+        }
+
+        String format() {
+            return String.format("win rate %.2f%% (95%% CI %.2f-%.2f%%) over %,d battles: %,d won, %,d lost, %,d drawn, in %dms",
+                100 * winRate(), 100 * lower(), 100 * upper(), battles(), wins, losses, draws, millis);
+        }
+    }
+}
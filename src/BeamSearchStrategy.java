@@ -0,0 +1,147 @@
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Builds teams one slot at a time, keeping only the best {@code width} partial teams
+ * per level. A partial team is valued optimistically (its base score plus the largest
+ * delta its open slots could still reach), which is also an upper bound for each child,
+ * so scanning the score-sorted pool for a state stops as soon as no further candidate
+ * can make that state's top list. States of a level are expanded in parallel.
+ */
+class BeamSearchStrategy implements TeamSearchStrategy {
+    static final int DEFAULT_WIDTH = 128;
+
+    private final int width;
+
+    BeamSearchStrategy(int width) {
+        this.width = Math.max(1, width);
+    }
+
+    @Override
+    public String getName() {
+        return "Beam Search (width " + width + ")";
+    }
+
+    @Override
+    public boolean search(TeamSearchContext ctx, BiConsumer<Integer, Integer> progressCallback) {
+        beam(ctx, ctx.pinned, ctx.slots(), progressCallback);
+        ctx.abandon(ctx.rootCeiling());
+        return false;
+    }
+
+    /**
+     * Fills {@code slots} open slots on top of {@code fixed}, offering every complete
+     * team of the last level to the context.
+     */
+    void beam(TeamSearchContext ctx, List<Fusion> fixed, int slots, BiConsumer<Integer, Integer> progressCallback) {
+        double fixedBase = 0;
+        for (Fusion f : fixed) fixedBase += f.score;
+
+        List<Partial> level = Collections.singletonList(new Partial(new int[0], fixedBase, 0));
+        for (int depth = 1; depth <= slots && !level.isEmpty(); depth++) {
+            if (ctx.shouldStop()) return;
+
+            final int open = slots - depth + 1;
+            final List<Partial> states = level;
+            List<Partial> children;
+            try {
+                children = TeamBuilder.SEARCH_POOL.submit(() -> states.parallelStream()
+                    .flatMap(p -> expand(ctx, fixed, p, open).stream())
+                    .collect(Collectors.toList())).get();
+            } catch (Exception e) {
+                e.printStackTrace();
+                return;
+            }
+
+            // The same set can be reached in several orders; keep one copy of each
+            Map<Partial, Partial> unique = new HashMap<>();
+            for (Partial c : children) unique.merge(c, c, (a, b) -> a.eval >= b.eval ? a : b);
+            level = new ArrayList<>(unique.values());
+            level.sort((a, b) -> Double.compare(b.eval, a.eval));
+            if (level.size() > width) level = new ArrayList<>(level.subList(0, width));
+
+            if (progressCallback != null) progressCallback.accept(depth, slots);
+        }
+
+        for (Partial p : level) {
+            List<Fusion> team = members(ctx, fixed, p);
+            ctx.offer(p.base, team, TeamBuilder.calculateDelta(team, ctx.config));
+        }
+    }
+
+    /**
+     * Best {@code width} children of one state, valued with {@code open - 1} slots left.
+     */
+    private List<Partial> expand(TeamSearchContext ctx, List<Fusion> fixed, Partial parent, int open) {
+        List<Fusion> pool = ctx.pool;
+        List<Fusion> team = members(ctx, fixed, parent);
+        double optimistic = parent.base + TeamBuilder.maxRemainingDelta(team, open, ctx.config);
+        PriorityQueue<Partial> best = new PriorityQueue<>((a, b) -> Double.compare(a.eval, b.eval));
+
+        for (int i = 0; i < pool.size(); i++) {
+            Fusion candidate = pool.get(i);
+            if (best.size() == width && optimistic + candidate.score <= best.peek().eval) break;
+            if (parent.contains(i) || !TeamBuilder.isValidAddition(team, candidate, ctx.config)) continue;
+
+            team.add(candidate);
+            // States that can no longer meet the team rules would only crowd out ones that can
+            boolean dead = ctx.constraints != null && ctx.constraints.cannotComplete(team, -1, open - 1);
+            double base = parent.base + candidate.score;
+            double eval = base + TeamBuilder.maxRemainingDelta(team, open - 1, ctx.config);
+            team.remove(team.size() - 1);
+            if (dead) continue;
+
+            if (best.size() < width) {
+                best.add(parent.with(i, base, eval));
+            } else if (eval > best.peek().eval) {
+                best.poll();
+                best.add(parent.with(i, base, eval));
+            }
+        }
+        return new ArrayList<>(best);
+    }
+
+    private static List<Fusion> members(TeamSearchContext ctx, List<Fusion> fixed, Partial p) {
+        List<Fusion> team = new ArrayList<>(fixed.size() + p.picks.length + 1);
+        team.addAll(fixed);
+        for (int idx : p.picks) team.add(ctx.pool.get(idx));
+        return team;
+    }
+
+    /**
+     * A partial team as sorted pool indices; equality is by the index set.
+     */
+    private static final class Partial {
+        final int[] picks;
+        final double base;
+        final double eval;
+
+        Partial(int[] picks, double base, double eval) {
+            this.picks = picks;
+            this.base = base;
+            this.eval = eval;
+        }
+
+        boolean contains(int index) {
+            return Arrays.binarySearch(picks, index) >= 0;
+        }
+
+        Partial with(int index, double base, double eval) {
+            int[] next = Arrays.copyOf(picks, picks.length + 1);
+            next[picks.length] = index;
+            Arrays.sort(next);
+            return new Partial(next, base, eval);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Partial && Arrays.equals(picks, ((Partial) o).picks);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(picks);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.*;
+
+/**
+ * How well each fusion of the pool fares against a known opponent team, and the best
+ * team once that matchup is blended into the usual score.
+ *
+ * Against each opponent a fusion scores on offence (the best multiplier of its STAB
+ * types on the opponent) and on defence (the worst multiplier of the opponent's STAB
+ * types on it), each mapped from 0x..4x onto 0..1 in steps of one doubling. The
+ * matchup is the mean of both over the opponents. Offence only depends on the typing
+ * and defence on the typing and ability, so each is worked out once per TypeChart
+ * typing id or (typing, ability) vector id and looked up for every fusion.
+ */
+class CounterSearch {
+    private final List<Fusion> opponents;
+    // Per opponent: its TypeChart vector and its STAB types
+    private final long[] opponentVectors;
+    private final int[][] opponentTypes;
+
+    CounterSearch(List<Fusion> opponents) {
+        this.opponents = opponents;
+        opponentVectors = new long[opponents.size()];
+        opponentTypes = new int[opponents.size()][];
+        for (int k = 0; k < opponents.size(); k++) {
+            opponentVectors[k] = TypeChart.vector(opponents.get(k));
+            opponentTypes[k] = stabTypes(TypeChart.typingId(opponents.get(k).typing));
+        }
+    }
+
+    /**
+     * Matchup of every pool fusion against the opponents, 0 (hopeless) to 1 (hits
+     * everything super effectively and takes nothing), indexed like the pool.
+     */
+    double[] matchups(List<Fusion> pool) {
+        double[] offence = new double[TypeChart.TYPINGS];
+        double[] defence = new double[TypeChart.TYPINGS * TypeChart.abilityCount()];
+        Arrays.fill(offence, Double.NaN);
+        Arrays.fill(defence, Double.NaN);
+
+        double[] scores = new double[pool.size()];
+        for (int i = 0; i < pool.size(); i++) {
+            Fusion f = pool.get(i);
+            int typing = TypeChart.typingId(f.typing);
+            // Abilities only matter defensively (immunities)
+            int vector = TypeChart.vectorId(typing, TypeChart.abilityId(f.chosenAbility));
+            if (Double.isNaN(offence[typing])) offence[typing] = offence(typing);
+            if (Double.isNaN(defence[vector])) defence[vector] = defence(TypeChart.vector(vector));
+            scores[i] = (offence[typing] + defence[vector]) / 2;
+        }
+        return scores;
+    }
+
+    /**
+     * Copies of the pool fusions scored {@code (1 - weight) * score + weight * matchup},
+     * in pool order; everything else about them is unchanged.
+     */
+    static List<Fusion> blend(List<Fusion> pool, double[] matchups, double weight) {
+        List<Fusion> blended = new ArrayList<>(pool.size());
+        for (int i = 0; i < pool.size(); i++) {
+            Fusion f = pool.get(i), c = new Fusion();
+            c.headName = f.headName; c.bodyName = f.bodyName; c.typing = f.typing; c.role = f.role;
+            c.chosenAbility = f.chosenAbility; c.rank = f.rank; c.allAbilities = f.allAbilities;
+            c.hp = f.hp; c.atk = f.atk; c.def = f.def; c.spa = f.spa; c.spd = f.spd; c.spe = f.spe; c.bst = f.bst;
+            c.weaknessMask = f.weaknessMask; c.resistMask = f.resistMask;
+            c.score = (1 - weight) * f.score + weight * matchups[i];
+            blended.add(c);
+        }
+        return blended;
+    }
+
+    private double offence(int typing) {
+        int[] types = stabTypes(typing);
+        double sum = 0;
+        for (long o : opponentVectors) {
+            double best = 0;
+            for (int t : types) best = Math.max(best, TypeChart.multiplier(o, t));
+            sum += level(best);
+        }
+        return opponents.isEmpty() ? 0 : sum / opponents.size();
+    }
+
+    private double defence(long vector) {
+        double sum = 0;
+        for (int[] types : opponentTypes) {
+            double worst = 0;
+            for (int t : types) worst = Math.max(worst, TypeChart.multiplier(vector, t));
+            sum += 1 - level(worst);
+        }
+        return opponents.isEmpty() ? 0 : sum / opponents.size();
+    }
+
+    // 0x -> 0, 0.25x -> 0.25, 0.5x -> 0.375, 1x -> 0.5, 2x -> 0.75, 4x -> 1
+    private static double level(double multiplier) {
+        if (multiplier <= 0) return 0;
+        double doublings = Math.log(multiplier) / Math.log(2);
+        return Math.max(0.25, Math.min(1, 0.5 + doublings / 4 * (doublings > 0 ? 1 : 0.5)));
+    }
+
+    private static int[] stabTypes(int typing) {
+        int t1 = TypeChart.type1(typing), t2 = TypeChart.type2(typing);
+        if (t1 < TypeChart.TYPES && t2 < TypeChart.TYPES) return new int[]{t1, t2};
+        if (t1 < TypeChart.TYPES) return new int[]{t1};
+        return t2 < TypeChart.TYPES ? new int[]{t2} : new int[0];
+    }
+
+    /**
+     * The best counter team, made of the original pool fusions (realScore is their
+     * ordinary score), with the blended objective the search maximized and the team's
+     * mean matchup.
+     */
+    static final class Result {
+        final Team team;
+        final double objective;
+        final double matchup;
+        final TeamSearchResult search;
+
+        Result(Team team, double objective, double matchup, TeamSearchResult search) {
+            this.team = team;
+            this.objective = objective;
+            this.matchup = matchup;
+            this.search = search;
+        }
+    }
+}
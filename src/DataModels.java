@@ -28,61 +28,15 @@ class Team {
         simScore += dynScore; 
     }
     
-    void recalculateRealScore() { 
-        realScore = members.stream().mapToDouble(f -> f.score).sum();
-        balanceBonus = calculateBalanceBonus();
-        realScore += balanceBonus;
-    }
-    
-    // IMPROVED: Calculate team balance bonus based on role diversity
-    private double calculateBalanceBonus() {
-        Map<String, Integer> roleCounts = new HashMap<>();
-        for (Fusion f : members) {
-            roleCounts.put(f.role, roleCounts.getOrDefault(f.role, 0) + 1);
-        }
-        
-        double bonus = 0.0;
-        
-        // Ideal team has diverse roles
-        int uniqueRoles = roleCounts.size();
-        if (uniqueRoles >= 5) bonus += 0.15;      // Very diverse
-        else if (uniqueRoles >= 4) bonus += 0.08; // Good diversity
-        else if (uniqueRoles >= 3) bonus += 0.03; // Some diversity
-        
-        // Check for good role coverage
-        boolean hasSweeper = roleCounts.containsKey("Sweeper");
-        boolean hasWall = roleCounts.containsKey("Wall/Tank");
-        boolean hasWallbreaker = roleCounts.containsKey("Wallbreaker");
-        boolean hasSupport = roleCounts.containsKey("Fast Support") || roleCounts.containsKey("Slow Pivot");
-        
-        if (hasSweeper && hasWall) bonus += 0.05;
-        if (hasWallbreaker) bonus += 0.03;
-        if (hasSupport) bonus += 0.02;
-        
-        // Penalty for too many of same role (imbalanced)
-        for (int count : roleCounts.values()) {
-            if (count >= 4) bonus -= 0.10;  // 4+ of same role is bad
-            else if (count >= 3) bonus -= 0.05;  // 3 of same role is suboptimal
-        }
-        
-        // Check offensive/defensive balance
-        int offensive = 0, defensive = 0, mixed = 0;
-        for (Fusion f : members) {
-            if (f.role.equals("Sweeper") || f.role.equals("Wallbreaker")) offensive++;
-            else if (f.role.equals("Wall/Tank")) defensive++;
-            else if (f.role.equals("Mixed Attacker") || f.role.equals("Balanced")) mixed++;
-        }
-        
-        // Ideal is 2-3 offensive, 1-2 defensive, rest support/mixed
-        if (offensive >= 2 && offensive <= 3 && defensive >= 1 && defensive <= 2) {
-            bonus += 0.05;
-        }
-        
-        // Penalty for all offense or all defense
-        if (offensive >= 5) bonus -= 0.08;
-        if (defensive >= 4) bonus -= 0.08;
-        
-        return bonus;
+    /**
+     * Member scores plus the team delta, scored by TeamScorer under the given
+     * clause settings, the same way every search scores its teams.
+     */
+    void recalculateRealScore(TeamBuildConfig config) {
+        TeamScorer scorer = TeamScorer.shared(config);
+        scorer.set(members);
+        balanceBonus = scorer.delta();
+        realScore = scorer.score();
     }
     
     public boolean isFull() {
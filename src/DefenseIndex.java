@@ -0,0 +1,221 @@
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Bitmap indexes over a fusion pool's defensive profiles: for every attacking type,
+ * one bit per pool row for "weak to it", "resists it" (immunities included, as in
+ * the fusion masks) and "immune to it", ability modifiers counted through TypeChart.
+ * A query combines them a word at a time, so "resist Fire and resist Ice and immune
+ * Ground" over a million rows is a few thousand long operations per term.
+ *
+ * Query text reads like team rules:
+ *
+ * <pre>
+ * resist fire and resist ice and immune ground
+ * (weak rock or weak ice) and not resist water
+ * </pre>
+ *
+ * Terms are {@code weak}, {@code resist} or {@code immune} followed by a type ("to"
+ * is optional); they combine with {@code and}/{@code &}, {@code or}/{@code |},
+ * {@code not}/{@code !} and parentheses, and bind as not, then and, then or.
+ */
+final class DefenseIndex {
+    private final int rows;
+    private final int words;
+    // [type][word]
+    private final long[][] weak, resist, immune;
+
+    DefenseIndex(List<Fusion> pool) {
+        rows = pool.size();
+        words = (rows + 63) >>> 6;
+        weak = new long[TypeChart.TYPES][words];
+        resist = new long[TypeChart.TYPES][words];
+        immune = new long[TypeChart.TYPES][words];
+
+        // Profiles per (typing, ability) vector, worked out the first time one is seen
+        int vectors = TypeChart.TYPINGS * TypeChart.abilityCount();
+        long[] weakMasks = new long[vectors], resistMasks = new long[vectors], immuneMasks = new long[vectors];
+        boolean[] known = new boolean[vectors];
+        for (int row = 0; row < rows; row++) {
+            int v = TypeChart.vectorId(pool.get(row));
+            if (!known[v]) {
+                long vector = TypeChart.vector(v);
+                weakMasks[v] = TypeChart.weaknessMask(vector);
+                resistMasks[v] = TypeChart.resistMask(vector);
+                for (int t = 0; t < TypeChart.TYPES; t++) {
+                    if (TypeChart.multiplier(vector, t) == 0) immuneMasks[v] |= 1L << t;
+                }
+                known[v] = true;
+            }
+            set(weak, weakMasks[v], row);
+            set(resist, resistMasks[v], row);
+            set(immune, immuneMasks[v], row);
+        }
+    }
+
+    private static void set(long[][] bitmaps, long types, int row) {
+        for (long m = types; m != 0; m &= m - 1) {
+            bitmaps[Long.numberOfTrailingZeros(m)][row >>> 6] |= 1L << row;
+        }
+    }
+
+    int size() {
+        return rows;
+    }
+
+    // Pool rows matching the query, ascending
+    int[] rows(Query query) {
+        long[] bits = query.bits(this);
+        int count = 0;
+        for (long w : bits) count += Long.bitCount(w);
+        int[] result = new int[count];
+        int n = 0;
+        for (int i = 0; i < words; i++) {
+            for (long w = bits[i]; w != 0; w &= w - 1) result[n++] = (i << 6) + Long.numberOfTrailingZeros(w);
+        }
+        return result;
+    }
+
+    int count(Query query) {
+        int count = 0;
+        for (long w : query.bits(this)) count += Long.bitCount(w);
+        return count;
+    }
+
+    /**
+     * A combination of weak / resist / immune terms. Evaluating one gives a fresh
+     * bitmap over the index's rows that the caller may modify.
+     */
+    abstract static class Query {
+        abstract long[] bits(DefenseIndex index);
+
+        static Query weak(int type) {
+            return term(type, index -> index.weak);
+        }
+
+        static Query resist(int type) {
+            return term(type, index -> index.resist);
+        }
+
+        static Query immune(int type) {
+            return term(type, index -> index.immune);
+        }
+
+        private static Query term(int type, Function<DefenseIndex, long[][]> bitmaps) {
+            if (type < 0 || type >= TypeChart.TYPES) throw new IllegalArgumentException("no type " + type);
+            return new Query() {
+                long[] bits(DefenseIndex index) {
+                    return bitmaps.apply(index)[type].clone();
+                }
+            };
+        }
+
+        Query and(Query other) {
+            Query self = this;
+            return new Query() {
+                long[] bits(DefenseIndex index) {
+                    long[] a = self.bits(index), b = other.bits(index);
+                    for (int i = 0; i < a.length; i++) a[i] &= b[i];
+                    return a;
+                }
+            };
+        }
+
+        Query or(Query other) {
+            Query self = this;
+            return new Query() {
+                long[] bits(DefenseIndex index) {
+                    long[] a = self.bits(index), b = other.bits(index);
+                    for (int i = 0; i < a.length; i++) a[i] |= b[i];
+                    return a;
+                }
+            };
+        }
+
+        Query not() {
+            Query self = this;
+            return new Query() {
+                long[] bits(DefenseIndex index) {
+                    long[] a = self.bits(index);
+                    for (int i = 0; i < a.length; i++) a[i] = ~a[i];
+                    // Rows past the end of the pool stay clear
+                    if ((index.rows & 63) != 0) a[a.length - 1] &= (1L << index.rows) - 1;
+                    return a;
+                }
+            };
+        }
+
+        /**
+         * Parses query text (see {@link DefenseIndex}); throws IllegalArgumentException
+         * saying what could not be understood.
+         */
+        static Query parse(String text) {
+            Parser p = new Parser(text);
+            Query q = p.or();
+            if (p.pos < p.tokens.size()) throw new IllegalArgumentException("unexpected \"" + p.tokens.get(p.pos) + "\"");
+            return q;
+        }
+    }
+
+    private static final class Parser {
+        final List<String> tokens = new ArrayList<>();
+        int pos;
+
+        Parser(String text) {
+            for (String t : text.toLowerCase().replace("&&", "&").replace("||", "|")
+                    .replaceAll("([()!&|])", " $1 ").trim().split("\\s+")) {
+                if (!t.isEmpty()) tokens.add(t);
+            }
+            if (tokens.isEmpty()) throw new IllegalArgumentException("empty query");
+        }
+
+        Query or() {
+            Query q = and();
+            while (accept("or", "|")) q = q.or(and());
+            return q;
+        }
+
+        Query and() {
+            Query q = unary();
+            while (accept("and", "&")) q = q.and(unary());
+            return q;
+        }
+
+        Query unary() {
+            if (accept("not", "!")) return unary().not();
+            if (accept("(")) {
+                Query q = or();
+                if (!accept(")")) throw new IllegalArgumentException("missing )");
+                return q;
+            }
+            String kind = next("weak, resist or immune");
+            accept("to");
+            String typeName = next("a type after " + kind);
+            int type = TypeChart.typeIndex(typeName);
+            if (type < 0) throw new IllegalArgumentException("unknown type \"" + typeName + "\"");
+            switch (kind) {
+                case "weak": case "weakness":
+                    return Query.weak(type);
+                case "resist": case "resists":
+                    return Query.resist(type);
+                case "immune": case "immunity":
+                    return Query.immune(type);
+                default:
+                    throw new IllegalArgumentException("expected weak, resist or immune, not \"" + kind + "\"");
+            }
+        }
+
+        boolean accept(String... options) {
+            if (pos < tokens.size() && Arrays.asList(options).contains(tokens.get(pos))) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        String next(String expected) {
+            if (pos >= tokens.size()) throw new IllegalArgumentException("expected " + expected);
+            return tokens.get(pos++);
+        }
+    }
+}
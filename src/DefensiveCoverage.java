@@ -0,0 +1,73 @@
+import java.util.List;
+
+/**
+ * How many team members are weak to each attacking type, kept as bit-sliced
+ * counters packed into one long: three 18-bit planes holding bit 0, 1 and 2 of
+ * every type's count. Adding a member is a carry-add of its weakness mask,
+ * removing one a borrow-subtract, and the stacked-weakness penalty is a handful
+ * of popcounts, so the search and TeamScorer carry the counters from node to
+ * node without allocating anything.
+ */
+final class DefensiveCoverage {
+    static final int TYPES = 18;
+    private static final long PLANE = (1L << TYPES) - 1;
+    // More members than this weak to one type count as stacked
+    static final int MAX_SHARED_WEAKNESS = 2;
+
+    private DefensiveCoverage() {}
+
+    static long add(long counts, long weaknessMask) {
+        long b0 = counts & PLANE;
+        long b1 = (counts >>> TYPES) & PLANE;
+        long b2 = counts >>> (2 * TYPES);
+        long carry0 = b0 & weaknessMask;
+        b0 ^= weaknessMask;
+        long carry1 = b1 & carry0;
+        b1 ^= carry0;
+        // A team has at most six members, so the top plane never overflows
+        b2 |= carry1;
+        return b0 | (b1 << TYPES) | (b2 << (2 * TYPES));
+    }
+
+    /**
+     * Takes back a weakness mask added earlier.
+     */
+    static long remove(long counts, long weaknessMask) {
+        long b0 = counts & PLANE;
+        long b1 = (counts >>> TYPES) & PLANE;
+        long b2 = counts >>> (2 * TYPES);
+        long borrow0 = ~b0 & weaknessMask;
+        b0 ^= weaknessMask;
+        long borrow1 = ~b1 & borrow0;
+        b1 ^= borrow0;
+        b2 ^= borrow1;
+        return b0 | (b1 << TYPES) | (b2 << (2 * TYPES));
+    }
+
+    static long count(List<Fusion> members) {
+        long counts = 0L;
+        for (Fusion f : members) counts = add(counts, f.weaknessMask);
+        return counts;
+    }
+
+    /**
+     * Types already shared by {@value #MAX_SHARED_WEAKNESS} or more members; one more
+     * weak member on any of them breaks the hard clause.
+     */
+    static long saturated(long counts) {
+        return ((counts >>> TYPES) | (counts >>> (2 * TYPES))) & PLANE;
+    }
+
+    /**
+     * Sum over attacking types of the members weak to it beyond the allowed two.
+     * Only grows as members are added.
+     */
+    static int stackedWeaknesses(long counts) {
+        long b0 = counts & PLANE;
+        long b1 = (counts >>> TYPES) & PLANE;
+        long b2 = counts >>> (2 * TYPES);
+        long over = b2 | (b1 & b0); // count >= 3
+        int total = 4 * Long.bitCount(b2) + 2 * Long.bitCount(b1 & over) + Long.bitCount(b0 & over);
+        return total - MAX_SHARED_WEAKNESS * Long.bitCount(over);
+    }
+}
@@ -0,0 +1,389 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Several teams that share no species (head or body), maximizing their summed score.
+ * The search works on whole teams: each one comes from an ordinary single-team
+ * search over the fusions the other teams leave free, so scoring, clauses and team
+ * rules are exactly those of a single search.
+ *
+ * A greedy pass builds the teams one after another. For few teams over a small pool
+ * an exact engine follows: no team of the optimum can score below the greedy total
+ * minus what the other teams could reach at most, so every team above that threshold
+ * is enumerated (pruned by the usual ceiling against the threshold) and a branch and
+ * bound over those teams picks the best disjoint combination. Beyond that, or when
+ * too many teams clear the threshold, an anytime heuristic frees two teams at a time
+ * and rebuilds them from everything the others leave, keeping the pair when it scores
+ * more, until a sweep finds nothing better or the time budget runs out.
+ */
+class DisjointTeamSearch {
+    // The exact engine runs for at most this many teams over at most this many candidates
+    private static final int EXACT_TEAM_LIMIT = 4;
+    private static final int EXACT_POOL_LIMIT = 600;
+    // More teams above the threshold than this and the exact engine gives up
+    private static final int MAX_CANDIDATE_TEAMS = 200_000;
+    // Smallest time slice a sub-search gets when there is a time budget
+    private static final long MIN_SLICE_MS = 200;
+    private static final double EPS = 1e-9;
+
+    private final TeamBuilder builder;
+    private final List<Fusion> pool;
+    private final TeamBuildConfig config;
+    private final int teamCount;
+    private final TaskController task;
+    private final long startNanos;
+    private final TeamSearchStats stats;
+    // Species of every pool fusion, one bit per species
+    private final Map<Fusion, long[]> speciesMasks = new HashMap<>();
+    private final int words;
+
+    DisjointTeamSearch(TeamBuilder builder, List<Fusion> pool, TeamBuildConfig config, int teamCount,
+                       TaskController task, long startNanos) {
+        this.builder = builder;
+        this.pool = pool;
+        // Sub-searches are many and short: no checkpoints, and no worker processes per search
+        TeamBuildConfig sub = config.withCheckpoint(null);
+        if (sub.strategy == TeamBuildConfig.Strategy.DISTRIBUTED) sub = sub.withStrategy(TeamBuildConfig.Strategy.AUTO, sub.beamWidth);
+        this.config = sub;
+        this.teamCount = Math.max(1, teamCount);
+        this.task = task;
+        this.startNanos = startNanos;
+        this.stats = new TeamSearchStats(startNanos, TeamBuilder.SEARCH_POOL.getParallelism());
+
+        Map<String, Integer> ids = new HashMap<>();
+        for (Fusion f : pool) {
+            ids.putIfAbsent(f.headName.toLowerCase(), ids.size());
+            ids.putIfAbsent(f.bodyName.toLowerCase(), ids.size());
+        }
+        this.words = Math.max(1, (ids.size() + 63) / 64);
+        for (Fusion f : pool) {
+            long[] mask = new long[words];
+            int head = ids.get(f.headName.toLowerCase()), body = ids.get(f.bodyName.toLowerCase());
+            mask[head >>> 6] |= 1L << head;
+            mask[body >>> 6] |= 1L << body;
+            speciesMasks.put(f, mask);
+        }
+    }
+
+    TeamSearchResult search(BiConsumer<Integer, Integer> progressCallback) {
+        List<Team> teams = new ArrayList<>();
+        long[] used = new long[words];
+        double singleBound = -Double.MAX_VALUE;
+        boolean singleProven = false;
+
+        // Greedy pass: each team is the best one the earlier teams leave room for
+        for (int t = 0; t < teamCount && !shouldStop(); t++) {
+            TeamSearchResult r = solve(available(used), -Double.MAX_VALUE, teamCount - t);
+            if (t == 0) {
+                singleBound = r.upperBound;
+                singleProven = r.complete;
+            }
+            if (r.teams.isEmpty()) break;
+            teams.add(r.teams.get(0));
+            or(used, mask(r.teams.get(0)));
+            progressCallback.accept(t + 1, teamCount);
+        }
+        if (teams.size() == teamCount) stats.improved(total(teams));
+
+        // One team is just the single search; and if that proved no team exists, neither do several
+        boolean proven = singleProven && (teamCount == 1 || teams.isEmpty());
+        if (!proven && teamCount <= EXACT_TEAM_LIMIT && pool.size() <= EXACT_POOL_LIMIT && !shouldStop()
+                && singleBound > -Double.MAX_VALUE) {
+            double lower = teams.size() == teamCount ? total(teams) : -Double.MAX_VALUE;
+            List<Team> exact = new ArrayList<>();
+            Boolean outcome = exact(lower, singleBound, exact);
+            if (outcome != null) {
+                if (!exact.isEmpty()) {
+                    teams = exact;
+                    stats.improved(total(teams));
+                }
+                proven = outcome;
+                if (proven && exact.isEmpty() && teams.size() < teamCount) teams.clear();
+            }
+        }
+        if (!proven && teams.size() == teamCount && teamCount > 1) {
+            teams = improvePairs(teams, progressCallback);
+        }
+
+        teams.sort((a, b) -> Double.compare(b.realScore, a.realScore));
+        stats.finish();
+        double upperBound = proven || singleBound == -Double.MAX_VALUE ? total(teams)
+                                                                       : Math.max(total(teams), teamCount * singleBound);
+        return new TeamSearchResult(teams, upperBound, proven, stats);
+    }
+
+    /**
+     * The exact engine. Fills {@code out} with a better combination than {@code lower}
+     * when there is one, and returns whether the result (that or the greedy teams) is
+     * proven optimal; null when it gave up on too many candidate teams.
+     */
+    private Boolean exact(double lower, double singleBound, List<Team> out) {
+        double threshold = lower == -Double.MAX_VALUE ? -Double.MAX_VALUE : lower - (teamCount - 1) * singleBound;
+        String above = threshold > -Double.MAX_VALUE ? String.format(" above %.3f", threshold) : "";
+        List<Candidate> found = enumerate(threshold);
+        if (found == null) {
+            System.out.println("Disjoint search: more than " + MAX_CANDIDATE_TEAMS + " teams" + above + ", continuing heuristically");
+            return null;
+        }
+        // Whether teams clash depends only on their species, so per species set only the best team matters
+        Map<BitSet, Candidate> bySpecies = new HashMap<>();
+        for (Candidate c : found) bySpecies.merge(BitSet.valueOf(c.mask), c, (x, y) -> x.score >= y.score ? x : y);
+        List<Candidate> candidates = new ArrayList<>(bySpecies.values());
+        candidates.sort((a, b) -> Double.compare(b.score, a.score));
+        System.out.println("Disjoint search: " + found.size() + " candidate teams" + above + ", "
+            + candidates.size() + " distinct species sets");
+
+        Packing packing = new Packing(candidates, lower);
+        packing.run(0, 0, 0.0);
+        if (packing.bestPicks != null) {
+            for (int idx : packing.bestPicks) out.add(candidates.get(idx).team);
+        }
+        return !packing.stopped;
+    }
+
+    /**
+     * Every team scoring at least {@code threshold}, searched like the exact single
+     * search but with the threshold as a fixed incumbent; null if there are too many.
+     */
+    private List<Candidate> enumerate(double threshold) {
+        TeamSearchContext run = new TeamSearchContext(Collections.unmodifiableList(pool), Collections.emptyList(), config,
+                                                      task, null, startNanos);
+        run.adoptRemoteScore(threshold - EPS);
+        ConcurrentLinkedQueue<Candidate> found = new ConcurrentLinkedQueue<>();
+        AtomicBoolean overflow = new AtomicBoolean();
+        AtomicInteger count = new AtomicInteger();
+
+        List<ForkJoinTask<?>> roots = new ArrayList<>();
+        for (int i = 0; i < pool.size(); i++) {
+            final int root = i;
+            roots.add(ForkJoinTask.adapt(() -> {
+                Fusion first = pool.get(root);
+                if (!TeamBuilder.isValidAddition(Collections.emptyList(), first, config)) return;
+                List<Fusion> team = new ArrayList<>(6);
+                team.add(first);
+                collect(run, team, first.score, DefensiveCoverage.add(0L, first.weaknessMask), root, threshold,
+                        found, count, overflow);
+            }));
+        }
+        try {
+            TeamBuilder.SEARCH_POOL.submit(() -> ForkJoinTask.invokeAll(roots)).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+        run.stats.finish();
+        stats.absorb(run.stats);
+        if (overflow.get() || run.stopped) return null;
+        return new ArrayList<>(found);
+    }
+
+    private void collect(TeamSearchContext run, List<Fusion> team, double base, long weakness, int lastIndex,
+                         double threshold, ConcurrentLinkedQueue<Candidate> found,
+                         AtomicInteger count, AtomicBoolean overflow) {
+        if (overflow.get() || run.shouldStop()) return;
+        if (team.size() == 6) {
+            run.stats.expanded(6);
+            double delta = TeamBuilder.calculateDelta(team, config);
+            if (base + delta < threshold - EPS) return;
+            if (!config.constraints.isEmpty() && !config.constraints.isSatisfied(team)) return;
+            if (count.incrementAndGet() > MAX_CANDIDATE_TEAMS) {
+                overflow.set(true);
+                return;
+            }
+            Team t = new Team();
+            t.members.addAll(team);
+            t.realScore = base + delta;
+            t.balanceBonus = delta;
+            found.add(new Candidate(t, mask(t)));
+            return;
+        }
+        int slots = 6 - team.size();
+        if (TeamBuilder.canPrune(run, base, team, lastIndex, slots)) {
+            run.stats.pruned(team.size());
+            return;
+        }
+        run.stats.expanded(team.size());
+        for (int i = lastIndex + 1; i < pool.size(); i++) {
+            Fusion candidate = pool.get(i);
+            if (!TeamBuilder.isValidAddition(team, weakness, candidate, config)) {
+                run.stats.rejected();
+                continue;
+            }
+            team.add(candidate);
+            collect(run, team, base + candidate.score, DefensiveCoverage.add(weakness, candidate.weaknessMask), i,
+                    threshold, found, count, overflow);
+            team.remove(team.size() - 1);
+        }
+    }
+
+    /**
+     * Branch and bound over candidate teams, best first: a combination can at most
+     * add the next best scores after the current position, disjoint or not.
+     */
+    private final class Packing {
+        private final List<Candidate> candidates;
+        private final double[] prefix;
+        private final long[][] used;
+        private final int[] picks = new int[teamCount];
+        private int[] bestPicks;
+        private double best;
+        private long nodes;
+        boolean stopped;
+
+        Packing(List<Candidate> candidates, double lower) {
+            this.candidates = candidates;
+            this.prefix = new double[candidates.size() + 1];
+            for (int i = 0; i < candidates.size(); i++) prefix[i + 1] = prefix[i] + candidates.get(i).score;
+            this.used = new long[teamCount + 1][words];
+            this.best = lower;
+        }
+
+        void run(int start, int depth, double total) {
+            if (depth == teamCount) {
+                if (total > best + EPS) {
+                    best = total;
+                    bestPicks = picks.clone();
+                }
+                return;
+            }
+            if (stopped || ((++nodes & 0xFFF) == 0 && shouldStop())) {
+                stopped = true;
+                return;
+            }
+            int need = teamCount - depth;
+            for (int i = start; i + need <= candidates.size(); i++) {
+                // Scores only fall from here on, so neither this nor any later candidate can help
+                if (total + prefix[i + need] - prefix[i] <= best + EPS) break;
+                Candidate c = candidates.get(i);
+                if (intersects(used[depth], c.mask)) continue;
+                System.arraycopy(used[depth], 0, used[depth + 1], 0, words);
+                or(used[depth + 1], c.mask);
+                picks[depth] = i;
+                run(i + 1, depth + 1, total + c.score);
+                if (stopped) return;
+            }
+        }
+    }
+
+    /**
+     * The anytime heuristic: rebuild each pair of teams from what the others leave,
+     * keeping the new pair when it beats the one it replaces. A pair is rebuilt best
+     * team first, and again starting from the best team avoiding the species of the
+     * pair's first team, so the same greedy choice is not simply repeated.
+     */
+    private List<Team> improvePairs(List<Team> teams, BiConsumer<Integer, Integer> progressCallback) {
+        int slices = 2 * teamCount * (teamCount - 1);
+        int round = 0;
+        boolean improved = true;
+        while (improved && !shouldStop()) {
+            improved = false;
+            for (int a = 0; a < teamCount && !shouldStop(); a++) {
+                for (int b = a + 1; b < teamCount && !shouldStop(); b++) {
+                    long[] others = new long[words];
+                    for (int t = 0; t < teamCount; t++) {
+                        if (t != a && t != b) or(others, mask(teams.get(t)));
+                    }
+                    double pair = teams.get(a).realScore + teams.get(b).realScore;
+                    Team[] rebuilt = rebuildPair(others, new long[words], pair, slices);
+                    if (rebuilt == null && !shouldStop()) rebuilt = rebuildPair(others, mask(teams.get(a)), pair, slices);
+                    if (rebuilt == null) continue;
+
+                    teams = new ArrayList<>(teams);
+                    teams.set(a, rebuilt[0]);
+                    teams.set(b, rebuilt[1]);
+                    stats.improved(total(teams));
+                    improved = true;
+                }
+            }
+            progressCallback.accept(++round, 0);
+        }
+        return teams;
+    }
+
+    /**
+     * Two disjoint teams from the fusions clear of {@code others}, the first also
+     * clear of {@code avoid}; null unless together they score more than {@code pair}.
+     * The second search only has to find teams that make up the difference.
+     */
+    private Team[] rebuildPair(long[] others, long[] avoid, double pair, int slices) {
+        long[] blocked = others.clone();
+        or(blocked, avoid);
+        TeamSearchResult first = solve(available(blocked), -Double.MAX_VALUE, slices);
+        if (first.teams.isEmpty()) return null;
+        Team x = first.teams.get(0);
+        blocked = others.clone();
+        or(blocked, mask(x));
+        TeamSearchResult second = solve(available(blocked), pair - x.realScore + EPS, slices);
+        if (second.teams.isEmpty()) return null;
+        return new Team[]{x, second.teams.get(0)};
+    }
+
+    /**
+     * One single-team search over the given fusions, sharing what is left of the
+     * time budget with {@code slices} more like it.
+     */
+    private TeamSearchResult solve(List<Fusion> fusions, double floor, int slices) {
+        TeamBuildConfig sub = config;
+        if (config.timeBudgetMs > 0) {
+            long left = config.timeBudgetMs - (System.nanoTime() - startNanos) / 1_000_000;
+            sub = config.withTimeBudget(Math.max(1, Math.min(left, Math.max(MIN_SLICE_MS, left / Math.max(1, slices)))));
+        }
+        TeamSearchResult r = builder.searchPrepared(fusions, sub, task, floor);
+        stats.absorb(r.stats);
+        return r;
+    }
+
+    private boolean shouldStop() {
+        if (task.isCancelled()) return true;
+        return config.timeBudgetMs > 0 && System.nanoTime() - startNanos >= config.timeBudgetMs * 1_000_000L;
+    }
+
+    // Pool fusions (still best-first) sharing no species with the mask
+    private List<Fusion> available(long[] used) {
+        List<Fusion> free = new ArrayList<>();
+        for (Fusion f : pool) {
+            if (!intersects(used, speciesMasks.get(f))) free.add(f);
+        }
+        return free;
+    }
+
+    private long[] mask(Team team) {
+        long[] m = new long[words];
+        for (Fusion f : team.members) or(m, speciesMasks.get(f));
+        return m;
+    }
+
+    private static double total(List<Team> teams) {
+        if (teams.isEmpty()) return -Double.MAX_VALUE;
+        double sum = 0;
+        for (Team t : teams) sum += t.realScore;
+        return sum;
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] & b[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    private static void or(long[] into, long[] bits) {
+        for (int i = 0; i < into.length; i++) into[i] |= bits[i];
+    }
+
+    private static final class Candidate {
+        final Team team;
+        final double score;
+        final long[] mask;
+
+        Candidate(Team team, long[] mask) {
+            this.team = team;
+            this.score = team.realScore;
+            this.mask = mask;
+        }
+    }
+}
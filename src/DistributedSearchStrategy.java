@@ -0,0 +1,309 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Exact search spread over worker JVMs (TeamSearchWorker), on this machine or others.
+ * The coordinator cuts the tree into work units: the heaviest first-level branches
+ * (the best candidates, searched first) are split into second-level prefixes, the
+ * rest stay whole. Each worker keeps a couple of units in flight. Every improvement
+ * a worker reports is checked here and its score broadcast to all workers, so they
+ * all prune against the global incumbent. Units held by a worker whose connection
+ * drops go back to the front of the queue, and if no worker is left the coordinator
+ * finishes the queue itself.
+ *
+ * The coordinator listens on the configured address, loopback unless remote workers
+ * are wanted, and each search has a random session token that workers must present
+ * before they get the pool. A worker may only report units it was handed.
+ */
+class DistributedSearchStrategy implements TeamSearchStrategy {
+    // Upper limit on work units; decides how many leading branches are split in two levels
+    private static final int MAX_UNITS = 20_000;
+    // Units sent ahead to each worker so it never waits for the next one
+    private static final int PIPELINE = 2;
+    private static final int ACCEPT_POLL_MS = 100;
+    // Without any connected worker for this long, the coordinator searches units itself
+    private static final long LOCAL_FALLBACK_MS = 10_000;
+    // A connecting peer must send its HELLO within this time
+    private static final int HELLO_TIMEOUT_MS = 10_000;
+
+    private final TeamBuilder builder;
+    private final int localWorkers;
+    private final int port;
+    private final String address;
+
+    DistributedSearchStrategy(TeamBuilder builder, int localWorkers, int port, String address) {
+        this.builder = builder;
+        this.localWorkers = Math.max(0, localWorkers);
+        this.port = port;
+        this.address = address;
+    }
+
+    @Override
+    public String getName() {
+        return "Distributed Branch and Bound (" + localWorkers + " local workers)";
+    }
+
+    @Override
+    public boolean search(TeamSearchContext ctx, BiConsumer<Integer, Integer> progressCallback) {
+        List<int[]> units = partition(ctx);
+        ConcurrentLinkedDeque<Integer> pending = new ConcurrentLinkedDeque<>();
+        for (int i = 0; i < units.size(); i++) pending.add(i);
+        AtomicInteger completed = new AtomicInteger();
+        Set<Integer> finished = ConcurrentHashMap.newKeySet();
+        List<WorkerLink> links = new CopyOnWriteArrayList<>();
+        List<Process> processes = new ArrayList<>();
+
+        String token = newToken();
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getByName(address))) {
+            server.setSoTimeout(ACCEPT_POLL_MS);
+            System.out.println("Coordinator listening on " + address + ":" + server.getLocalPort() + ", " + units.size()
+                + " work units; remote workers: TeamSearchWorker <host> " + server.getLocalPort() + " " + token);
+            for (int i = 0; i < localWorkers; i++) processes.add(launchLocalWorker(server.getLocalPort(), token));
+
+            long lastWorkerSeen = System.currentTimeMillis();
+            while (completed.get() < units.size() && !ctx.shouldStop()) {
+                try {
+                    Socket socket = server.accept();
+                    WorkerLink link = new WorkerLink(socket, token, ctx, units, pending, finished, completed, links, progressCallback);
+                    links.add(link);
+                    link.start();
+                } catch (SocketTimeoutException e) {
+                    // Poll again; meanwhile hand requeued units to idle workers
+                }
+
+                boolean anyAlive = false;
+                for (WorkerLink link : links) {
+                    if (link.alive) {
+                        anyAlive = true;
+                        link.refill();
+                    }
+                }
+                if (anyAlive) {
+                    lastWorkerSeen = System.currentTimeMillis();
+                } else if (System.currentTimeMillis() - lastWorkerSeen > LOCAL_FALLBACK_MS) {
+                    Integer id = pending.poll();
+                    if (id != null && finished.add(id)) {
+                        builder.searchPrefix(ctx, units.get(id));
+                        if (!ctx.stopped) {
+                            progressCallback.accept(completed.incrementAndGet(), units.size());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            ctx.stopped = true;
+        } finally {
+            for (WorkerLink link : links) link.close();
+            for (Process p : processes) p.destroy();
+        }
+
+        if (completed.get() < units.size()) {
+            ctx.abandon(ctx.rootCeiling());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * First-level branches in pool order, except that the leading ones (highest
+     * scores, so the largest subtrees left after pruning) are split into one unit
+     * per second-level candidate while the total stays under MAX_UNITS.
+     */
+    private List<int[]> partition(TeamSearchContext ctx) {
+        int n = ctx.pool.size();
+        List<int[]> units = new ArrayList<>();
+        int i = 0;
+        if (ctx.slots() >= 2) {
+            for (; i < n && units.size() + (n - i - 1) + (n - i - 1) <= MAX_UNITS; i++) {
+                for (int j = i + 1; j < n; j++) units.add(new int[]{i, j});
+            }
+        }
+        for (; i < n; i++) units.add(new int[]{i});
+        return units;
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private Process launchLocalWorker(int coordinatorPort, String token) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        // Local workers reach a coordinator on every interface through loopback too
+        String host = address.equals("0.0.0.0") ? TeamBuildConfig.LOOPBACK : address;
+        ProcessBuilder pb = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+            "TeamSearchWorker", host, String.valueOf(coordinatorPort), token);
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+        return pb.start();
+    }
+
+    /**
+     * One connected worker. A reader thread handles its messages; units are sent
+     * from the reader (after each finished unit) and from the coordinator loop
+     * (to hand out units requeued after another worker died).
+     */
+    private static final class WorkerLink extends Thread {
+        private final Socket socket;
+        private final String token;
+        private final TeamSearchContext ctx;
+        private final List<int[]> units;
+        private final ConcurrentLinkedDeque<Integer> pending;
+        private final Set<Integer> finished;
+        private final AtomicInteger completed;
+        private final List<WorkerLink> links;
+        private final BiConsumer<Integer, Integer> progressCallback;
+        private final Set<Integer> inFlight = ConcurrentHashMap.newKeySet();
+        private DataOutputStream out;
+        volatile boolean alive = true;
+
+        WorkerLink(Socket socket, String token, TeamSearchContext ctx, List<int[]> units, ConcurrentLinkedDeque<Integer> pending,
+                   Set<Integer> finished, AtomicInteger completed, List<WorkerLink> links,
+                   BiConsumer<Integer, Integer> progressCallback) {
+            super("TeamSearchCoordinator-" + socket.getRemoteSocketAddress());
+            setDaemon(true);
+            this.socket = socket;
+            this.token = token;
+            this.ctx = ctx;
+            this.units = units;
+            this.pending = pending;
+            this.finished = finished;
+            this.completed = completed;
+            this.links = links;
+            this.progressCallback = progressCallback;
+        }
+
+        @Override
+        public void run() {
+            try {
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                // Nothing about the search goes to a peer that cannot show the session token
+                socket.setSoTimeout(HELLO_TIMEOUT_MS);
+                TeamSearchProtocol.readHello(in, token);
+                socket.setSoTimeout(0);
+                synchronized (this) {
+                    out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    TeamSearchProtocol.writeInit(out, ctx.config, ctx.pinned, ctx.pool, ctx.bestScore());
+                }
+                System.out.println("Worker connected: " + socket.getRemoteSocketAddress());
+                refill();
+
+                while (true) {
+                    byte type = in.readByte();
+                    if (type == TeamSearchProtocol.IMPROVED) {
+                        in.readDouble();
+                        int[] picks = TeamSearchProtocol.readIndices(in);
+                        acceptImprovement(picks);
+                    } else if (type == TeamSearchProtocol.UNIT_DONE) {
+                        int id = in.readInt();
+                        long nodes = in.readLong();
+                        // Only a unit this worker was handed and has not reported yet counts as searched
+                        if (id < 0 || id >= units.size() || !inFlight.remove(id)) {
+                            throw new IOException("Unit " + id + " was not assigned to this worker");
+                        }
+                        ctx.stats.addRemoteNodes(nodes);
+                        if (finished.add(id)) progressCallback.accept(completed.incrementAndGet(), units.size());
+                        refill();
+                    } else {
+                        throw new IOException("Unexpected message " + type);
+                    }
+                }
+            } catch (IOException e) {
+                if (alive) System.out.println("Worker lost: " + socket.getRemoteSocketAddress() + " (" + e.getMessage() + ", "
+                    + inFlight.size() + " units requeued)");
+            } finally {
+                synchronized (this) {
+                    alive = false;
+                    // Whatever it was still working on goes back to the front of the queue
+                    for (Integer id : inFlight) {
+                        if (!finished.contains(id)) pending.addFirst(id);
+                    }
+                    inFlight.clear();
+                }
+                try {
+                    socket.close();
+                } catch (IOException ignored) {}
+            }
+        }
+
+        /**
+         * Re-scores a reported team here instead of trusting the worker's number,
+         * and broadcasts the new global best when it is one.
+         */
+        private void acceptImprovement(int[] picks) {
+            List<Fusion> team = new ArrayList<>(ctx.pinned);
+            double base = ctx.pinnedBase;
+            for (int idx : picks) {
+                if (idx < 0 || idx >= ctx.pool.size()) return;
+                Fusion f = ctx.pool.get(idx);
+                team.add(f);
+                base += f.score;
+            }
+            if (team.size() != 6) return;
+            if (ctx.offer(base, team, TeamBuilder.calculateDelta(team, ctx.config))) {
+                double best = ctx.bestScore();
+                for (WorkerLink link : links) link.sendBest(best);
+            }
+        }
+
+        synchronized void refill() {
+            if (!alive || out == null) return;
+            try {
+                while (inFlight.size() < PIPELINE) {
+                    Integer id = pending.poll();
+                    if (id == null) break;
+                    if (finished.contains(id)) continue;
+                    inFlight.add(id);
+                    out.writeByte(TeamSearchProtocol.UNIT);
+                    out.writeInt(id);
+                    TeamSearchProtocol.writeIndices(out, units.get(id));
+                }
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        synchronized void sendBest(double best) {
+            if (!alive || out == null) return;
+            try {
+                out.writeByte(TeamSearchProtocol.BEST);
+                out.writeDouble(best);
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            if (!alive) return;
+            synchronized (this) {
+                try {
+                    if (out != null) {
+                        out.writeByte(TeamSearchProtocol.SHUTDOWN);
+                        out.flush();
+                    }
+                } catch (IOException ignored) {}
+            }
+            alive = false;
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+        }
+    }
+}
@@ -4,10 +4,15 @@ public class Fusion {
     public String headName, bodyName, typing, role, chosenAbility; 
     public int rank, hp, atk, def, spa, spd, spe, bst; 
     public double score;
+    // Moveset component of the score, kept so the pool can be re-scored under other weights
+    public double moveScore;
     public List<FusionCalculator.AbilityResult> allAbilities = new ArrayList<>();
     
-    // Bitmasks for lightning-fast defensive checks
+    // Bitmasks for lightning-fast defensive checks, one bit per attacking type (TypeChart order)
     public long weaknessMask = 0L;
+    public long resistMask = 0L;
+    // Species, type and role ids interned by TeamScorer, packed; 0 until first scored
+    volatile long scorerIds;
 
     public String getDisplayName() {
         return capitalize(headName) + " + " + capitalize(bodyName);
@@ -19,13 +24,15 @@ public class Fusion {
     }
 
     /**
-     * Converts the typing string into a bitmask of weaknesses.
+     * Converts the typing and chosen ability into bitmasks of weaknesses and
+     * resistances (immunities count as resistances).
      */
-    public void buildBitmasks(Map<String, Long> weaknessLookup) {
+    public void buildBitmasks() {
         this.weaknessMask = 0L;
+        this.resistMask = 0L;
         if (typing == null) return;
-        for (String t : typing.split("/")) {
-            this.weaknessMask |= weaknessLookup.getOrDefault(t.trim(), 0L);
-        }
+        long vector = TypeChart.vector(this);
+        this.weaknessMask = TypeChart.weaknessMask(vector);
+        this.resistMask = TypeChart.resistMask(vector);
     }
 }
\ No newline at end of file
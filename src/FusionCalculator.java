@@ -101,31 +101,12 @@ class FusionCalculator {
             f.allAbilities = abilities; 
             
             // Calculate Score specifically for THIS ability
-            double moveScore = (data.movesets.getBestScore(head.name, f.atk, f.spa) +
-                                data.movesets.getBestScore(body.name, f.atk, f.spa)) / 2.0;
-            
-            double statScore = normalize(f.bst, 250, 680);
-            double typeScore = 1.0 - normalize(f.rank, 1, 171);
+            f.moveScore = (data.movesets.getBestScore(head.name, f.atk, f.spa) +
+                           data.movesets.getBestScore(body.name, f.atk, f.spa)) / 2.0;
             double abilityScore = Math.min(1.0, ab.score); // Use the specific ability score
-            
-            double total = weights.getTotal();
-            double baseScore = (statScore * weights.stat + 
-                                typeScore * weights.type + 
-                                abilityScore * weights.ability + 
-                                moveScore * weights.moveset) / total;
-            
-            double bonus = ab.synergy * 0.08;
-            bonus += calculateStatBonus(f);
-            
-            double rawScore = baseScore + bonus;
-            if (rawScore > 0.85) {
-                double excess = rawScore - 0.85;
-                rawScore = 0.85 + (excess * 0.3);
-            }
-            
-            f.score = clamp(rawScore, 0.0, 1.0);
-            f.score = Math.round(f.score * 1000.0) / 1000.0;
+            f.score = combine(statScore(f), typeScore(f), abilityScore, f.moveScore, bonus(f, ab), weights);
             f.role = determineDynamicRole(f, ab.score);
+            f.buildBitmasks();
             
             variants.add(f);
         }
@@ -177,7 +158,48 @@ class FusionCalculator {
         return "Balanced";
     }
     
-    private double calculateStatBonus(Fusion f) {
+    static double statScore(Fusion f) {
+        return normalize(f.bst, 250, 680);
+    }
+    
+    static double typeScore(Fusion f) {
+        return 1.0 - normalize(f.rank, 1, 171);
+    }
+    
+    // Ability synergy and stat thresholds, added on top of the weighted score
+    static double bonus(Fusion f, AbilityResult ab) {
+        return ab.synergy * 0.08 + calculateStatBonus(f);
+    }
+    
+    /**
+     * The score of a fusion from its components: the weighted average, plus the
+     * bonus, softened above 0.85 and rounded to 0.001. Weight sweeps re-score with
+     * these, so they must stay the one place the formula lives.
+     */
+    static double combine(double statScore, double typeScore, double abilityScore, double moveScore,
+                          double bonus, ScoringWeights weights) {
+        return finalScore(weightedScore(statScore, typeScore, abilityScore, moveScore, weights) + bonus);
+    }
+    
+    static double weightedScore(double statScore, double typeScore, double abilityScore, double moveScore,
+                                ScoringWeights weights) {
+        return (statScore * weights.stat + 
+                typeScore * weights.type + 
+                abilityScore * weights.ability + 
+                moveScore * weights.moveset) / weights.getTotal();
+    }
+    
+    // Weighted score plus bonus to the final score; never decreases as rawScore grows
+    static double finalScore(double rawScore) {
+        if (rawScore > 0.85) {
+            double excess = rawScore - 0.85;
+            rawScore = 0.85 + (excess * 0.3);
+        }
+        
+        return Math.round(clamp(rawScore, 0.0, 1.0) * 1000.0) / 1000.0;
+    }
+    
+    private static double calculateStatBonus(Fusion f) {
         double bonus = 0.0;
         if (f.spe >= 135) bonus += 0.04;
         else if (f.spe >= 120) bonus += 0.02;
@@ -194,11 +216,11 @@ class FusionCalculator {
         return bonus;
     }
     
-    private double normalize(double value, double min, double max) {
+    private static double normalize(double value, double min, double max) {
         return Math.max(0.0, Math.min((value - min) / (max - min), 1.0));
     }
     
-    private double clamp(double value, double min, double max) {
+    private static double clamp(double value, double min, double max) {
         return Math.max(min, Math.min(value, max));
     }
     
@@ -0,0 +1,187 @@
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Indexes over one calculated pool for FusionFilter, built once per calculation: per
+ * stat the rows sorted by that stat (so "stat >= min" is a binary search and a
+ * suffix), and per distinct typing, ability and role the rows that have it (so a
+ * "contains" match only tests each distinct value once).
+ *
+ * A filter is planned before it runs: every active predicate estimates how many rows
+ * it lets through from the indexes alone, the most selective one produces the
+ * candidate rows, and only those are checked against the rest. Cost follows the
+ * size of the smallest candidate set rather than the pool.
+ */
+final class FusionIndex {
+    private static final int STATS = 7; // hp, atk, def, spa, spd, spe, bst
+
+    private final List<Fusion> pool;
+    // [stat][row]
+    private final int[][] stats;
+    // [stat]: rows by ascending stat, and the stat values in that order
+    private final int[][] byStat, sortedStat;
+    // Typing, ability and role
+    private final Column[] columns;
+
+    FusionIndex(List<Fusion> pool) {
+        this.pool = pool;
+        int n = pool.size();
+        stats = new int[STATS][n];
+        for (int row = 0; row < n; row++) {
+            Fusion f = pool.get(row);
+            stats[0][row] = f.hp; stats[1][row] = f.atk; stats[2][row] = f.def; stats[3][row] = f.spa;
+            stats[4][row] = f.spd; stats[5][row] = f.spe; stats[6][row] = f.bst;
+        }
+        byStat = new int[STATS][];
+        sortedStat = new int[STATS][];
+        for (int s = 0; s < STATS; s++) {
+            byStat[s] = sortByValue(stats[s]);
+            sortedStat[s] = new int[n];
+            for (int i = 0; i < n; i++) sortedStat[s][i] = stats[s][byStat[s][i]];
+        }
+        columns = new Column[]{new Column(pool, f -> f.typing), new Column(pool, f -> f.chosenAbility), new Column(pool, f -> f.role)};
+    }
+
+    int size() {
+        return pool.size();
+    }
+
+    /**
+     * The pool fusions passing the filter, in pool order.
+     */
+    List<Fusion> select(FusionFilter filter) {
+        int[] mins = {filter.minHP, filter.minAtk, filter.minDef, filter.minSpa, filter.minSpd, filter.minSpe, filter.minBST};
+        String[] texts = {filter.typeConstraint, filter.abilityConstraint, filter.roleConstraint};
+        // Per column, which of its values match; null when the column is not filtered
+        boolean[][] ok = new boolean[columns.length][];
+        for (int c = 0; c < columns.length; c++) ok[c] = columns[c].matching(texts[c]);
+
+        // Plan: the predicate letting the fewest rows through drives the scan
+        int driverStat = -1, driverColumn = -1;
+        long best = pool.size();
+        for (int s = 0; s < STATS; s++) {
+            if (mins[s] <= 0) continue;
+            long count = pool.size() - lowerBound(sortedStat[s], mins[s]);
+            if (count < best) {
+                best = count;
+                driverStat = s;
+            }
+        }
+        for (int c = 0; c < columns.length; c++) {
+            if (ok[c] == null) continue;
+            long count = columns[c].count(ok[c]);
+            if (count < best) {
+                best = count;
+                driverStat = -1;
+                driverColumn = c;
+            }
+        }
+
+        int[] candidates;
+        if (driverColumn >= 0) {
+            candidates = columns[driverColumn].rows(ok[driverColumn]);
+        } else if (driverStat >= 0) {
+            int from = lowerBound(sortedStat[driverStat], mins[driverStat]);
+            candidates = Arrays.copyOfRange(byStat[driverStat], from, pool.size());
+        } else {
+            candidates = null; // Nothing narrows it down: every row is a candidate
+        }
+
+        int count = candidates != null ? candidates.length : pool.size();
+        int[] hits = new int[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int row = candidates != null ? candidates[i] : i;
+            boolean match = true;
+            for (int s = 0; s < STATS && match; s++) match = stats[s][row] >= mins[s];
+            for (int c = 0; c < columns.length && match; c++) match = ok[c] == null || ok[c][columns[c].ids[row]];
+            if (match) hits[n++] = row;
+        }
+        // Candidates from a stat or a value list are not in pool order
+        if (candidates != null) Arrays.sort(hits, 0, n);
+        List<Fusion> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) result.add(pool.get(hits[i]));
+        return result;
+    }
+
+    // Rows of the pool ordered by value, by counting sort: stats are small non-negative ints
+    private static int[] sortByValue(int[] values) {
+        int max = 0;
+        for (int v : values) max = Math.max(max, v);
+        int[] starts = new int[max + 2];
+        for (int v : values) starts[Math.max(0, v) + 1]++;
+        for (int i = 1; i < starts.length; i++) starts[i] += starts[i - 1];
+        int[] rows = new int[values.length];
+        for (int row = 0; row < values.length; row++) rows[starts[Math.max(0, values[row])]++] = row;
+        return rows;
+    }
+
+    // First position holding a value >= key
+    private static int lowerBound(int[] sorted, int key) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * One text attribute: an id per distinct value, the id of every row, and the
+     * rows having each value (the inverted lists), ascending.
+     */
+    private static final class Column {
+        final List<String> values = new ArrayList<>();
+        final int[] ids;
+        final int[][] rows;
+
+        Column(List<Fusion> pool, Function<Fusion, String> attribute) {
+            Map<String, Integer> idOf = new HashMap<>();
+            ids = new int[pool.size()];
+            int[] sizes = new int[16];
+            for (int row = 0; row < pool.size(); row++) {
+                String value = attribute.apply(pool.get(row));
+                Integer id = idOf.get(value);
+                if (id == null) {
+                    id = values.size();
+                    idOf.put(value, id);
+                    values.add(value != null ? value.toLowerCase() : "");
+                    if (id == sizes.length) sizes = Arrays.copyOf(sizes, 2 * id);
+                }
+                ids[row] = id;
+                sizes[id]++;
+            }
+            rows = new int[values.size()][];
+            for (int id = 0; id < rows.length; id++) rows[id] = new int[sizes[id]];
+            int[] fill = new int[values.size()];
+            for (int row = 0; row < ids.length; row++) rows[ids[row]][fill[ids[row]]++] = row;
+        }
+
+        // Which values contain the text, case-insensitively; null when there is no text
+        boolean[] matching(String text) {
+            if (text == null || text.isEmpty()) return null;
+            String q = text.toLowerCase();
+            boolean[] ok = new boolean[values.size()];
+            for (int id = 0; id < ok.length; id++) ok[id] = values.get(id).contains(q);
+            return ok;
+        }
+
+        long count(boolean[] ok) {
+            long count = 0;
+            for (int id = 0; id < ok.length; id++) if (ok[id]) count += rows[id].length;
+            return count;
+        }
+
+        int[] rows(boolean[] ok) {
+            int[] result = new int[(int) count(ok)];
+            int n = 0;
+            for (int id = 0; id < ok.length; id++) {
+                if (!ok[id]) continue;
+                System.arraycopy(rows[id], 0, result, n, rows[id].length);
+                n += rows[id].length;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * "Fusions like this one": the k nearest fusions of a pool by weighted Euclidean
+ * distance over the six base stats, built once per calculation as a KD-tree.
+ *
+ * The tree is implicit: the pool rows are permuted so that every subtree is a
+ * contiguous range split at its median on the axis where the range spreads most,
+ * with small ranges left as buckets. Stat weights only scale distances, so one tree
+ * serves every weighting. A query descends toward the target, keeps the k best in a
+ * small array, and skips any subtree whose splitting plane is further away than the
+ * current k-th best. Ability variants of one head/body pair share their stats, so
+ * only the best-scoring variant of a pair is returned.
+ */
+final class FusionNeighbors {
+    static final int DIMS = 6;
+    static final String[] STAT_NAMES = {"HP", "Atk", "Def", "SpA", "SpD", "Spe"};
+    private static final int BUCKET = 8;
+
+    private final List<Fusion> pool;
+    // [row * DIMS + stat]
+    private final int[] stats;
+    // Rows in tree order; a node covers order[from, to)
+    private final int[] order;
+    // Splitting axis per node, keyed by the node's median position (from + to) >>> 1
+    private final byte[] axis;
+
+    FusionNeighbors(List<Fusion> pool) {
+        this.pool = pool;
+        int n = pool.size();
+        stats = new int[n * DIMS];
+        order = new int[n];
+        for (int row = 0; row < n; row++) {
+            Fusion f = pool.get(row);
+            int b = row * DIMS;
+            stats[b] = f.hp; stats[b + 1] = f.atk; stats[b + 2] = f.def;
+            stats[b + 3] = f.spa; stats[b + 4] = f.spd; stats[b + 5] = f.spe;
+            order[row] = row;
+        }
+        axis = new byte[n];
+        build(0, n);
+    }
+
+    int size() {
+        return pool.size();
+    }
+
+    private void build(int from, int to) {
+        if (to - from <= BUCKET) return;
+        int split = widestAxis(from, to);
+        int mid = (from + to) >>> 1;
+        select(from, to - 1, mid, split);
+        axis[mid] = (byte) split;
+        build(from, mid);
+        build(mid + 1, to);
+    }
+
+    private int widestAxis(int from, int to) {
+        int best = 0, bestSpread = -1;
+        for (int k = 0; k < DIMS; k++) {
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                int v = stats[order[i] * DIMS + k];
+                if (v < min) min = v;
+                if (v > max) max = v;
+            }
+            if (max - min > bestSpread) {
+                bestSpread = max - min;
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    // Quickselect: order[nth] ends up holding the row a sort on the axis would put there
+    private void select(int lo, int hi, int nth, int k) {
+        while (hi > lo) {
+            int pivot = stats[order[(lo + hi) >>> 1] * DIMS + k];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (stats[order[i] * DIMS + k] < pivot) i++;
+                while (stats[order[j] * DIMS + k] > pivot) j--;
+                if (i <= j) {
+                    int t = order[i]; order[i] = order[j]; order[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (nth <= j) hi = j;
+            else if (nth >= i) lo = i;
+            else return;
+        }
+    }
+
+    /**
+     * The k nearest fusions to the target passing the filter, nearest first. The
+     * target itself and other variants of its head/body pair are never returned.
+     * {@code weights} scales each stat's squared difference (HP, Atk, Def, SpA, SpD, Spe).
+     */
+    List<Match> nearest(Fusion target, int k, double[] weights, Predicate<Fusion> filter) {
+        Search s = new Search(target, k, weights, filter);
+        if (k > 0 && !pool.isEmpty()) s.visit(0, pool.size());
+        List<Match> matches = new ArrayList<>(s.count);
+        for (int i = 0; i < s.count; i++) matches.add(new Match(pool.get(s.rows[i]), Math.sqrt(s.dist[i])));
+        matches.sort(Comparator.comparingDouble((Match m) -> m.distance).thenComparing(m -> -m.fusion.score));
+        return matches;
+    }
+
+    private final class Search {
+        final double[] q = new double[DIMS];
+        final double[] w;
+        final Predicate<Fusion> filter;
+        final String targetPair;
+        final int k;
+        // Current best rows and their squared distances, unordered
+        final int[] rows;
+        final double[] dist;
+        int count;
+        // Squared distance of the worst kept row once k are kept
+        double worst = Double.MAX_VALUE;
+
+        Search(Fusion target, int k, double[] weights, Predicate<Fusion> filter) {
+            q[0] = target.hp; q[1] = target.atk; q[2] = target.def;
+            q[3] = target.spa; q[4] = target.spd; q[5] = target.spe;
+            this.w = weights;
+            this.filter = filter;
+            this.targetPair = pair(target);
+            this.k = k;
+            rows = new int[k];
+            dist = new double[k];
+        }
+
+        void visit(int from, int to) {
+            if (to - from <= BUCKET) {
+                for (int i = from; i < to; i++) offer(order[i]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            int a = axis[mid];
+            double diff = q[a] - stats[order[mid] * DIMS + a];
+            // Nearer side first, the other only if its plane is within reach
+            if (diff < 0) {
+                visit(from, mid);
+                offer(order[mid]);
+                if (w[a] * diff * diff <= worst) visit(mid + 1, to);
+            } else {
+                visit(mid + 1, to);
+                offer(order[mid]);
+                if (w[a] * diff * diff <= worst) visit(from, mid);
+            }
+        }
+
+        private void offer(int row) {
+            double d = 0;
+            int b = row * DIMS;
+            for (int i = 0; i < DIMS; i++) {
+                double diff = q[i] - stats[b + i];
+                d += w[i] * diff * diff;
+            }
+            if (d > worst) return;
+            Fusion f = pool.get(row);
+            String pair = pair(f);
+            if (pair.equals(targetPair) || (filter != null && !filter.test(f))) return;
+
+            // One variant per pair: an equal-stat variant only replaces a lower-scoring one
+            for (int i = 0; i < count; i++) {
+                if (pair.equals(pair(pool.get(rows[i])))) {
+                    if (d < dist[i] || (d == dist[i] && f.score > pool.get(rows[i]).score)) {
+                        rows[i] = row;
+                        dist[i] = d;
+                        updateWorst();
+                    }
+                    return;
+                }
+            }
+            if (count < k) {
+                rows[count] = row;
+                dist[count++] = d;
+                if (count == k) updateWorst();
+            } else {
+                int at = 0;
+                for (int i = 1; i < count; i++) if (dist[i] > dist[at]) at = i;
+                if (d >= dist[at]) return;
+                rows[at] = row;
+                dist[at] = d;
+                updateWorst();
+            }
+        }
+
+        private void updateWorst() {
+            if (count < k) return;
+            double max = 0;
+            for (int i = 0; i < count; i++) max = Math.max(max, dist[i]);
+            worst = max;
+        }
+    }
+
+    private static String pair(Fusion f) {
+        return f.headName + "/" + f.bodyName;
+    }
+
+    static final class Match {
+        final Fusion fusion;
+        final double distance;
+
+        Match(Fusion fusion, double distance) {
+            this.fusion = fusion;
+            this.distance = distance;
+        }
+    }
+}
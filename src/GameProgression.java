@@ -0,0 +1,122 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * The game's checkpoints in the order a player reaches them, each with the locations
+ * it opens up (progression.csv: Checkpoint, Locations). A species is available from the
+ * first checkpoint at which one of its Pokédex locations is open; one obtained by
+ * evolving is available once what it evolves from is. Locations missing from the file
+ * count as open only at the last checkpoint.
+ */
+public class GameProgression {
+    private final List<String> checkpoints = new ArrayList<>();
+    // Checkpoint index per location name, lower-case
+    private final Map<String, Integer> locationCheckpoint = new HashMap<>();
+
+    public GameProgression(String filename) {
+        loadFromFile(filename);
+    }
+
+    private void loadFromFile(String filename) {
+        File file = new File(filename);
+        if (!file.exists()) {
+            System.err.println("Progression file not found: " + filename);
+            return;
+        }
+
+        try (Scanner s = new Scanner(file, "UTF-8")) {
+            if (s.hasNextLine()) s.nextLine(); // Header
+            while (s.hasNextLine()) {
+                String line = s.nextLine().trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] p = CSVUtils.parseLine(line);
+                if (p.length < 1 || p[0].trim().isEmpty()) continue;
+
+                int index = checkpoints.size();
+                checkpoints.add(p[0].trim());
+                if (p.length > 1) {
+                    for (String location : parseLocations(p[1])) {
+                        locationCheckpoint.putIfAbsent(location.toLowerCase(), index);
+                    }
+                }
+            }
+            System.out.println("✓ Loaded " + checkpoints.size() + " game checkpoints (" + locationCheckpoint.size() + " locations)");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public List<String> getCheckpoints() {
+        return Collections.unmodifiableList(checkpoints);
+    }
+
+    public int size() {
+        return checkpoints.size();
+    }
+
+    /**
+     * The first checkpoint at which the species can be had, or -1 when the Pokédex
+     * lists nowhere to get it.
+     */
+    public int firstCheckpoint(String species, PokedexDatabase dex) {
+        return firstCheckpoint(species, dex, new HashSet<>());
+    }
+
+    private int firstCheckpoint(String species, PokedexDatabase dex, Set<String> visiting) {
+        if (checkpoints.isEmpty() || !visiting.add(species.toLowerCase())) return -1;
+        PokedexDatabase.PokedexInfo info = dex.getInfo(species);
+        if (info == null || info.locations == null || info.locations.isEmpty()) return -1;
+
+        int first = -1;
+        for (String location : parseLocations(info.locations)) {
+            int at;
+            if (location.startsWith("Evolve ")) {
+                at = firstCheckpoint(location.substring("Evolve ".length()).trim(), dex, visiting);
+            } else {
+                at = locationCheckpoint.getOrDefault(location.toLowerCase(), checkpoints.size() - 1);
+            }
+            if (at >= 0 && (first < 0 || at < first)) first = at;
+        }
+        return first;
+    }
+
+    /**
+     * The species available at each checkpoint, one bit per index into {@code species}.
+     * Every set contains the one before it.
+     */
+    public List<BitSet> availability(List<Pokemon> species, PokedexDatabase dex) {
+        List<BitSet> open = new ArrayList<>();
+        for (int i = 0; i < checkpoints.size(); i++) open.add(new BitSet(species.size()));
+        int unknown = 0;
+        for (int i = 0; i < species.size(); i++) {
+            int first = firstCheckpoint(species.get(i).name, dex);
+            if (first < 0) {
+                unknown++;
+                continue;
+            }
+            for (int k = first; k < open.size(); k++) open.get(k).set(i);
+        }
+        if (unknown > 0) System.out.println("Progression: " + unknown + " species have no known location and are left out");
+        return open;
+    }
+
+    /**
+     * Location names of a Pokédex locations string, with the "(gift)"-style notes
+     * dropped. Bare continuations such as the "12" in "Route 4, 12" or the "A2" in
+     * "Safari Zone A1, A2" get the prefix of the entry before them.
+     */
+    static List<String> parseLocations(String locations) {
+        List<String> names = new ArrayList<>();
+        String previous = "";
+        for (String token : locations.split(",\\s*(?![^()]*\\))")) {
+            String name = token.replaceAll("\\s*\\(.*", "").trim();
+            if (name.isEmpty()) continue;
+            if (name.matches("[A-Z]?\\d+") && previous.contains(" ")) {
+                name = previous.substring(0, previous.lastIndexOf(' ') + 1) + name;
+            }
+            names.add(name);
+            previous = name;
+        }
+        return names;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Large-neighborhood search: seed with a narrow beam, then repeatedly free two or
+ * three slots of the incumbent and refill them with an exact (bounded) search over
+ * the whole pool. Every neighborhood of the current incumbent is tried in parallel;
+ * the search ends when a full sweep finds nothing better, or when the context stops.
+ */
+class LargeNeighborhoodStrategy implements TeamSearchStrategy {
+    // Each refill is exact unless it expands more nodes than this
+    private static final long REFILL_NODE_LIMIT = 50_000;
+    private static final int SEED_WIDTH_LIMIT = 32;
+
+    private final int seedWidth;
+
+    LargeNeighborhoodStrategy(int seedWidth) {
+        this.seedWidth = Math.max(1, Math.min(seedWidth, SEED_WIDTH_LIMIT));
+    }
+
+    @Override
+    public String getName() {
+        return "Large Neighborhood Search";
+    }
+
+    @Override
+    public boolean search(TeamSearchContext ctx, BiConsumer<Integer, Integer> progressCallback) {
+        new BeamSearchStrategy(seedWidth).beam(ctx, ctx.pinned, ctx.slots(), null);
+        ctx.abandon(ctx.rootCeiling());
+        if (ctx.bestTeam() == null) return false;
+
+        AtomicInteger sweeps = new AtomicInteger();
+        while (!ctx.shouldStop()) {
+            Team current = ctx.bestTeam();
+            List<Fusion> free = new ArrayList<>(current.members);
+            free.removeAll(ctx.pinned);
+
+            List<int[]> neighborhoods = new ArrayList<>();
+            for (int size = 2; size <= Math.min(3, free.size()); size++) {
+                collectSubsets(free.size(), size, 0, new int[size], 0, neighborhoods);
+            }
+            if (neighborhoods.isEmpty()) break;
+
+            AtomicBoolean improved = new AtomicBoolean(false);
+            List<ForkJoinTask<?>> refills = new ArrayList<>();
+            for (int[] dropped : neighborhoods) {
+                refills.add(ForkJoinTask.adapt(() -> {
+                    List<Fusion> kept = new ArrayList<>(ctx.pinned);
+                    for (int i = 0; i < free.size(); i++) {
+                        if (Arrays.binarySearch(dropped, i) < 0) kept.add(free.get(i));
+                    }
+                    if (refill(ctx, kept, dropped.length)) improved.set(true);
+                }));
+            }
+            try {
+                TeamBuilder.SEARCH_POOL.submit(() -> ForkJoinTask.invokeAll(refills)).get();
+            } catch (Exception e) {
+                e.printStackTrace();
+                break;
+            }
+
+            if (progressCallback != null) progressCallback.accept(sweeps.incrementAndGet(), 0);
+            if (!improved.get()) break;
+        }
+        return false;
+    }
+
+    private static void collectSubsets(int n, int size, int from, int[] current, int depth, List<int[]> out) {
+        if (depth == size) {
+            out.add(current.clone());
+            return;
+        }
+        for (int i = from; i < n; i++) {
+            current[depth] = i;
+            collectSubsets(n, size, i + 1, current, depth + 1, out);
+        }
+    }
+
+    /**
+     * Exact branch and bound over the pool for the open slots, pruned against the
+     * shared incumbent. Returns true if it published a better team.
+     */
+    private boolean refill(TeamSearchContext ctx, List<Fusion> kept, int open) {
+        double base = 0;
+        for (Fusion f : kept) base += f.score;
+        double before = ctx.bestScore();
+        long[] budget = {REFILL_NODE_LIMIT};
+        fill(ctx, new ArrayList<>(kept), base, -1, open, budget);
+        return ctx.bestScore() > before;
+    }
+
+    private void fill(TeamSearchContext ctx, List<Fusion> team, double base, int lastIndex, int open, long[] budget) {
+        if (open == 0) {
+            ctx.offer(base, team, TeamBuilder.calculateDelta(team, ctx.config));
+            return;
+        }
+        if (--budget[0] < 0 || ctx.shouldStop()) return;
+        if (TeamBuilder.canPrune(ctx, base, team, lastIndex, open)) return;
+
+        List<Fusion> pool = ctx.pool;
+        double slack = TeamBuilder.maxRemainingDelta(team, open, ctx.config);
+        for (int i = lastIndex + 1; i < pool.size(); i++) {
+            Fusion candidate = pool.get(i);
+            // Pool is sorted, so once this candidate filling every open slot cannot win, nothing later can
+            if (base + open * candidate.score + slack <= ctx.bestScore()) break;
+            if (team.contains(candidate) || !TeamBuilder.isValidAddition(team, candidate, ctx.config)) continue;
+
+            team.add(candidate);
+            fill(ctx, team, base + candidate.score, i, open - 1, budget);
+            team.remove(team.size() - 1);
+            if (budget[0] < 0) return;
+        }
+    }
+}
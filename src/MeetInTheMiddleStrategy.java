@@ -0,0 +1,346 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+
+/**
+ * Exact meet-in-the-middle search. Every team is the pins plus two halves of the open
+ * slots. Halves are enumerated once and bucketed by the aggregate counts that drive
+ * calculateDelta apart from species: role set, per-type counts, per-type weakness
+ * counts and self-fusion count. For two buckets the role bonus, type, defensive and
+ * self-fusion penalties of any join are then
+ * known exactly, and species duplicates are bounded from below by what each half adds
+ * to the pins on its own. Bucket pairs are joined best-first and cut off against the
+ * incumbent, so only a small fraction of the half pairs is ever looked at.
+ */
+class MeetInTheMiddleStrategy implements TeamSearchStrategy {
+    // Three bits per type lane; counts never exceed 6 in a team
+    private static final int LANE_BITS = 3;
+    private static final long LANE_LOW = lanes(1);
+    private static final int SEED_WIDTH = 32;
+
+    @Override
+    public String getName() {
+        return "Meet in the Middle (exact)";
+    }
+
+    @Override
+    public boolean search(TeamSearchContext ctx, BiConsumer<Integer, Integer> progressCallback) {
+        int slots = ctx.slots();
+        // A strong incumbent up front is what keeps both the enumeration and the join small
+        new BeamSearchStrategy(SEED_WIDTH).beam(ctx, ctx.pinned, slots, null);
+        if (ctx.shouldStop()) {
+            ctx.abandon(ctx.rootCeiling());
+            return false;
+        }
+
+        Encoder enc = new Encoder(ctx);
+        int sizeA = (slots + 1) / 2;
+        int sizeB = slots - sizeA;
+
+        double[] topSums = new double[slots + 1];
+        for (int i = 1; i <= slots && i <= ctx.pool.size(); i++) topSums[i] = topSums[i - 1] + ctx.pool.get(i - 1).score;
+        if (ctx.pool.size() < slots) return true;
+
+        List<Bucket> bucketsA = enumerate(ctx, enc, sizeA, topSums[sizeB]);
+        List<Bucket> bucketsB = sizeB == sizeA ? bucketsA : enumerate(ctx, enc, sizeB, topSums[sizeA]);
+        System.out.println("MITM halves: " + countHalves(bucketsA) + " in " + bucketsA.size() + " buckets"
+            + (bucketsB == bucketsA ? "" : ", " + countHalves(bucketsB) + " in " + bucketsB.size() + " buckets"));
+
+        List<ForkJoinTask<?>> joins = new ArrayList<>();
+        for (Bucket a : bucketsA) {
+            joins.add(ForkJoinTask.adapt(() -> joinBucket(ctx, enc, a, bucketsB, bucketsB == bucketsA)));
+        }
+        try {
+            TeamBuilder.SEARCH_POOL.submit(() -> ForkJoinTask.invokeAll(joins)).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        if (progressCallback != null) progressCallback.accept(1, 1);
+
+        if (ctx.stopped) {
+            ctx.abandon(ctx.rootCeiling());
+            return false;
+        }
+        return true;
+    }
+
+    private void joinBucket(TeamSearchContext ctx, Encoder enc, Bucket a, List<Bucket> bucketsB, boolean symmetric) {
+        for (Bucket b : bucketsB) {
+            if (ctx.shouldStop()) return;
+            // Buckets are sorted by their best half, so the diversity cap ends the scan
+            if (enc.constant + a.best() + b.best() + enc.maxBonus <= ctx.bestScore()) break;
+            if (enc.typeHard && overCap(enc.pinnedTypes + a.types + b.types)) continue;
+            if (enc.defensiveHard && overCap(enc.pinnedWeak + a.weak + b.weak)) continue;
+
+            double signatureDelta = enc.signatureDelta(a, b);
+            if (enc.constant + a.best() + b.best() + signatureDelta <= ctx.bestScore()) continue;
+
+            for (Half x : a.halves) {
+                if (enc.constant + x.value + b.best() + signatureDelta <= ctx.bestScore()) break;
+                for (Half y : b.halves) {
+                    if (enc.constant + x.value + y.value + signatureDelta <= ctx.bestScore()) break;
+                    // Same half size on both sides: every pair shows up twice, take it once
+                    if (symmetric && x.picks[0] >= y.picks[0]) continue;
+                    if (x.overlaps(y) || (enc.speciesHard && x.sharesSpecies(y))) continue;
+
+                    List<Fusion> team = new ArrayList<>(ctx.pinned);
+                    for (int idx : x.picks) team.add(ctx.pool.get(idx));
+                    for (int idx : y.picks) team.add(ctx.pool.get(idx));
+                    ctx.offer(ctx.pinnedBase + x.base + y.base, team, TeamBuilder.calculateDelta(team, ctx.config));
+                }
+            }
+        }
+    }
+
+    /**
+     * All valid halves of the given size that could still be part of a better team,
+     * given that the other half scores at most {@code otherTop}.
+     */
+    private List<Bucket> enumerate(TeamSearchContext ctx, Encoder enc, int size, double otherTop) {
+        Map<Signature, Bucket> buckets = new HashMap<>();
+        if (size > 0) {
+            collect(ctx, enc, size, new int[size], 0, -1, 0.0, new ArrayList<>(ctx.pinned), otherTop, buckets);
+        } else {
+            Half empty = enc.half(new int[0], 0.0);
+            buckets.computeIfAbsent(empty.signature, k -> new Bucket(k)).halves.add(empty);
+        }
+        List<Bucket> sorted = new ArrayList<>(buckets.values());
+        for (Bucket b : sorted) b.halves.sort((x, y) -> Double.compare(y.value, x.value));
+        sorted.sort((x, y) -> Double.compare(y.best(), x.best()));
+        return sorted;
+    }
+
+    private void collect(TeamSearchContext ctx, Encoder enc, int size, int[] picks, int depth, int lastIndex,
+                         double base, List<Fusion> team, double otherTop, Map<Signature, Bucket> buckets) {
+        if (depth == size) {
+            Half h = enc.half(picks.clone(), base);
+            buckets.computeIfAbsent(h.signature, k -> new Bucket(k)).halves.add(h);
+            return;
+        }
+        if (ctx.shouldStop()) return;
+        List<Fusion> pool = ctx.pool;
+        int open = size - depth;
+        for (int i = lastIndex + 1; i <= pool.size() - open; i++) {
+            Fusion candidate = pool.get(i);
+            // Sorted pool: if this candidate in every open slot cannot win, neither can anything later
+            if (enc.constant + base + open * candidate.score + otherTop + enc.maxBonus <= ctx.bestScore()) break;
+            if (!TeamBuilder.isValidAddition(team, candidate, ctx.config)) continue;
+
+            picks[depth] = i;
+            team.add(candidate);
+            collect(ctx, enc, size, picks, depth + 1, i, base + candidate.score, team, otherTop, buckets);
+            team.remove(team.size() - 1);
+        }
+    }
+
+    private static long countHalves(List<Bucket> buckets) {
+        long n = 0;
+        for (Bucket b : buckets) n += b.halves.size();
+        return n;
+    }
+
+    private static long lanes(long value) {
+        long packed = 0;
+        for (int t = 0; t < 18; t++) packed |= value << (t * LANE_BITS);
+        return packed;
+    }
+
+    // True when any lane holds 3 or more
+    private static boolean overCap(long packedTypes) {
+        long lo = packedTypes & LANE_LOW;
+        long mid = (packedTypes >>> 1) & LANE_LOW;
+        long hi = (packedTypes >>> 2) & LANE_LOW;
+        return (hi | (mid & lo)) != 0;
+    }
+
+    /**
+     * Maps species, types and roles to small ids and takes the clause weights from
+     * TeamScorer, so the signature arithmetic matches it term for term.
+     */
+    private static final class Encoder {
+        final TeamSearchContext ctx;
+        final Map<String, Integer> speciesIds = new HashMap<>();
+        final Map<String, Integer> typeIds = new HashMap<>();
+        final Map<String, Integer> roleIds = new HashMap<>();
+        final double speciesWeight, typeWeight, selfWeight, defensiveWeight;
+        final boolean speciesHard, typeHard, defensiveHard;
+        final long pinnedTypes, pinnedWeak;
+        final int pinnedRoles, pinnedSelf;
+        final Set<Integer> pinnedSpecies = new HashSet<>();
+        final int pinnedDupes;
+        // Pinned base minus the species penalty the pins already pay
+        final double constant;
+        final double maxBonus = TeamScorer.MAX_BONUS;
+
+        Encoder(TeamSearchContext ctx) {
+            this.ctx = ctx;
+            TeamBuildConfig config = ctx.config;
+            TeamScorer scorer = new TeamScorer(config);
+            speciesWeight = scorer.speciesWeight();
+            typeWeight = scorer.typeWeight();
+            selfWeight = scorer.selfWeight();
+            defensiveWeight = scorer.defensiveWeight();
+            speciesHard = config.speciesClauseVal == 100;
+            typeHard = config.typeClauseVal == 100;
+            defensiveHard = config.defensiveClauseVal == 100;
+
+            long types = 0, weak = 0;
+            int roles = 0, self = 0, dupes = 0;
+            for (Fusion f : ctx.pinned) {
+                types += typeLanes(f);
+                weak += weakLanes(f);
+                roles |= 1 << roleId(f.role);
+                if (f.headName.equalsIgnoreCase(f.bodyName)) self++;
+                if (!pinnedSpecies.add(speciesId(f.headName))) dupes++;
+                if (!pinnedSpecies.add(speciesId(f.bodyName))) dupes++;
+            }
+            pinnedTypes = types;
+            pinnedWeak = weak;
+            pinnedRoles = roles;
+            pinnedSelf = self;
+            pinnedDupes = dupes;
+            constant = ctx.pinnedBase - speciesWeight * dupes;
+        }
+
+        int speciesId(String name) {
+            return speciesIds.computeIfAbsent(name.toLowerCase(), k -> speciesIds.size());
+        }
+
+        int roleId(String role) {
+            return roleIds.computeIfAbsent(role, k -> roleIds.size());
+        }
+
+        long typeLanes(Fusion f) {
+            long packed = 0;
+            for (String t : f.typing.split("/")) {
+                int id = typeIds.computeIfAbsent(t, k -> typeIds.size());
+                packed += 1L << (id * LANE_BITS);
+            }
+            return packed;
+        }
+
+        // Weakness counts only split buckets when the defensive clause is on
+        long weakLanes(Fusion f) {
+            if (defensiveWeight == 0) return 0L;
+            long packed = 0;
+            for (long m = f.weaknessMask; m != 0; m &= m - 1) {
+                packed += 1L << (Long.numberOfTrailingZeros(m) * LANE_BITS);
+            }
+            return packed;
+        }
+
+        Half half(int[] picks, double base) {
+            long types = 0, weak = 0;
+            int roles = 0, self = 0, dupes = 0;
+            int[] species = new int[picks.length * 2];
+            Set<Integer> seen = new HashSet<>(pinnedSpecies);
+            for (int i = 0; i < picks.length; i++) {
+                Fusion f = ctx.pool.get(picks[i]);
+                types += typeLanes(f);
+                weak += weakLanes(f);
+                roles |= 1 << roleId(f.role);
+                if (f.headName.equalsIgnoreCase(f.bodyName)) self++;
+                species[2 * i] = speciesId(f.headName);
+                species[2 * i + 1] = speciesId(f.bodyName);
+                if (!seen.add(species[2 * i])) dupes++;
+                if (!seen.add(species[2 * i + 1])) dupes++;
+            }
+            Arrays.sort(species);
+            // Duplicates this half adds to the pins; joins can only add more
+            return new Half(picks, base, base - speciesWeight * dupes, new Signature(types, weak, roles, self), species);
+        }
+
+        /**
+         * Exact delta of any join of the two buckets, except that species duplicates
+         * between the halves are not charged (they only lower the real score).
+         */
+        double signatureDelta(Bucket a, Bucket b) {
+            int roles = Integer.bitCount(pinnedRoles | a.roles | b.roles);
+            double delta = TeamScorer.roleBonus(roles);
+            if (typeWeight > 0) delta -= excessOverTwo(pinnedTypes + a.types + b.types) * typeWeight;
+            if (defensiveWeight > 0) delta -= excessOverTwo(pinnedWeak + a.weak + b.weak) * defensiveWeight;
+            delta -= (pinnedSelf + a.self + b.self) * selfWeight;
+            return delta;
+        }
+
+        private int excessOverTwo(long counts) {
+            int excess = 0;
+            for (int t = 0; t < 18; t++) {
+                int c = (int) ((counts >>> (t * LANE_BITS)) & 7);
+                if (c > 2) excess += c - 2;
+            }
+            return excess;
+        }
+    }
+
+    private static final class Half {
+        final int[] picks;
+        final double base;
+        // Base minus the species penalty this half is guaranteed to cause
+        final double value;
+        final Signature signature;
+        final int[] species;
+
+        Half(int[] picks, double base, double value, Signature signature, int[] species) {
+            this.picks = picks;
+            this.base = base;
+            this.value = value;
+            this.signature = signature;
+            this.species = species;
+        }
+
+        boolean overlaps(Half o) {
+            for (int p : picks) for (int q : o.picks) if (p == q) return true;
+            return false;
+        }
+
+        boolean sharesSpecies(Half o) {
+            int i = 0, j = 0;
+            while (i < species.length && j < o.species.length) {
+                if (species[i] == o.species[j]) return true;
+                if (species[i] < o.species[j]) i++; else j++;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Everything about a half that calculateDelta cares about except species; type and
+     * weakness counts are packed three bits per type.
+     */
+    private static class Signature {
+        final long types, weak;
+        final int roles, self;
+
+        Signature(long types, long weak, int roles, int self) {
+            this.types = types;
+            this.weak = weak;
+            this.roles = roles;
+            this.self = self;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Signature)) return false;
+            Signature s = (Signature) o;
+            return types == s.types && weak == s.weak && roles == s.roles && self == s.self;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(types * 31 + weak) * 31 + roles * 8 + self;
+        }
+    }
+
+    private static final class Bucket extends Signature {
+        final List<Half> halves = new ArrayList<>();
+
+        Bucket(Signature s) {
+            super(s.types, s.weak, s.roles, s.self);
+        }
+
+        double best() {
+            return halves.get(0).value;
+        }
+    }
+}
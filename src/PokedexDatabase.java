@@ -15,7 +15,7 @@ public class PokedexDatabase {
             return;
         }
         
-        try (Scanner s = new Scanner(file)) {
+        try (Scanner s = new Scanner(file, "UTF-8")) {
             // Skip header if it exists
             if (s.hasNextLine()) {
                 String head = s.nextLine();
@@ -0,0 +1,117 @@
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * The best team at every game checkpoint, in one run. The species on offer only grow
+ * from one checkpoint to the next, so the previous checkpoint's team is still
+ * available at the next one and its score is a floor there: each search only looks
+ * for teams that beat it, and a checkpoint that adds no species is not searched at
+ * all. Fusions come from the pair cache, so a pair is calculated once for the whole
+ * run (and for later runs with the same weights).
+ */
+class ProgressionSearch {
+    // Smallest time slice a checkpoint gets when there is a time budget
+    private static final long MIN_SLICE_MS = 200;
+    private static final double EPS = 1e-9;
+
+    private final TeamBuilder builder;
+    private final RosterOptimizer.PairCache pairs;
+    private final List<Pokemon> species;
+    private final List<String> checkpoints;
+    private final List<BitSet> availability;
+    private final TeamBuildConfig config;
+    private final TaskController task;
+    private final long startNanos;
+
+    ProgressionSearch(TeamBuilder builder, RosterOptimizer.PairCache pairs, List<Pokemon> species, List<String> checkpoints,
+                      List<BitSet> availability, TeamBuildConfig config, TaskController task, long startNanos) {
+        this.builder = builder;
+        this.pairs = pairs;
+        this.species = species;
+        this.checkpoints = checkpoints;
+        this.availability = availability;
+        // One short search per checkpoint: no checkpoint files, and no worker processes per search
+        TeamBuildConfig sub = config.withCheckpoint(null);
+        if (sub.strategy == TeamBuildConfig.Strategy.DISTRIBUTED) sub = sub.withStrategy(TeamBuildConfig.Strategy.AUTO, sub.beamWidth);
+        this.config = sub;
+        this.task = task;
+        this.startNanos = startNanos;
+    }
+
+    List<Stage> search(BiConsumer<Integer, Integer> progress) {
+        List<Stage> stages = new ArrayList<>();
+        Stage previous = null;
+        BitSet seen = new BitSet();
+        for (int k = 0; k < checkpoints.size() && !task.isCancelled(); k++) {
+            BitSet open = availability.get(k);
+            int added = open.cardinality() - seen.cardinality();
+            if (previous != null && added == 0) {
+                stages.add(new Stage(checkpoints.get(k), open.cardinality(), 0, previous.poolSize, previous.team,
+                                     previous.upperBound, previous.complete));
+                progress.accept(k + 1, checkpoints.size());
+                continue;
+            }
+
+            List<Fusion> pool = builder.candidatePool(fusions(open), config);
+            double floor = previous != null && previous.team != null ? previous.team.realScore + EPS : -Double.MAX_VALUE;
+            TeamSearchResult r = builder.searchPrepared(pool, slice(checkpoints.size() - k), task, floor);
+
+            Stage stage;
+            if (!r.teams.isEmpty()) {
+                stage = new Stage(checkpoints.get(k), open.cardinality(), added, pool.size(), r.teams.get(0), r.upperBound, r.complete);
+            } else {
+                // Nothing beats the earlier team, which is still on offer (proven so when the search finished)
+                Team kept = previous != null ? previous.team : null;
+                double bound = kept != null ? Math.max(kept.realScore, r.upperBound) : r.upperBound;
+                stage = new Stage(checkpoints.get(k), open.cardinality(), added, pool.size(), kept, bound, r.complete);
+            }
+            System.out.println("Checkpoint " + stage.checkpoint + ": " + stage.species + " species, " + pool.size()
+                + " candidates, best " + (stage.team != null ? String.format("%.3f", stage.team.realScore) : "none")
+                + (stage.complete ? "" : " (not proven)"));
+            stages.add(stage);
+            previous = stage;
+            seen = open;
+            progress.accept(k + 1, checkpoints.size());
+        }
+        return stages;
+    }
+
+    // Every fusion variant of the open species, heads and bodies alike
+    private List<Fusion> fusions(BitSet open) {
+        List<Fusion> fusions = new ArrayList<>();
+        for (int h = open.nextSetBit(0); h >= 0; h = open.nextSetBit(h + 1)) {
+            for (int b = open.nextSetBit(0); b >= 0; b = open.nextSetBit(b + 1)) {
+                fusions.addAll(pairs.variants(species.get(h), species.get(b)));
+            }
+        }
+        return fusions;
+    }
+
+    // What is left of the time budget, shared with the checkpoints still to come
+    private TeamBuildConfig slice(int remaining) {
+        if (config.timeBudgetMs <= 0) return config;
+        long left = config.timeBudgetMs - (System.nanoTime() - startNanos) / 1_000_000;
+        return config.withTimeBudget(Math.max(1, Math.min(left, Math.max(MIN_SLICE_MS, left / Math.max(1, remaining)))));
+    }
+
+    /**
+     * The best team at one checkpoint, null when its species give no valid team yet.
+     */
+    static final class Stage {
+        final String checkpoint;
+        final int species, newSpecies, poolSize;
+        final Team team;
+        final double upperBound;
+        final boolean complete;
+
+        Stage(String checkpoint, int species, int newSpecies, int poolSize, Team team, double upperBound, boolean complete) {
+            this.checkpoint = checkpoint;
+            this.species = species;
+            this.newSpecies = newSpecies;
+            this.poolSize = poolSize;
+            this.team = team;
+            this.upperBound = upperBound;
+            this.complete = complete;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Picks which {@code rosterSize} species to catch so that the best team over their
+ * fusions scores as high as possible. A roster is evaluated the way the user would:
+ * its fusions are calculated and the team builder searches them. Fusions come from a
+ * pair cache, so each head/body pair is calculated once however many rosters share it.
+ *
+ * The search is a local search over rosters. A greedy pass seeds it, then one species
+ * at a time is swapped for one outside the roster. A roster's best team is at most
+ * its six best fusions plus the full role bonus, which only needs the cached
+ * variants of each pair; a swap whose bound cannot beat the current roster is never
+ * searched. The rest are searched most promising first, each with the current score
+ * as floor, so a search that cannot improve on it ends early. When no swap improves
+ * and time is left, a few species of the best roster are replaced at random and the
+ * descent starts again. Without a time budget the first local optimum is returned.
+ * Each roster's team search is capped at {@link #EVAL_LIMIT_MS}, with or without a
+ * budget, so a roster whose search runs out counts with the best team found in time.
+ */
+class RosterOptimizer {
+    // Greedy seeding only considers this many candidates, the strongest self fusions first
+    private static final int GREEDY_CANDIDATES = 96;
+    // Rosters searched per local search step, best surrogate first
+    private static final int NEIGHBORS_PER_STEP = 24;
+    // Longest a single roster's team search may take, also when the run has no time budget
+    private static final long EVAL_LIMIT_MS = 1500;
+    // Species replaced at random when a descent is stuck
+    private static final int KICK_SIZE = 2;
+    private static final double EPS = 1e-9;
+
+    private final TeamBuilder builder;
+    private final PairCache pairs;
+    private final TeamBuildConfig config;
+    private final List<Pokemon> candidates;
+    private final int rosterSize;
+    private final boolean selfBanned, speciesBanned;
+    private final TaskController task;
+    private final long startNanos;
+    private final SplittableRandom rnd = new SplittableRandom(1);
+
+    // Best score of every roster searched to the end, or the floor it was proven not to beat
+    private final Map<BitSet, Double> searched = new HashMap<>();
+    private int evaluated, pruned;
+
+    private BitSet bestRoster;
+    private Team bestTeam;
+
+    RosterOptimizer(TeamBuilder builder, PairCache pairs, List<Pokemon> candidates, int rosterSize,
+                    TeamBuildConfig config, TaskController task, long startNanos) {
+        this.builder = builder;
+        this.pairs = pairs;
+        this.candidates = candidates;
+        this.rosterSize = Math.max(1, Math.min(rosterSize, candidates.size()));
+        // Many short searches: no checkpoints, and no worker processes per search
+        TeamBuildConfig sub = config.withCheckpoint(null);
+        if (sub.strategy == TeamBuildConfig.Strategy.DISTRIBUTED) sub = sub.withStrategy(TeamBuildConfig.Strategy.AUTO, sub.beamWidth);
+        this.config = sub;
+        this.selfBanned = config.selfFusionClauseVal == 100;
+        this.speciesBanned = config.speciesClauseVal == 100;
+        this.task = task;
+        this.startNanos = startNanos;
+    }
+
+    Result optimize(BiConsumer<Integer, Integer> progress) {
+        int n = candidates.size();
+        Integer[] ranked = new Integer[n];
+        for (int i = 0; i < n; i++) ranked[i] = i;
+        // A species' self fusion is a fair first guess at how much it brings
+        double[] strength = new double[n];
+        for (int i = 0; i < n; i++) strength[i] = best(i, i);
+        Arrays.sort(ranked, (a, b) -> Double.compare(strength[b], strength[a]));
+
+        BitSet current = greedy(ranked);
+        Team team = evaluate(current, -Double.MAX_VALUE, progress);
+        double score = team != null ? team.realScore : -Double.MAX_VALUE;
+        offer(current, team);
+
+        while (!shouldStop()) {
+            Neighbor next = improve(current, score, progress);
+            if (next != null) {
+                current = next.roster;
+                score = next.team.realScore;
+                continue;
+            }
+            // A local optimum: without a budget that is the answer, otherwise shake the best roster
+            if (config.timeBudgetMs <= 0 || bestRoster == null || rosterSize >= n) break;
+            current = kick(bestRoster, ranked);
+            Team kicked = evaluate(current, -Double.MAX_VALUE, progress);
+            score = kicked != null ? kicked.realScore : -Double.MAX_VALUE;
+            offer(current, kicked);
+        }
+
+        List<Pokemon> roster = new ArrayList<>();
+        BitSet chosen = bestRoster != null ? bestRoster : current;
+        for (int i = chosen.nextSetBit(0); i >= 0; i = chosen.nextSetBit(i + 1)) roster.add(candidates.get(i));
+        return new Result(roster, fusions(chosen), bestTeam, evaluated, pruned, pairs.size(), searched.size());
+    }
+
+    /**
+     * Builds a roster one species at a time, each time adding the candidate that most
+     * raises the surrogate score.
+     */
+    private BitSet greedy(Integer[] ranked) {
+        BitSet roster = new BitSet(candidates.size());
+        roster.set(ranked[0]);
+        int width = Math.min(ranked.length, Math.max(GREEDY_CANDIDATES, 2 * rosterSize));
+        while (roster.cardinality() < rosterSize && !task.isCancelled()) {
+            int pick = -1;
+            double pickScore = -Double.MAX_VALUE;
+            for (int r = 0; r < width; r++) {
+                int c = ranked[r];
+                if (roster.get(c)) continue;
+                roster.set(c);
+                double s = surrogate(roster);
+                roster.clear(c);
+                if (s > pickScore) {
+                    pickScore = s;
+                    pick = c;
+                }
+            }
+            if (pick < 0) break;
+            roster.set(pick);
+        }
+        return roster;
+    }
+
+    /**
+     * One local search step: the roster with one species swapped that scores above
+     * {@code score}, with its team, or null when none of the swaps tried does.
+     */
+    private Neighbor improve(BitSet roster, double score, BiConsumer<Integer, Integer> progress) {
+        int[] members = roster.stream().toArray();
+        List<Neighbor> neighbors = new ArrayList<>();
+        for (int out : members) {
+            for (int in = 0; in < candidates.size(); in++) {
+                if (roster.get(in)) continue;
+                BitSet next = (BitSet) roster.clone();
+                next.clear(out);
+                next.set(in);
+                Double known = searched.get(next);
+                if ((known != null && known <= score + EPS) || bound(next) <= score + EPS) {
+                    pruned++;
+                    continue;
+                }
+                neighbors.add(new Neighbor(next, surrogate(next)));
+            }
+            if (task.isCancelled()) return null;
+        }
+        neighbors.sort((a, b) -> Double.compare(b.surrogate, a.surrogate));
+
+        for (int i = 0; i < neighbors.size() && i < NEIGHBORS_PER_STEP && !shouldStop(); i++) {
+            Neighbor next = neighbors.get(i);
+            next.team = evaluate(next.roster, score + EPS, progress);
+            if (next.team != null && next.team.realScore > score + EPS) {
+                offer(next.roster, next.team);
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The roster with up to {@link #KICK_SIZE} species swapped for random ones outside
+     * it; fewer when there are not that many outside.
+     */
+    private BitSet kick(BitSet roster, Integer[] ranked) {
+        // Replacements lean towards strong species, widening the draw only if too few are left
+        int width = Math.min(ranked.length, Math.max(GREEDY_CANDIDATES, 2 * rosterSize));
+        List<Integer> outside = new ArrayList<>();
+        for (int r = 0; r < ranked.length && (r < width || outside.size() < KICK_SIZE); r++) {
+            if (!roster.get(ranked[r])) outside.add(ranked[r]);
+        }
+        int[] members = roster.stream().toArray();
+        int kick = Math.min(KICK_SIZE, Math.min(members.length, outside.size()));
+        BitSet next = (BitSet) roster.clone();
+        for (int k = 0; k < kick; k++) {
+            int m = k + rnd.nextInt(members.length - k);
+            int out = members[m];
+            members[m] = members[k];
+            next.clear(out);
+            Collections.swap(outside, k, k + rnd.nextInt(outside.size() - k));
+            next.set(outside.get(k));
+        }
+        return next;
+    }
+
+    /**
+     * The roster's best team above {@code floor}, or null when its search found none.
+     */
+    private Team evaluate(BitSet roster, double floor, BiConsumer<Integer, Integer> progress) {
+        long left = config.timeBudgetMs > 0 ? config.timeBudgetMs - (System.nanoTime() - startNanos) / 1_000_000 : EVAL_LIMIT_MS;
+        TeamBuildConfig sub = config.withTimeBudget(Math.max(1, Math.min(left, EVAL_LIMIT_MS)));
+        TeamSearchResult r = builder.searchPrepared(builder.candidatePool(fusions(roster), sub), sub, task, floor);
+        evaluated++;
+        progress.accept(evaluated, 0);
+
+        Team team = r.teams.isEmpty() ? null : r.teams.get(0);
+        // Only a finished search says what the roster can reach at most
+        if (r.complete) searched.put(roster, team != null ? team.realScore : floor);
+        return team;
+    }
+
+    private void offer(BitSet roster, Team team) {
+        if (team == null || (bestTeam != null && team.realScore <= bestTeam.realScore + EPS)) return;
+        bestRoster = roster;
+        bestTeam = team;
+        System.out.println(String.format("Roster optimizer: %.3f after %d rosters (%d ms)", team.realScore, evaluated,
+            (System.nanoTime() - startNanos) / 1_000_000));
+    }
+
+    private List<Fusion> fusions(BitSet roster) {
+        List<Fusion> fusions = new ArrayList<>();
+        for (int h = roster.nextSetBit(0); h >= 0; h = roster.nextSetBit(h + 1)) {
+            for (int b = roster.nextSetBit(0); b >= 0; b = roster.nextSetBit(b + 1)) {
+                fusions.addAll(pairs.variants(candidates.get(h), candidates.get(b)));
+            }
+        }
+        return fusions;
+    }
+
+    /**
+     * Upper bound on the roster's best team: its six best fusions, plus the largest
+     * delta any team has. Clause penalties and team rules can only take away from that.
+     * Unless the species clause is a hard ban a team may hold several ability variants
+     * of one pair, so every variant counts; under the ban only the best pair counts,
+     * and no species heads (or bodies) two members, so only the best pair per head,
+     * and per body, does.
+     */
+    private double bound(BitSet roster) {
+        int size = roster.cardinality();
+        double[] all = new double[size * size], byHead = new double[size], byBody = new double[size];
+        Arrays.fill(byHead, -Double.MAX_VALUE);
+        Arrays.fill(byBody, -Double.MAX_VALUE);
+        int count = 0;
+        for (int h = roster.nextSetBit(0), i = 0; h >= 0; h = roster.nextSetBit(h + 1), i++) {
+            for (int b = roster.nextSetBit(0), j = 0; b >= 0; b = roster.nextSetBit(b + 1), j++) {
+                if (h == b && selfBanned) continue;
+                if (!speciesBanned) {
+                    for (Fusion f : pairs.variants(candidates.get(h), candidates.get(b))) {
+                        if (count == all.length) all = Arrays.copyOf(all, 2 * all.length);
+                        all[count++] = f.score;
+                    }
+                    continue;
+                }
+                double s = best(h, b);
+                all[count++] = s;
+                byHead[i] = Math.max(byHead[i], s);
+                byBody[j] = Math.max(byBody[j], s);
+            }
+        }
+        double top = topSix(all, count);
+        if (speciesBanned) top = Math.min(top, Math.min(topSix(byHead, size), topSix(byBody, size)));
+        return top == -Double.MAX_VALUE ? top : top + TeamScorer.MAX_BONUS;
+    }
+
+    // Sum of the six largest values, or -MAX_VALUE when there are fewer than six
+    private static double topSix(double[] values, int count) {
+        double[] top = new double[6];
+        Arrays.fill(top, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < count; i++) {
+            double s = values[i];
+            if (s <= top[5]) continue;
+            int k = 5;
+            while (k > 0 && top[k - 1] < s) {
+                top[k] = top[k - 1];
+                k--;
+            }
+            top[k] = s;
+        }
+        double sum = 0;
+        for (double s : top) {
+            if (s == Double.NEGATIVE_INFINITY || s == -Double.MAX_VALUE) return -Double.MAX_VALUE;
+            sum += s;
+        }
+        return sum;
+    }
+
+    /**
+     * Cheap estimate of the roster's best team: the best pairs that share no species,
+     * then the best of the rest if the roster is too small for six of those.
+     */
+    private double surrogate(BitSet roster) {
+        List<double[]> all = new ArrayList<>();
+        for (int h = roster.nextSetBit(0); h >= 0; h = roster.nextSetBit(h + 1)) {
+            for (int b = roster.nextSetBit(0); b >= 0; b = roster.nextSetBit(b + 1)) {
+                if (h == b && selfBanned) continue;
+                all.add(new double[]{best(h, b), h, b});
+            }
+        }
+        all.sort((x, y) -> Double.compare(y[0], x[0]));
+        BitSet used = new BitSet();
+        double sum = 0;
+        int taken = 0;
+        for (double[] p : all) {
+            if (taken == 6) break;
+            if (used.get((int) p[1]) || used.get((int) p[2])) continue;
+            used.set((int) p[1]);
+            used.set((int) p[2]);
+            sum += p[0];
+            taken++;
+        }
+        for (int i = 0; taken < 6 && i < all.size(); i++, taken++) {
+            // Species repeat from here on; a repeated species costs, so these count for less
+            sum += all.get(i)[0] / 2;
+        }
+        return sum;
+    }
+
+    private double best(int head, int body) {
+        return pairs.best(candidates.get(head), candidates.get(body));
+    }
+
+    private boolean shouldStop() {
+        if (task.isCancelled()) return true;
+        return config.timeBudgetMs > 0 && System.nanoTime() - startNanos >= config.timeBudgetMs * 1_000_000L;
+    }
+
+    private static final class Neighbor {
+        final BitSet roster;
+        final double surrogate;
+        Team team;
+
+        Neighbor(BitSet roster, double surrogate) {
+            this.roster = roster;
+            this.surrogate = surrogate;
+        }
+    }
+
+    /**
+     * Every fusion variant of a head/body pair, calculated on first use and kept for as
+     * long as the scoring weights stay the same. Not thread-safe.
+     */
+    static final class PairCache {
+        private final FusionCalculator calculator;
+        private final ScoringWeights weights;
+        private final boolean hiddenPenalty;
+        private final Map<String, List<Fusion>> variants = new HashMap<>();
+        private final Map<String, Double> best = new HashMap<>();
+
+        PairCache(FusionCalculator calculator, ScoringWeights weights, boolean hiddenPenalty) {
+            this.calculator = calculator;
+            this.weights = weights;
+            this.hiddenPenalty = hiddenPenalty;
+        }
+
+        /**
+         * Whether fusions calculated under these settings are the ones cached here.
+         */
+        boolean matches(ScoringWeights w, boolean hidden) {
+            return hidden == hiddenPenalty && w.stat == weights.stat && w.type == weights.type
+                && w.ability == weights.ability && w.moveset == weights.moveset;
+        }
+
+        List<Fusion> variants(Pokemon head, Pokemon body) {
+            String key = head.name + "/" + body.name;
+            List<Fusion> list = variants.get(key);
+            if (list == null) {
+                list = calculator.calculateVariants(head, body, weights, hiddenPenalty);
+                variants.put(key, list);
+                double max = -Double.MAX_VALUE;
+                for (Fusion f : list) max = Math.max(max, f.score);
+                best.put(key, max);
+            }
+            return list;
+        }
+
+        double best(Pokemon head, Pokemon body) {
+            Double s = best.get(head.name + "/" + body.name);
+            if (s != null) return s;
+            variants(head, body);
+            return best.get(head.name + "/" + body.name);
+        }
+
+        int size() {
+            return variants.size();
+        }
+    }
+
+    /**
+     * The best roster found, its fusions (best-first) and its best team, which is null
+     * when no roster had a team at all.
+     */
+    static final class Result {
+        final List<Pokemon> roster;
+        final List<Fusion> fusions;
+        final Team team;
+        final int evaluated, pruned, pairsCalculated, rostersSearched;
+
+        Result(List<Pokemon> roster, List<Fusion> fusions, Team team, int evaluated, int pruned,
+               int pairsCalculated, int rostersSearched) {
+            this.roster = roster;
+            fusions.sort((a, b) -> Double.compare(b.score, a.score));
+            this.fusions = fusions;
+            this.team = team;
+            this.evaluated = evaluated;
+            this.pruned = pruned;
+            this.pairsCalculated = pairsCalculated;
+            this.rostersSearched = rostersSearched;
+        }
+    }
+}
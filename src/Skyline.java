@@ -0,0 +1,279 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The Pareto skyline of a pool: the fusions no other fusion beats on every chosen
+ * dimension at once (at least as good on all, better on one). Where the ranking
+ * folds everything into one score, the skyline keeps each trade-off, e.g. the
+ * fastest fusion with mediocre bulk next to the bulkiest slow one.
+ *
+ * Sort-filter-skyline: points are presorted by the sum of their normalized values
+ * (ties broken on the values themselves), which puts every dominating point ahead of
+ * the points it dominates, so a point is on the skyline exactly when nothing already
+ * on it dominates it. That test is a bitmap intersection rather than a scan: per
+ * dimension the skyline so far keeps, for each of its values, the set of members at
+ * least that good, and the members at least as good as a point on every dimension
+ * are the AND of one set per dimension. Fusions that tie on every dimension share one
+ * window entry. The pool is split into one partition per search-pool thread whose
+ * skylines are found in parallel; the skyline of their union is that of the pool.
+ */
+final class Skyline {
+    // Smallest partition worth its own task
+    private static final int MIN_PARTITION = 16_384;
+
+    enum Dimension {
+        SPEED("Speed", f -> f.spe, false),
+        OFFENSE("Best Attack", f -> Math.max(f.atk, f.spa), false),
+        BULK("Bulk", f -> f.hp + f.def + f.spd, false),
+        HP("HP", f -> f.hp, false),
+        ATTACK("Attack", f -> f.atk, false),
+        SP_ATTACK("Sp. Atk", f -> f.spa, false),
+        BST("BST", f -> f.bst, false),
+        TYPE_RANK("Type Rank", f -> f.rank, true),
+        ABILITY("Ability Score", Skyline::abilityScore, false),
+        SCORE("Score", f -> f.score, false);
+
+        final String label;
+        final ToDoubleFunction<Fusion> value;
+        // Type ranks count down: 1 is the best typing
+        final boolean lowerIsBetter;
+
+        Dimension(String label, ToDoubleFunction<Fusion> value, boolean lowerIsBetter) {
+            this.label = label;
+            this.value = value;
+            this.lowerIsBetter = lowerIsBetter;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private Skyline() {}
+
+    /**
+     * The non-dominated fusions of the pool over the dimensions, best score first.
+     */
+    static List<Fusion> compute(List<Fusion> pool, List<Dimension> dimensions) {
+        int n = pool.size(), d = dimensions.size();
+        if (n == 0 || d == 0) return new ArrayList<>(pool);
+
+        // Values oriented so that higher is better, row-major
+        double[] values = new double[n * d];
+        double[] min = new double[d], max = new double[d];
+        Arrays.fill(min, Double.MAX_VALUE);
+        Arrays.fill(max, -Double.MAX_VALUE);
+        for (int i = 0; i < n; i++) {
+            Fusion f = pool.get(i);
+            for (int k = 0; k < d; k++) {
+                Dimension dim = dimensions.get(k);
+                double v = dim.value.applyAsDouble(f);
+                v = dim.lowerIsBetter ? -v : v;
+                values[i * d + k] = v;
+                min[k] = Math.min(min[k], v);
+                max[k] = Math.max(max[k], v);
+            }
+        }
+        // Presort key in [0, d]: a point that dominates another has the larger key
+        double[] keys = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < d; k++) {
+                keys[i] += max[k] > min[k] ? (values[i * d + k] - min[k]) / (max[k] - min[k]) : 0;
+            }
+        }
+
+        // Partitions take every partitions-th row: pools come grouped by species, and a slice of
+        // one group has a far larger skyline of its own than a sample of the whole pool
+        int partitions = Math.max(1, Math.min(TeamBuilder.SEARCH_POOL.getParallelism(), n / MIN_PARTITION));
+        List<ForkJoinTask<int[]>> tasks = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            int[] rows = new int[(n - p + partitions - 1) / partitions];
+            for (int i = 0; i < rows.length; i++) rows[i] = p + i * partitions;
+            tasks.add(ForkJoinTask.adapt(() -> skyline(rows, values, keys, d)));
+        }
+        List<int[]> local = new ArrayList<>();
+        TeamBuilder.SEARCH_POOL.invoke(ForkJoinTask.adapt(() -> {
+            for (ForkJoinTask<int[]> t : ForkJoinTask.invokeAll(tasks)) local.add(t.join());
+        }));
+
+        int[] rows;
+        if (local.size() == 1) {
+            rows = local.get(0);
+        } else {
+            int total = 0;
+            for (int[] r : local) total += r.length;
+            int[] union = new int[total];
+            int at = 0;
+            for (int[] r : local) {
+                System.arraycopy(r, 0, union, at, r.length);
+                at += r.length;
+            }
+            rows = skyline(union, values, keys, d);
+        }
+
+        List<Fusion> result = new ArrayList<>(rows.length);
+        for (int row : rows) result.add(pool.get(row));
+        result.sort((a, b) -> Double.compare(b.score, a.score));
+        return result;
+    }
+
+    /**
+     * The skyline of the given rows, ties included.
+     */
+    private static int[] skyline(int[] rows, double[] values, double[] keys, int d) {
+        int[] order = presort(rows, values, keys, d);
+        Window window = new Window(d);
+        int[] members = new int[64];
+        int count = 0;
+        for (int row : order) {
+            if (window.dominates(values, row * d)) continue;
+            if (count == members.length) members = Arrays.copyOf(members, 2 * count);
+            members[count++] = row;
+        }
+        return Arrays.copyOf(members, count);
+    }
+
+    /**
+     * The rows by descending key, then descending values in dimension order. A point
+     * that dominates another has a key at least as large even after rounding, and when
+     * the keys tie it wins the first dimension where they differ, so it comes first.
+     */
+    private static int[] presort(int[] rows, double[] values, double[] keys, int d) {
+        long[] packed = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            // Non-negative floats sort like their bits, so this is "descending key, then row"
+            packed[i] = (long) Float.floatToIntBits((float) (d - keys[rows[i]])) << 32 | rows[i];
+        }
+        Arrays.sort(packed);
+        int[] order = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) order[i] = (int) packed[i];
+
+        // Rows whose keys round to the same float are put in exact order
+        Comparator<Integer> exact = (a, b) -> {
+            int c = Double.compare(keys[b], keys[a]);
+            for (int k = 0; c == 0 && k < d; k++) c = Double.compare(values[b * d + k], values[a * d + k]);
+            return c;
+        };
+        for (int from = 0; from < rows.length; ) {
+            int to = from + 1;
+            while (to < rows.length && packed[to] >>> 32 == packed[from] >>> 32) to++;
+            if (to - from > 1) {
+                Integer[] run = new Integer[to - from];
+                for (int i = from; i < to; i++) run[i - from] = order[i];
+                Arrays.sort(run, exact);
+                for (int i = from; i < to; i++) order[i] = run[i - from];
+            }
+            from = to;
+        }
+        return order;
+    }
+
+    /**
+     * The distinct points on the skyline so far. Per dimension: their distinct values
+     * ascending, and for each value a bitmap of the entries holding at least that value.
+     */
+    private static final class Window {
+        private final int d;
+        private final double[][] thresholds;
+        private final long[][][] atLeast;
+        private final int[] sizes;
+        private double[] entries = new double[0];
+        private int count;
+        private int words = 1;
+
+        Window(int d) {
+            this.d = d;
+            thresholds = new double[d][16];
+            atLeast = new long[d][16][];
+            sizes = new int[d];
+        }
+
+        /**
+         * Whether an entry dominates the point at values[base]; a point equal to an
+         * entry is not dominated, and is not added again.
+         */
+        boolean dominates(double[] values, int base) {
+            long[] common = null;
+            for (int k = 0; k < d; k++) {
+                int pos = lowerBound(thresholds[k], sizes[k], values[base + k]);
+                if (pos == sizes[k]) {
+                    add(values, base);
+                    return false;
+                }
+                long[] set = atLeast[k][pos];
+                if (common == null) {
+                    common = set.clone();
+                } else {
+                    boolean any = false;
+                    for (int w = 0; w < words; w++) any |= (common[w] &= set[w]) != 0;
+                    if (!any) {
+                        add(values, base);
+                        return false;
+                    }
+                }
+            }
+            // Every entry left is at least as good everywhere: a tie or a dominator
+            for (int w = 0; w < words; w++) {
+                for (long bits = common[w]; bits != 0; bits &= bits - 1) {
+                    int e = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    boolean tie = true;
+                    for (int k = 0; k < d && tie; k++) tie = entries[e * d + k] == values[base + k];
+                    if (!tie) return true;
+                }
+            }
+            // Equal to an entry (no entry dominates an equal point either)
+            return false;
+        }
+
+        private void add(double[] values, int base) {
+            int e = count++;
+            if (e * d + d > entries.length) entries = Arrays.copyOf(entries, Math.max(64 * d, 2 * entries.length));
+            System.arraycopy(values, base, entries, e * d, d);
+            if (e >> 6 >= words) {
+                words *= 2;
+                for (int k = 0; k < d; k++) {
+                    for (int i = 0; i < sizes[k]; i++) atLeast[k][i] = Arrays.copyOf(atLeast[k][i], words);
+                }
+            }
+            for (int k = 0; k < d; k++) {
+                double v = values[base + k];
+                int pos = lowerBound(thresholds[k], sizes[k], v);
+                if (pos == sizes[k] || thresholds[k][pos] != v) {
+                    // A new value: its entries so far are those holding the next higher one
+                    if (sizes[k] == thresholds[k].length) {
+                        thresholds[k] = Arrays.copyOf(thresholds[k], 2 * sizes[k]);
+                        atLeast[k] = Arrays.copyOf(atLeast[k], 2 * sizes[k]);
+                    }
+                    System.arraycopy(thresholds[k], pos, thresholds[k], pos + 1, sizes[k] - pos);
+                    System.arraycopy(atLeast[k], pos, atLeast[k], pos + 1, sizes[k] - pos);
+                    thresholds[k][pos] = v;
+                    atLeast[k][pos] = pos + 1 <= sizes[k] ? atLeast[k][pos + 1].clone() : new long[words];
+                    sizes[k]++;
+                }
+                for (int i = 0; i <= pos; i++) atLeast[k][i][e >> 6] |= 1L << e;
+            }
+        }
+
+        // First of the n ascending values that is >= v
+        private static int lowerBound(double[] sorted, int n, double v) {
+            int lo = 0, hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] < v) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    // Score of the fusion's chosen ability, 0 when it has none on record
+    private static double abilityScore(Fusion f) {
+        if (f.allAbilities == null || f.chosenAbility == null) return 0;
+        for (FusionCalculator.AbilityResult ab : f.allAbilities) {
+            if (f.chosenAbility.equals(ab.name)) return ab.score;
+        }
+        return 0;
+    }
+}
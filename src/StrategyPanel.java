@@ -1,6 +1,4 @@
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
 import javax.swing.*;
 import javax.swing.table.*;
 
@@ -8,42 +6,14 @@ public class StrategyPanel extends JPanel {
     private JTable table;
     private DefaultTableModel model;
     
-    // Standard Gen 6+ Type Chart
+    // Attacking types in TypeChart order
     // 0:Normal, 1:Fire, 2:Water, 3:Electric, 4:Grass, 5:Ice, 6:Fighting, 7:Poison, 8:Ground
     // 9:Flying, 10:Psychic, 11:Bug, 12:Rock, 13:Ghost, 14:Dragon, 15:Dark, 16:Steel, 17:Fairy
     private final String[] typeHeaders = {"Member", "Nor", "Fir", "Wat", "Ele", "Gra", "Ice", "Fig", "Poi", "Gro", "Fly", "Psy", "Bug", "Roc", "Gho", "Dra", "Dar", "Ste", "Fai"};
     
-    // 2.0 = Weakness, 0.5 = Resistance, 0.0 = Immunity
-    private static final double[][] TYPE_CHART = {
-        // Defending:
-        // Nor Fir Wat Ele Gra Ice Fig Poi Gro Fly Psy Bug Roc Gho Dra Dar Ste Fai  <-- Attacking
-        {1, 1, 1, 1, 1, 1, 2, 1, 1, 1, 1, 1, 1, 0, 1, 1, 1, 1}, // Normal
-        {1, 0.5, 2, 1, 0.5, 0.5, 1, 1, 2, 1, 1, 0.5, 2, 1, 1, 1, 0.5, 0.5}, // Fire
-        {1, 0.5, 0.5, 2, 2, 0.5, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 0.5, 1}, // Water
-        {1, 1, 1, 0.5, 1, 1, 1, 1, 2, 0.5, 1, 1, 1, 1, 1, 1, 0.5, 1}, // Electric
-        {1, 2, 0.5, 0.5, 0.5, 2, 1, 2, 0.5, 2, 1, 2, 1, 1, 1, 1, 1, 1}, // Grass
-        {1, 2, 1, 1, 1, 0.5, 2, 1, 1, 1, 1, 1, 2, 1, 1, 1, 2, 1}, // Ice
-        {1, 1, 1, 1, 1, 1, 1, 1, 1, 2, 2, 0.5, 0.5, 1, 1, 0.5, 1, 2}, // Fighting
-        {1, 1, 1, 1, 0.5, 1, 0.5, 0.5, 2, 1, 2, 0.5, 1, 1, 1, 1, 1, 0.5}, // Poison
-        {1, 1, 2, 0, 2, 2, 1, 0.5, 1, 1, 1, 1, 0.5, 1, 1, 1, 1, 1}, // Ground
-        {1, 1, 1, 2, 0.5, 2, 0.5, 1, 0, 1, 1, 0.5, 2, 1, 1, 1, 1, 1}, // Flying
-        {1, 1, 1, 1, 1, 1, 0.5, 1, 1, 1, 0.5, 2, 1, 2, 1, 2, 1, 1}, // Psychic
-        {1, 2, 1, 1, 0.5, 1, 0.5, 1, 0.5, 2, 1, 1, 2, 1, 1, 1, 1, 1}, // Bug
-        {0.5, 0.5, 2, 1, 2, 1, 2, 0.5, 2, 0.5, 1, 1, 1, 1, 1, 1, 2, 1}, // Rock
-        {0, 1, 1, 1, 1, 1, 0, 0.5, 1, 1, 1, 0.5, 1, 2, 1, 2, 1, 1}, // Ghost
-        {1, 0.5, 0.5, 0.5, 0.5, 2, 1, 1, 1, 1, 1, 1, 1, 1, 2, 1, 1, 2}, // Dragon
-        {1, 1, 1, 1, 1, 1, 2, 1, 1, 1, 0, 2, 1, 0.5, 1, 0.5, 1, 2}, // Dark
-        {0.5, 2, 1, 1, 0.5, 0.5, 2, 0, 2, 0.5, 0.5, 0.5, 0.5, 1, 0.5, 1, 0.5, 0.5}, // Steel
-        {1, 1, 1, 1, 1, 1, 0.5, 2, 1, 1, 1, 0.5, 1, 1, 0, 0.5, 2, 1}  // Fairy
-    };
-
-    private Map<String, Integer> typeIndexMap;
-
     public StrategyPanel() {
         setLayout(new BorderLayout());
         
-        initializeTypeMap();
-        
         model = new DefaultTableModel(typeHeaders, 0);
         table = new JTable(model) {
             @Override
@@ -128,15 +98,6 @@ public class StrategyPanel extends JPanel {
         return l;
     }
 
-    private void initializeTypeMap() {
-        typeIndexMap = new HashMap<>();
-        String[] types = {"Normal", "Fire", "Water", "Electric", "Grass", "Ice", "Fighting", "Poison", "Ground", 
-                          "Flying", "Psychic", "Bug", "Rock", "Ghost", "Dragon", "Dark", "Steel", "Fairy"};
-        for (int i = 0; i < types.length; i++) {
-            typeIndexMap.put(types[i].toLowerCase(), i);
-        }
-    }
-
     public void displayTeam(Team team) {
         model.setRowCount(0);
         if (team == null) return;
@@ -145,38 +106,10 @@ public class StrategyPanel extends JPanel {
             Object[] row = new Object[19];
             row[0] = f.getDisplayName();
             
-            String[] types = f.typing.contains("/") ? f.typing.split("/") : new String[]{f.typing};
-            
-            // Calculate effectiveness for each attacking type (columns 1-18)
+            // One precomputed vector holds the effectiveness of every attacking type (columns 1-18)
+            long vector = TypeChart.vector(f);
             for (int i = 0; i < 18; i++) {
-                double eff = 1.0;
-                for (String t : types) {
-                    Integer defIndex = typeIndexMap.get(t.toLowerCase());
-                    if (defIndex != null) {
-                        // TYPE_CHART[defending][attacking]
-                        eff *= TYPE_CHART[defIndex][i];
-                    }
-                }
-                
-                // Account for Abilities (Simplified)
-                if (eff > 0) {
-                    String ab = f.chosenAbility.toLowerCase();
-                    String atkType = typeHeaders[i+1].toLowerCase(); // approximate check
-                    
-                    if (ab.contains("levitate") && i == 8) eff = 0; // Ground
-                    if (ab.contains("flash fire") && i == 1) eff = 0; // Fire
-                    if (ab.contains("volt absorb") && i == 3) eff = 0; // Electric
-                    if (ab.contains("water absorb") && i == 2) eff = 0; // Water
-                    if (ab.contains("dry skin") && i == 2) eff = 0; // Water
-                    if (ab.contains("sap sipper") && i == 4) eff = 0; // Grass
-                    if (ab.contains("motor drive") && i == 3) eff = 0; // Electric
-                    if (ab.contains("storm drain") && i == 2) eff = 0; // Water
-                    
-                    // Filter Thick Fat (Fire/Ice)
-                    if (ab.contains("thick fat") && (i == 1 || i == 5)) eff *= 0.5;
-                    // Filter Heatproof (Fire)
-                    if (ab.contains("heatproof") && i == 1) eff *= 0.5;
-                }
+                double eff = TypeChart.multiplier(vector, i);
                 
                 // Format string to remove .0 if integer
                 if (eff == Math.floor(eff)) {
@@ -187,5 +120,18 @@ public class StrategyPanel extends JPanel {
             }
             model.addRow(row);
         }
+        
+        // Team totals straight from the precomputed masks: weak / resist (or immune) members per type
+        Object[] totals = new Object[19];
+        totals[0] = "Team (weak/resist)";
+        for (int i = 0; i < 18; i++) {
+            int weak = 0, resist = 0;
+            for (Fusion f : team.members) {
+                weak += (int) (f.weaknessMask >>> i) & 1;
+                resist += (int) (f.resistMask >>> i) & 1;
+            }
+            totals[i + 1] = weak + "/" + resist;
+        }
+        model.addRow(totals);
     }
 }
\ No newline at end of file
@@ -0,0 +1,236 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Ranks the changes to an existing team that raise its score: every replacement of
+ * one member by any fusion of the calculated pool, and optionally of two members by
+ * two of the best-scoring fusions. Candidates are scored incrementally with a
+ * TeamScorer holding the rest of the team, and a candidate is only scored at all if
+ * its own score could beat the best swaps found so far given the largest delta the
+ * open slot could still bring, so most of a large pool costs one comparison.
+ *
+ * Swaps obey the same hard clauses and team rules as the searches: a candidate may
+ * not add a species duplicate, a third member of a type or a third member weak to a
+ * type when that clause is a hard ban, and the new team must satisfy the rules.
+ */
+class SwapSuggester {
+    // Pool entries per parallel task of the one-member scan
+    private static final int CHUNK = 8192;
+    // Two-member swaps draw from this many of the best-scoring fusions
+    private static final int PAIR_SHORTLIST = 256;
+    private static final double EPS = 1e-9;
+
+    private final TeamBuildConfig config;
+
+    SwapSuggester(TeamBuildConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * The best {@code limit} improving swaps for the team, largest gain first.
+     */
+    List<Swap> suggest(List<Fusion> team, List<Fusion> fusions, int limit, boolean pairs) {
+        TeamScorer full = new TeamScorer(config);
+        full.set(team);
+        double current = full.score();
+
+        Set<Fusion> members = Collections.newSetFromMap(new IdentityHashMap<>());
+        members.addAll(team);
+        List<ForkJoinTask<List<Swap>>> tasks = new ArrayList<>();
+        for (int m = 0; m < team.size(); m++) {
+            List<Fusion> rest = without(team, m, -1);
+            for (int from = 0; from < fusions.size(); from += CHUNK) {
+                final int start = from, end = Math.min(fusions.size(), from + CHUNK);
+                final Fusion out = team.get(m);
+                tasks.add(ForkJoinTask.adapt(() -> scanSingles(rest, out, fusions, start, end, members, current, limit)));
+            }
+        }
+        if (pairs && team.size() >= 2) {
+            List<Fusion> shortlist = shortlist(fusions, members);
+            for (int a = 0; a < team.size(); a++) {
+                for (int b = a + 1; b < team.size(); b++) {
+                    final int x = a, y = b;
+                    tasks.add(ForkJoinTask.adapt(() -> scanPairs(team, x, y, shortlist, current, limit)));
+                }
+            }
+        }
+
+        TopSwaps top = new TopSwaps(limit);
+        TeamBuilder.SEARCH_POOL.invoke(ForkJoinTask.adapt(() -> {
+            for (ForkJoinTask<List<Swap>> t : ForkJoinTask.invokeAll(tasks)) {
+                for (Swap s : t.join()) top.offer(s);
+            }
+        }));
+        return top.sorted();
+    }
+
+    private List<Swap> scanSingles(List<Fusion> rest, Fusion out, List<Fusion> fusions, int start, int end,
+                                   Set<Fusion> members, double current, int limit) {
+        TeamScorer scorer = new TeamScorer(config);
+        scorer.set(rest);
+        double restScore = scorer.score() - scorer.delta();
+        double slack = scorer.maxRemainingDelta(1);
+        TopSwaps top = new TopSwaps(limit);
+
+        for (int i = start; i < end; i++) {
+            Fusion in = fusions.get(i);
+            // Even the largest delta the open slot allows would not beat what we have
+            if (restScore + in.score + slack <= top.threshold(current) + EPS) continue;
+            if (members.contains(in) || !admissible(in)) continue;
+            if (!fits(scorer, rest, in)) continue;
+            scorer.add(in);
+            double score = scorer.score();
+            scorer.remove(in);
+            if (score <= top.threshold(current) + EPS) continue;
+            List<Fusion> added = Collections.singletonList(in);
+            if (!satisfiesRules(rest, added)) continue;
+            top.offer(new Swap(Collections.singletonList(out), added, score, score - current));
+        }
+        return top.sorted();
+    }
+
+    private List<Swap> scanPairs(List<Fusion> team, int a, int b, List<Fusion> shortlist, double current, int limit) {
+        List<Fusion> rest = without(team, a, b);
+        TeamScorer scorer = new TeamScorer(config);
+        scorer.set(rest);
+        double restScore = scorer.score() - scorer.delta();
+        double slack = scorer.maxRemainingDelta(2);
+        TopSwaps top = new TopSwaps(limit);
+        List<Fusion> partial = new ArrayList<>(rest);
+
+        for (int i = 0; i < shortlist.size(); i++) {
+            Fusion first = shortlist.get(i);
+            // The shortlist is best-first: no later pair can reach the threshold either
+            if (i + 1 >= shortlist.size() || restScore + first.score + shortlist.get(i + 1).score + slack <= top.threshold(current) + EPS) break;
+            if (!fits(scorer, rest, first)) continue;
+            scorer.add(first);
+            partial.add(first);
+            for (int j = i + 1; j < shortlist.size(); j++) {
+                Fusion second = shortlist.get(j);
+                if (restScore + first.score + second.score + slack <= top.threshold(current) + EPS) break;
+                if (!fits(scorer, partial, second)) continue;
+                scorer.add(second);
+                double score = scorer.score();
+                scorer.remove(second);
+                if (score <= top.threshold(current) + EPS) continue;
+                List<Fusion> added = Arrays.asList(first, second);
+                if (!satisfiesRules(rest, added)) continue;
+                top.offer(new Swap(Arrays.asList(team.get(a), team.get(b)), added, score, score - current));
+            }
+            partial.remove(partial.size() - 1);
+            scorer.remove(first);
+        }
+        return top.sorted();
+    }
+
+    /**
+     * The best-scoring admissible fusions not on the team, best first.
+     */
+    private List<Fusion> shortlist(List<Fusion> fusions, Set<Fusion> members) {
+        PriorityQueue<Fusion> best = new PriorityQueue<>(Comparator.comparingDouble((Fusion f) -> f.score));
+        for (Fusion f : fusions) {
+            if (best.size() == PAIR_SHORTLIST && f.score <= best.peek().score) continue;
+            if (members.contains(f) || !admissible(f)) continue;
+            best.add(f);
+            if (best.size() > PAIR_SHORTLIST) best.poll();
+        }
+        List<Fusion> list = new ArrayList<>(best);
+        list.sort(Comparator.comparingDouble((Fusion f) -> f.score).reversed());
+        return list;
+    }
+
+    private boolean admissible(Fusion f) {
+        if (config.selfFusionClauseVal == 100 && f.headName.equalsIgnoreCase(f.bodyName)) return false;
+        return config.constraints.isEmpty() || config.constraints.admits(f);
+    }
+
+    /**
+     * Whether {@code in} can join the members held by {@code scorer} (listed in
+     * {@code current}) without breaking a hard clause or an at-most rule. The scorer
+     * is left as it was.
+     */
+    private boolean fits(TeamScorer scorer, List<Fusion> current, Fusion in) {
+        int duplicates = scorer.duplicates(), sharedTypes = scorer.sharedTypes(), stacked = scorer.stackedWeaknesses();
+        scorer.add(in);
+        // A self fusion repeats its own species, which the hard species clause allows
+        boolean ok = (config.speciesClauseVal != 100
+                        || scorer.duplicates() - duplicates <= (in.headName.equalsIgnoreCase(in.bodyName) ? 1 : 0))
+            && (config.typeClauseVal != 100 || scorer.sharedTypes() == sharedTypes)
+            && (config.defensiveClauseVal != 100 || scorer.stackedWeaknesses() == stacked);
+        scorer.remove(in);
+        return ok && (config.constraints.isEmpty() || config.constraints.allows(current, in));
+    }
+
+    private boolean satisfiesRules(List<Fusion> rest, List<Fusion> added) {
+        if (config.constraints.isEmpty()) return true;
+        List<Fusion> team = new ArrayList<>(rest);
+        team.addAll(added);
+        return config.constraints.isSatisfied(team);
+    }
+
+    private static List<Fusion> without(List<Fusion> team, int a, int b) {
+        List<Fusion> rest = new ArrayList<>(team.size());
+        for (int i = 0; i < team.size(); i++) {
+            if (i != a && i != b) rest.add(team.get(i));
+        }
+        return rest;
+    }
+
+    /**
+     * The best swaps seen so far, at most {@code limit} of them.
+     */
+    private static final class TopSwaps {
+        private final int limit;
+        private final PriorityQueue<Swap> heap = new PriorityQueue<>(Comparator.comparingDouble((Swap s) -> s.score));
+
+        TopSwaps(int limit) {
+            this.limit = Math.max(1, limit);
+        }
+
+        // Score a new swap has to beat: the current team's until the list is full
+        double threshold(double current) {
+            return heap.size() < limit ? current : Math.max(current, heap.peek().score);
+        }
+
+        void offer(Swap s) {
+            heap.add(s);
+            if (heap.size() > limit) heap.poll();
+        }
+
+        List<Swap> sorted() {
+            List<Swap> list = new ArrayList<>(heap);
+            list.sort(Comparator.comparingDouble((Swap s) -> s.score).reversed());
+            return list;
+        }
+    }
+
+    /**
+     * Members taken out, fusions put in, and the new team's score and gain.
+     */
+    static final class Swap {
+        final List<Fusion> removed;
+        final List<Fusion> added;
+        final double score;
+        final double gain;
+
+        Swap(List<Fusion> removed, List<Fusion> added, double score, double gain) {
+            this.removed = removed;
+            this.added = added;
+            this.score = score;
+            this.gain = gain;
+        }
+
+        /**
+         * The team after the swap, scored under the config it was suggested for.
+         */
+        Team apply(List<Fusion> team, TeamBuildConfig config) {
+            Team t = new Team();
+            for (Fusion f : team) {
+                if (!removed.contains(f)) t.members.add(f);
+            }
+            t.members.addAll(added);
+            t.recalculateRealScore(config);
+            return t;
+        }
+    }
+}
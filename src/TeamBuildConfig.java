@@ -1,12 +1,108 @@
 public class TeamBuildConfig {
+    public enum Strategy { AUTO, EXACT, MITM, BEAM, LNS, DISTRIBUTED }
+
+    static final String LOOPBACK = "127.0.0.1";
+
     // 0 = Off, 1-99 = Penalty/Bonus Weight, 100 = Hard Requirement
     public final int speciesClauseVal;
     public final int typeClauseVal;
     public final int selfFusionClauseVal;
+    // Members weak to the same attacking type beyond two; 100 = never more than two
+    public final int defensiveClauseVal;
+    
+    // Search time budget in milliseconds, 0 = run to completion
+    public final long timeBudgetMs;
+    
+    // Which TeamSearchStrategy runs; AUTO picks exact search for small pools or when there is no time budget
+    public final Strategy strategy;
+    // Partial teams kept per level by beam search (and the beam that seeds LNS)
+    public final int beamWidth;
+    // DISTRIBUTED: worker JVMs to start on this machine, and the port remote workers connect to (0 = any free port)
+    public final int localWorkers;
+    public final int coordinatorPort;
+    // DISTRIBUTED: the address the coordinator listens on; loopback unless remote workers are wanted
+    public final String coordinatorAddress;
+    // Exact search only: file the search frontier is saved to while it runs, null = no checkpoints
+    public final String checkpointPath;
+    // Declarative team rules (roles, types, stats, exclusions); NONE when unused
+    public final TeamConstraints constraints;
 
     public TeamBuildConfig(int speciesClauseVal, int typeClauseVal, int selfFusionClauseVal) {
+        this(speciesClauseVal, typeClauseVal, selfFusionClauseVal, 0);
+    }
+
+    public TeamBuildConfig(int speciesClauseVal, int typeClauseVal, int selfFusionClauseVal, long timeBudgetMs) {
+        this(speciesClauseVal, typeClauseVal, selfFusionClauseVal, 0, timeBudgetMs, Strategy.AUTO, BeamSearchStrategy.DEFAULT_WIDTH, 2, 0,
+             LOOPBACK, null, TeamConstraints.NONE);
+    }
+
+    private TeamBuildConfig(int speciesClauseVal, int typeClauseVal, int selfFusionClauseVal, int defensiveClauseVal,
+                            long timeBudgetMs, Strategy strategy, int beamWidth, int localWorkers, int coordinatorPort,
+                            String coordinatorAddress, String checkpointPath, TeamConstraints constraints) {
         this.speciesClauseVal = speciesClauseVal;
         this.typeClauseVal = typeClauseVal;
         this.selfFusionClauseVal = selfFusionClauseVal;
+        this.defensiveClauseVal = defensiveClauseVal;
+        this.timeBudgetMs = timeBudgetMs;
+        this.strategy = strategy;
+        this.beamWidth = beamWidth;
+        this.localWorkers = localWorkers;
+        this.coordinatorPort = coordinatorPort;
+        this.coordinatorAddress = coordinatorAddress != null && !coordinatorAddress.trim().isEmpty() ? coordinatorAddress.trim() : LOOPBACK;
+        this.checkpointPath = checkpointPath;
+        this.constraints = constraints != null ? constraints : TeamConstraints.NONE;
+    }
+
+    public TeamBuildConfig withStrategy(Strategy strategy, int beamWidth) {
+        return new TeamBuildConfig(speciesClauseVal, typeClauseVal, selfFusionClauseVal, defensiveClauseVal,
+                                   timeBudgetMs, strategy, beamWidth, localWorkers, coordinatorPort, coordinatorAddress,
+                                   checkpointPath, constraints);
+    }
+
+    public TeamBuildConfig withDistributed(int localWorkers, int coordinatorPort) {
+        return withDistributed(localWorkers, coordinatorPort, LOOPBACK);
+    }
+
+    /**
+     * Distributed search settings; {@code coordinatorAddress} is the interface the
+     * coordinator listens on ("0.0.0.0" for all of them), loopback when empty.
+     */
+    public TeamBuildConfig withDistributed(int localWorkers, int coordinatorPort, String coordinatorAddress) {
+        return new TeamBuildConfig(speciesClauseVal, typeClauseVal, selfFusionClauseVal, defensiveClauseVal,
+                                   timeBudgetMs, strategy, beamWidth, localWorkers, coordinatorPort, coordinatorAddress,
+                                   checkpointPath, constraints);
+    }
+
+    /**
+     * The fields that decide which team is optimal; two configs with the same key
+     * have the same optimum even if they search for it differently.
+     */
+    public String searchKey() {
+        String key = speciesClauseVal + "/" + typeClauseVal + "/" + selfFusionClauseVal + "/" + defensiveClauseVal;
+        return constraints.isEmpty() ? key : key + "/" + constraints.getSource().replace('\n', ';');
+    }
+
+    public TeamBuildConfig withTimeBudget(long timeBudgetMs) {
+        return new TeamBuildConfig(speciesClauseVal, typeClauseVal, selfFusionClauseVal, defensiveClauseVal,
+                                   timeBudgetMs, strategy, beamWidth, localWorkers, coordinatorPort, coordinatorAddress,
+                                   checkpointPath, constraints);
+    }
+
+    public TeamBuildConfig withDefensiveClause(int defensiveClauseVal) {
+        return new TeamBuildConfig(speciesClauseVal, typeClauseVal, selfFusionClauseVal, defensiveClauseVal,
+                                   timeBudgetMs, strategy, beamWidth, localWorkers, coordinatorPort, coordinatorAddress,
+                                   checkpointPath, constraints);
+    }
+
+    public TeamBuildConfig withCheckpoint(String checkpointPath) {
+        return new TeamBuildConfig(speciesClauseVal, typeClauseVal, selfFusionClauseVal, defensiveClauseVal,
+                                   timeBudgetMs, strategy, beamWidth, localWorkers, coordinatorPort, coordinatorAddress,
+                                   checkpointPath, constraints);
+    }
+
+    public TeamBuildConfig withConstraints(TeamConstraints constraints) {
+        return new TeamBuildConfig(speciesClauseVal, typeClauseVal, selfFusionClauseVal, defensiveClauseVal,
+                                   timeBudgetMs, strategy, beamWidth, localWorkers, coordinatorPort, coordinatorAddress,
+                                   checkpointPath, constraints);
     }
-}
\ No newline at end of file
+}
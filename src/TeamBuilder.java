@@ -1,243 +1,990 @@
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.function.Consumer;
 
 public class TeamBuilder {
     private final DataManager data;
     
-    // Optimization limit
-    private static final int SEARCH_POOL_LIMIT = 120;
-    private static final double MAX_POSSIBLE_DELTA = 3.0; // Increased slightly for slider logic
+    // Shared by every search; worker threads are daemons so the pool never blocks shutdown
+    static final ForkJoinPool SEARCH_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    // Subtrees estimated above this many leaves are forked instead of searched inline
+    private static final long DEFAULT_SPLIT_THRESHOLD = 50_000;
 
-    private volatile double globalMaxScore = -Double.MAX_VALUE;
-    private Team globalBestTeam = null;
+    // How often the exact search re-estimates the remaining tree, and with how many random walks
+    private static final long ESTIMATE_INTERVAL_MS = 500;
+    private static final int ESTIMATE_PROBES = 32;
+    private static final int WAITING = 0, RUNNING = 1, FINISHED = 2;
+    // BranchTask.child of a first-level branch, and of a task forked further down one
+    private static final int ROOT = -1, NESTED = -2;
+    // Exact search with a checkpoint file: how often it is rewritten, and how long closing the app waits for the last one
+    private static final long CHECKPOINT_INTERVAL_MS = 30_000;
+    private static final long CHECKPOINT_EXIT_WAIT_MS = 3_000;
+
+    // Beam width of the seeding run when team rules are set
+    private static final int RULES_SEED_WIDTH = 32;
+
+    // With a time budget, AUTO uses the exact search up to this many candidates and LNS beyond;
+    // without one it always searches exactly, so the answer is proven optimal
+    private static final int AUTO_EXACT_LIMIT = 1500;
+
+    private volatile long splitThreshold = DEFAULT_SPLIT_THRESHOLD;
+    // Stats of the running (or last) search, for live ETA display
+    private volatile TeamSearchStats liveStats;
+    // Proven results by pool/pins/config, plus recent best teams to warm-start from
+    private final TeamSearchCache cache = new TeamSearchCache();
 
     public TeamBuilder(DataManager data) {
         this.data = data;
     }
 
-    public List<Team> buildTeams(List<Fusion> fusions, Set<Fusion> pinnedFusions, TeamBuildConfig config, 
-                               TaskController task, BiConsumer<Integer, Integer> progressCallback) {
+    public TeamSearchResult buildTeams(List<Fusion> fusions, Set<Fusion> pinnedFusions, TeamBuildConfig config, 
+                                       TaskController task, BiConsumer<Integer, Integer> progressCallback) {
+        return buildTeams(fusions, pinnedFusions, config, task, progressCallback, null);
+    }
+
+    /**
+     * Prepares the pool and runs the search strategy chosen by the config. When the
+     * config has a time budget (or the task is cancelled) the search stops early and
+     * returns the best team found so far, together with an upper bound on what the
+     * unexplored part could still reach.
+     * Every improved team is passed to {@code incumbentCallback} as soon as it is found.
+     */
+    public TeamSearchResult buildTeams(List<Fusion> fusions, Set<Fusion> pinnedFusions, TeamBuildConfig config, 
+                                       TaskController task, BiConsumer<Integer, Integer> progressCallback,
+                                       Consumer<Team> incumbentCallback) {
+        try {
+            return search(fusions, pinnedFusions, config, task, progressCallback, incumbentCallback, false);
+        } catch (IOException e) {
+            // Only reading a checkpoint throws, and a fresh search never reads one
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Continues an exact search from the checkpoint at {@code config.checkpointPath}:
+     * branches it records as finished are skipped and its incumbent is the starting
+     * point. The fusions, pins and clause values must be the ones the checkpoint was
+     * written for; otherwise an IOException says so and nothing is searched.
+     */
+    public TeamSearchResult resumeTeams(List<Fusion> fusions, Set<Fusion> pinnedFusions, TeamBuildConfig config,
+                                        TaskController task, BiConsumer<Integer, Integer> progressCallback,
+                                        Consumer<Team> incumbentCallback) throws IOException {
+        if (config.checkpointPath == null) throw new IOException("No checkpoint file configured");
+        if (!new TeamSearchCheckpoint(config.checkpointPath).exists()) {
+            throw new FileNotFoundException("No checkpoint at " + config.checkpointPath);
+        }
+        return search(fusions, pinnedFusions, config, task, progressCallback, incumbentCallback, true);
+    }
+
+    private TeamSearchResult search(List<Fusion> fusions, Set<Fusion> pinnedFusions, TeamBuildConfig config,
+                                    TaskController task, BiConsumer<Integer, Integer> progressCallback,
+                                    Consumer<Team> incumbentCallback, boolean resume) throws IOException {
         
-        System.out.println("Starting Optimized Branch and Bound Search...");
+        System.out.println(resume ? "Resuming Team Search from " + config.checkpointPath + "..." : "Starting Optimized Team Search...");
         long startTime = System.currentTimeMillis();
-        globalMaxScore = -Double.MAX_VALUE;
-        globalBestTeam = null;
+        long startNanos = System.nanoTime();
+
+        String cacheKey = TeamSearchCache.fingerprint(fusions, pinnedFusions != null ? pinnedFusions : Collections.emptySet(), config);
+        TeamSearchResult cached = resume ? null : cache.get(cacheKey);
+        if (cached != null) {
+            System.out.println("Search cache hit. Best Score: " + cached.getBestScore());
+            // The stored stats describe the search that found it, not this lookup
+            TeamSearchStats stats = new TeamSearchStats(startNanos, 1);
+            stats.markCached();
+            stats.finish();
+            return new TeamSearchResult(cached.teams, cached.upperBound, cached.complete, stats);
+        }
+
+        List<Fusion> pinnedList = pinnedFusions != null ? new ArrayList<>(pinnedFusions) : new ArrayList<>();
+        int k = 6 - pinnedList.size(); 
+        List<Fusion> pool = preparePool(fusions, pinnedList, config);
+
+        if (k <= 0) {
+            Team t = new Team();
+            t.members.addAll(pinnedList.subList(0, 6));
+            t.recalculateRealScore(config);
+            TeamSearchStats stats = new TeamSearchStats(startNanos, 1);
+            stats.finish();
+            return new TeamSearchResult(Collections.singletonList(t), t.realScore, true, stats);
+        }
+
+        TeamSearchContext run = new TeamSearchContext(Collections.unmodifiableList(pool), pinnedList, config, task,
+                                                      incumbentCallback, startNanos);
+        liveStats = run.stats;
+        initializeLowerBound(run, pinnedList);
+        if (run.constraints != null) {
+            // The greedy team rarely meets the team rules; a short beam that prunes on them usually does
+            new BeamSearchStrategy(RULES_SEED_WIDTH).beam(run, pinnedList, k, null);
+        }
+        int seeds = cache.warmStart(run, fusions);
+        if (seeds > 0) System.out.println("Warm start from " + seeds + " previous teams, incumbent " + run.bestScore());
+
+        TeamSearchStrategy strategy;
+        if (resume) {
+            TeamSearchCheckpoint checkpoint = new TeamSearchCheckpoint(config.checkpointPath);
+            TeamSearchCheckpoint.Resume saved = checkpoint.read(run, fusions);
+            System.out.println("Checkpoint: " + saved.finished.cardinality() + " of " + pool.size() + " branches done, "
+                + saved.partial.size() + " partly, in " + saved.searchedMillis + "ms; incumbent " + run.bestScore());
+            // Checkpoints come from the exact search, which is also what resumes them
+            strategy = new BranchAndBoundStrategy(checkpoint, saved);
+        } else {
+            strategy = selectStrategy(config, pool.size());
+        }
+        System.out.println("Search strategy: " + strategy.getName());
+        boolean proven = strategy.search(run, progressCallback);
+
+        long duration = System.currentTimeMillis() - startTime;
+        double best = run.bestScore();
+        double upperBound = proven ? best : Math.max(best, run.openBound.get());
+        System.out.println("Search " + (proven ? "finished" : "stopped") + " in " + duration + "ms. Best Score: " 
+            + best + (proven ? "" : " (upper bound " + upperBound + ")"));
+
+        Team bestTeam = run.bestTeam();
+        List<Team> teams = bestTeam != null ? Collections.singletonList(bestTeam) : new ArrayList<>();
+        run.stats.finish();
+        System.out.println(run.stats.format());
+        TeamSearchResult result = new TeamSearchResult(teams, upperBound, proven, run.stats);
+        cache.put(cacheKey, result);
+        return result;
+    }
+
+    /**
+     * The candidate pool every search runs on: hard-banned and rule-excluded fusions
+     * and the pins removed, sorted best-first, dominated variants dropped.
+     */
+    private List<Fusion> preparePool(List<Fusion> fusions, List<Fusion> pinnedList, TeamBuildConfig config) {
+        List<Fusion> pool = filteredPool(fusions, config);
+        pool.removeAll(pinnedList);
 
+        int n0 = pool.size();
+        pool = reduceDominated(pool, 6 - pinnedList.size(), config);
+        System.out.println("Pool reduced from " + n0 + " to " + pool.size() + " non-dominated candidates");
+        return pool;
+    }
+
+    /**
+     * The prepared pool for a search without pins, without logging; the roster
+     * optimizer builds one per candidate roster.
+     */
+    List<Fusion> candidatePool(List<Fusion> fusions, TeamBuildConfig config) {
+        return reduceDominated(filteredPool(fusions, config), 6, config);
+    }
+
+    private List<Fusion> filteredPool(List<Fusion> fusions, TeamBuildConfig config) {
         List<Fusion> pool = new ArrayList<>(fusions);
         
         // Hard Filter: Self Fusion only if set to 100 (Hard Ban)
         if (config.selfFusionClauseVal == 100) {
             pool.removeIf(f -> f.headName.equalsIgnoreCase(f.bodyName));
         }
+        // Team rules that exclude fusions outright shrink the pool before anything else
+        if (!config.constraints.isEmpty()) {
+            pool.removeIf(f -> !config.constraints.admits(f));
+        }
         
-        pool.sort((a, b) -> Double.compare(b.score, a.score));
+        // Ties broken by content, so the same fusions always give the same pool order
+        // (checkpoints refer to branches by position)
+        pool.sort(Comparator.comparingDouble((Fusion f) -> f.score).reversed()
+            .thenComparing(TeamSearchCache::identity).thenComparing(f -> f.typing));
+        return pool;
+    }
 
-        List<Fusion> pinnedList = pinnedFusions != null ? new ArrayList<>(pinnedFusions) : new ArrayList<>();
-        pool.removeAll(pinnedList);
-        
-        if (pool.size() > SEARCH_POOL_LIMIT) {
-            pool = new ArrayList<>(pool.subList(0, SEARCH_POOL_LIMIT));
+    /**
+     * Finds {@code teamCount} teams that share no species (head or body) and whose
+     * summed score is as high as possible, e.g. one team per player. Every team is
+     * scored and constrained like a single search; the result lists the teams best
+     * first, and its upper bound refers to their total.
+     */
+    public TeamSearchResult buildDisjointTeams(List<Fusion> fusions, TeamBuildConfig config, int teamCount,
+                                               TaskController task, BiConsumer<Integer, Integer> progressCallback) {
+        System.out.println("Starting search for " + teamCount + " species-disjoint teams...");
+        long startNanos = System.nanoTime();
+        List<Fusion> pool = preparePool(fusions, Collections.emptyList(), config);
+        TeamSearchResult result = new DisjointTeamSearch(this, pool, config, teamCount, task, startNanos).search(progressCallback);
+        System.out.println((result.complete ? "Disjoint search finished" : "Disjoint search ended without proof") + " in "
+            + result.stats.getElapsedMillis() + "ms. Total: " + result.getTotalScore()
+            + (result.complete ? "" : " (upper bound " + result.upperBound + ")"));
+        System.out.println(result.stats.format());
+        return result;
+    }
+
+    /**
+     * One single-team search over a pool that is already prepared (and has no pins),
+     * as run repeatedly by the disjoint-teams search. Teams must score above
+     * {@code floor} to be reported; the result is empty when none does.
+     */
+    TeamSearchResult searchPrepared(List<Fusion> pool, TeamBuildConfig config, TaskController task, double floor) {
+        TeamSearchContext run = new TeamSearchContext(Collections.unmodifiableList(pool), Collections.emptyList(), config,
+                                                      task, null, System.nanoTime());
+        run.adoptRemoteScore(floor);
+        initializeLowerBound(run, run.pinned);
+        if (run.constraints != null) new BeamSearchStrategy(RULES_SEED_WIDTH).beam(run, run.pinned, 6, null);
+        boolean proven = selectStrategy(config, pool.size()).search(run, (current, total) -> {});
+        run.stats.finish();
+        Team best = run.bestTeam();
+        double upperBound = proven ? run.bestScore() : Math.max(run.bestScore(), run.openBound.get());
+        return new TeamSearchResult(best != null ? Collections.singletonList(best) : new ArrayList<>(),
+                                    upperBound, proven, run.stats);
+    }
+
+    /**
+     * Chooses the {@code rosterSize} species among the candidates whose fusions give
+     * the best team under the config, within its time budget (without one, the first
+     * roster no single-species swap improves). Fusions are taken from and added to
+     * {@code pairs}, so a later run with the same scoring weights reuses them.
+     */
+    public RosterOptimizer.Result optimizeRoster(List<Pokemon> candidates, int rosterSize, RosterOptimizer.PairCache pairs,
+                                                 TeamBuildConfig config, TaskController task,
+                                                 BiConsumer<Integer, Integer> progressCallback) {
+        System.out.println("Optimizing a roster of " + rosterSize + " from " + candidates.size() + " species...");
+        long startNanos = System.nanoTime();
+        RosterOptimizer.Result result = new RosterOptimizer(this, pairs, candidates, rosterSize, config, task, startNanos)
+            .optimize(progressCallback);
+        System.out.println("Roster optimizer: " + result.evaluated + " rosters searched, " + result.pruned
+            + " skipped by bound, " + result.pairsCalculated + " pairs calculated, in "
+            + (System.nanoTime() - startNanos) / 1_000_000 + "ms. Best Score: "
+            + (result.team != null ? result.team.realScore : "none"));
+        return result;
+    }
+
+    /**
+     * The best team at every checkpoint of the game, using only the species of
+     * {@code species} that can be had by then. Fusions are taken from and added to
+     * {@code pairs}; the time budget covers all checkpoints together.
+     */
+    public List<ProgressionSearch.Stage> buildProgressionTeams(List<Pokemon> species, GameProgression progression,
+                                                               PokedexDatabase dex, RosterOptimizer.PairCache pairs,
+                                                               TeamBuildConfig config, TaskController task,
+                                                               BiConsumer<Integer, Integer> progressCallback) {
+        System.out.println("Searching the best team at " + progression.size() + " checkpoints from " + species.size() + " species...");
+        long startNanos = System.nanoTime();
+        List<BitSet> availability = progression.availability(species, dex);
+        List<ProgressionSearch.Stage> stages = new ProgressionSearch(this, pairs, species, progression.getCheckpoints(),
+            availability, config, task, startNanos).search(progressCallback);
+        System.out.println("Progression search finished in " + (System.nanoTime() - startNanos) / 1_000_000 + "ms, "
+            + pairs.size() + " pairs calculated");
+        return stages;
+    }
+
+    /**
+     * The best team against a known opponent team: every fusion's score is blended
+     * with its matchup against the opponents ({@code weight} 0 = plain score, 1 = only
+     * the matchup) and the usual search runs on that. The result's team holds the
+     * original fusions.
+     */
+    public CounterSearch.Result buildCounterTeam(List<Fusion> fusions, List<Fusion> opponents, double weight,
+                                                 TeamBuildConfig config, TaskController task,
+                                                 BiConsumer<Integer, Integer> progressCallback) {
+        long start = System.nanoTime();
+        double[] matchups = new CounterSearch(opponents).matchups(fusions);
+        System.out.println("Scored " + fusions.size() + " fusions against " + opponents.size() + " opponents in "
+            + (System.nanoTime() - start) / 1_000_000 + "ms");
+        List<Fusion> blended = CounterSearch.blend(fusions, matchups, weight);
+        // By content, as a search cache hit answers with the fusions of an earlier, equal blend
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < blended.size(); i++) index.put(TeamSearchCache.identity(blended.get(i)), i);
+
+        TeamSearchResult result = buildTeams(blended, Collections.emptySet(), config, task, progressCallback);
+        if (result.teams.isEmpty()) return new CounterSearch.Result(null, result.getBestScore(), 0, result);
+        Team best = result.teams.get(0), team = new Team();
+        double matchup = 0;
+        for (Fusion f : best.members) {
+            int i = index.get(TeamSearchCache.identity(f));
+            team.members.add(fusions.get(i));
+            matchup += matchups[i];
         }
-        
-        initializeLowerBound(pool, pinnedList, config);
+        team.recalculateRealScore(config);
+        return new CounterSearch.Result(team, best.realScore, matchup / team.members.size(), result);
+    }
 
-        int n = pool.size();
-        int k = 6 - pinnedList.size(); 
+    /**
+     * The best {@code limit} one-member replacements for a team from the given
+     * fusions (and two-member ones when {@code pairs} is set) that raise its score
+     * under the config, largest gain first; empty when nothing improves it.
+     */
+    public List<SwapSuggester.Swap> suggestSwaps(List<Fusion> team, List<Fusion> fusions, TeamBuildConfig config,
+                                                 int limit, boolean pairs) {
+        long start = System.currentTimeMillis();
+        List<SwapSuggester.Swap> swaps = new SwapSuggester(config).suggest(team, fusions, limit, pairs);
+        System.out.println("Swap suggestions: " + swaps.size() + " improving swaps among " + fusions.size()
+            + " fusions in " + (System.currentTimeMillis() - start) + "ms");
+        return swaps;
+    }
 
-        if (k <= 0) {
-            Team t = new Team();
-            t.members.addAll(pinnedList.subList(0, 6));
-            t.recalculateRealScore();
-            return Collections.singletonList(t);
+    private TeamSearchStrategy selectStrategy(TeamBuildConfig config, int poolSize) {
+        switch (config.strategy) {
+            case EXACT: return new BranchAndBoundStrategy(config);
+            case MITM: return new MeetInTheMiddleStrategy();
+            case BEAM: return new BeamSearchStrategy(config.beamWidth);
+            case LNS: return new LargeNeighborhoodStrategy(config.beamWidth);
+            case DISTRIBUTED: return new DistributedSearchStrategy(this, config.localWorkers, config.coordinatorPort,
+                                                                 config.coordinatorAddress);
+            default:
+                return poolSize <= AUTO_EXACT_LIMIT || config.timeBudgetMs <= 0 ? new BranchAndBoundStrategy(config) 
+                                                                            : new LargeNeighborhoodStrategy(config.beamWidth);
         }
+    }
 
-        int cores = Runtime.getRuntime().availableProcessors();
-        ForkJoinPool threadPool = new ForkJoinPool(cores);
-        AtomicInteger completedBranches = new AtomicInteger(0);
-        
-        final List<Fusion> finalPool = Collections.unmodifiableList(pool);
+    /**
+     * The exact search: every first-level candidate becomes a BranchTask on the
+     * shared pool, and large subtrees split further as they are discovered.
+     */
+    private class BranchAndBoundStrategy implements TeamSearchStrategy {
+        // Where progress is saved, null without checkpoints; and what an earlier run already finished
+        private final TeamSearchCheckpoint checkpoint;
+        private final TeamSearchCheckpoint.Resume resumed;
 
-        try {
-            threadPool.submit(() -> 
-                IntStream.range(0, finalPool.size()).parallel().forEach(i -> {
-                    if (task.isCancelled()) return;
-
-                    double currentBase = 0;
-                    for(Fusion p : pinnedList) currentBase += p.score;
-                    currentBase += finalPool.get(i).score;
-                    
-                    if (canPrune(currentBase, i, k - 1, finalPool)) {
-                        completedBranches.incrementAndGet();
-                        return; 
+        BranchAndBoundStrategy(TeamBuildConfig config) {
+            this(config.checkpointPath != null ? new TeamSearchCheckpoint(config.checkpointPath) : null, null);
+        }
+
+        BranchAndBoundStrategy(TeamSearchCheckpoint checkpoint, TeamSearchCheckpoint.Resume resumed) {
+            this.checkpoint = checkpoint;
+            this.resumed = resumed;
+        }
+
+        @Override
+        public String getName() {
+            return "Branch and Bound (exact)" + (resumed != null ? ", resumed" : "");
+        }
+
+        @Override
+        public boolean search(TeamSearchContext run, BiConsumer<Integer, Integer> progressCallback) {
+            int n = run.pool.size();
+            AtomicInteger completedBranches = new AtomicInteger(0);
+            // Per first-level branch: WAITING, RUNNING or FINISHED
+            AtomicIntegerArray rootState = new AtomicIntegerArray(n);
+            long searchedBefore = resumed != null ? resumed.searchedMillis : 0;
+
+            long pinnedWeak = DefensiveCoverage.count(run.pinned);
+            RootBranch[] branches = new RootBranch[n];
+            List<BranchTask> roots = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (resumed != null && resumed.finished.get(i)) {
+                    rootState.set(i, FINISHED);
+                    completedBranches.incrementAndGet();
+                    continue;
+                }
+                Fusion first = run.pool.get(i);
+                final int root = i;
+                branches[i] = new RootBranch(resumed != null ? resumed.partial.get(i) : null,
+                    () -> rootState.set(root, RUNNING),
+                    () -> {
+                        rootState.set(root, FINISHED);
+                        progressCallback.accept(completedBranches.incrementAndGet(), n);
+                    });
+                roots.add(new BranchTask(run, extend(run.pinned, first), run.pinnedBase + first.score,
+                    DefensiveCoverage.add(pinnedWeak, first.weaknessMask), i, branches[i], ROOT));
+            }
+
+            ForkJoinTask<Long> search = SEARCH_POOL.submit(() -> {
+                long total = 0;
+                for (BranchTask t : ForkJoinTask.invokeAll(roots)) total += t.join();
+                return total;
+            });
+            // While the workers search, this thread samples what is left of the tree
+            SplittableRandom rnd = new SplittableRandom(n);
+            BitSet prunedRoots = new BitSet(n);
+            double smoothed = -1;
+            long lastCheckpoint = System.nanoTime();
+            // Closing the app stops the search, and waits briefly for the last checkpoint
+            CountDownLatch saved = new CountDownLatch(1);
+            Thread onExit = checkpoint == null ? null : new Thread(() -> {
+                run.task.cancel();
+                try {
+                    saved.await(CHECKPOINT_EXIT_WAIT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ignored) {}
+            });
+            if (onExit != null) Runtime.getRuntime().addShutdownHook(onExit);
+            try {
+                while (true) {
+                    try {
+                        search.get(ESTIMATE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        double estimate = estimateRemaining(run, rootState, branches, prunedRoots, rnd);
+                        // Walk estimates are heavy-tailed and shrink by orders of magnitude as the
+                        // incumbent improves, so smooth them geometrically
+                        smoothed = smoothed < 0 ? estimate : Math.sqrt((smoothed + 1) * (estimate + 1)) - 1;
+                        run.stats.setRemainingEstimate((long) smoothed);
+                        progressCallback.accept(completedBranches.get(), n);
+                        if (checkpoint != null && System.nanoTime() - lastCheckpoint > CHECKPOINT_INTERVAL_MS * 1_000_000L) {
+                            saveCheckpoint(run, rootState, branches, searchedBefore);
+                            lastCheckpoint = System.nanoTime();
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        break;
+                    }
+                }
+                if (checkpoint != null) {
+                    if (run.stopped) {
+                        saveCheckpoint(run, rootState, branches, searchedBefore);
+                        System.out.println("Checkpoint saved to " + checkpoint.getFile() + " (" + completedBranches.get() + " of " + n + " branches done)");
+                    } else {
+                        checkpoint.delete();
                     }
+                }
+            } finally {
+                saved.countDown();
+                if (onExit != null) {
+                    try {
+                        Runtime.getRuntime().removeShutdownHook(onExit);
+                    } catch (IllegalStateException alreadyExiting) {
+                        // The hook is running and waits for the latch released above
+                    }
+                }
+            }
+            return !run.stopped;
+        }
 
-                    List<Fusion> currentMembers = new ArrayList<>(pinnedList);
-                    currentMembers.add(finalPool.get(i));
-                    
-                    solveBranch(finalPool, currentMembers, currentBase, i, config, task);
-                    
-                    int done = completedBranches.incrementAndGet();
-                    progressCallback.accept(done, n);
-                })
-            ).get();
-            
-        } catch (Exception e) {
-            e.printStackTrace();
+        /**
+         * Saves finished first-level branches, and the finished children of the others.
+         * Both are read before the checkpoint reads the incumbent, so every team they
+         * found is covered by it.
+         */
+        private void saveCheckpoint(TeamSearchContext run, AtomicIntegerArray rootState, RootBranch[] branches,
+                                    long searchedBefore) {
+            BitSet finished = new BitSet(branches.length);
+            Map<Integer, BitSet> partial = new TreeMap<>();
+            for (int i = 0; i < branches.length; i++) {
+                if (rootState.get(i) == FINISHED) {
+                    finished.set(i);
+                } else {
+                    BitSet children = branches[i].childrenDone();
+                    if (!children.isEmpty()) partial.put(i, children);
+                }
+            }
+            try {
+                checkpoint.write(run, finished, partial, searchedBefore + run.stats.getElapsedMillis());
+            } catch (IOException e) {
+                // A failed checkpoint costs durability, not the search
+                System.out.println("Could not write checkpoint " + checkpoint.getFile() + ": " + e.getMessage());
+            }
         }
 
-        long duration = System.currentTimeMillis() - startTime;
-        System.out.println("Search finished in " + duration + "ms. Best Score: " + globalMaxScore);
+        /**
+         * Knuth's estimator: a random root-to-leaf walk that multiplies the branching
+         * factors it sees estimates the size of the tree below its start. Walks start
+         * from first-level branches not finished yet, and follow the same validity
+         * and pruning rules as the search, against the current incumbent. Running
+         * branches are few but hold most of the work, so they are sampled separately
+         * from the waiting ones, and from their children not yet searched to the end,
+         * plus the tasks still queued below those: walking from the branch root would
+         * count work already done and miss where the rest of it sits.
+         */
+        private double estimateRemaining(TeamSearchContext run, AtomicIntegerArray rootState, RootBranch[] branches,
+                                         BitSet prunedRoots, SplittableRandom rnd) {
+            List<Fusion> pool = run.pool;
+            int[] waiting = new int[pool.size()], children = new int[pool.size()], open = new int[pool.size()];
+            int waitingCount = 0;
+            double remaining = 0;
+            for (int i = 0; i < rootState.length(); i++) {
+                int state = rootState.get(i);
+                if (state == WAITING) {
+                    waiting[waitingCount++] = i;
+                } else if (state == RUNNING) {
+                    Fusion root = pool.get(i);
+                    List<Fusion> team = extend(run.pinned, root);
+                    BitSet done = branches[i].childrenDone();
+                    int openCount = 0;
+                    for (int c = i + 1; c < pool.size(); c++) if (!done.get(c)) open[openCount++] = c;
+                    // Tasks queued below started children are visited at least once each
+                    remaining += 1 + branches[i].nestedQueued()
+                        + sample(run, team, run.pinnedBase + root.score, open, openCount, branches[i].boundPruned, children, rnd);
+                }
+            }
+            return remaining + sample(run, new ArrayList<>(run.pinned), run.pinnedBase, waiting, waitingCount, prunedRoots,
+                                      children, rnd);
+        }
 
-        if (globalBestTeam != null) {
-            return Collections.singletonList(globalBestTeam);
+        /**
+         * Nodes left below {@code team} through the first {@code count} pool indices in
+         * {@code candidates}. Each is checked against the bound as the search will:
+         * pruned ones count once, and are remembered in {@code pruned} since a better
+         * incumbent never brings them back; walks start only from the rest and their
+         * mean is scaled by how many there are. Near the end nearly every candidate
+         * prunes and the work sits in the few that do not, which uniform walks miss.
+         */
+        private double sample(TeamSearchContext run, List<Fusion> team, double base, int[] candidates, int count,
+                              BitSet pruned, int[] children, SplittableRandom rnd) {
+            List<Fusion> pool = run.pool;
+            double estimate = 0;
+            int[] live = new int[count];
+            int liveCount = 0;
+            for (int k = 0; k < count; k++) {
+                int i = candidates[k];
+                if (pruned.get(i)) {
+                    estimate++;
+                    continue;
+                }
+                Fusion f = pool.get(i);
+                if (!isValidAddition(team, f, run.config)) {
+                    // Rejected before it is visited, and for good
+                    pruned.set(i);
+                    continue;
+                }
+                team.add(f);
+                if (canPrune(run, base + f.score, team, i, 6 - team.size())) {
+                    pruned.set(i);
+                    estimate++;
+                } else {
+                    live[liveCount++] = i;
+                }
+                team.remove(team.size() - 1);
+            }
+            if (liveCount == 0) return estimate;
+            double sum = 0;
+            for (int p = 0; p < ESTIMATE_PROBES; p++) {
+                int i = live[rnd.nextInt(liveCount)];
+                Fusion f = pool.get(i);
+                sum += walk(run, extend(team, f), base + f.score, i, children, rnd);
+            }
+            return estimate + sum / ESTIMATE_PROBES * liveCount;
         }
-        return new ArrayList<>();
+
+        /**
+         * One random walk down from a partial team whose last member is pool entry
+         * {@code lastIndex}; {@code team} is extended in place. Every valid child is
+         * visited, but only those the bound keeps have anything below them, so the
+         * walk counts the first and steps into one of the second.
+         */
+        private double walk(TeamSearchContext run, List<Fusion> team, double base, int lastIndex, int[] children,
+                            SplittableRandom rnd) {
+            List<Fusion> pool = run.pool;
+            if (team.size() < 6 && canPrune(run, base, team, lastIndex, 6 - team.size())) return 1;
+            double estimate = 1, weight = 1;
+            while (team.size() < 6) {
+                int visited = 0, kept = 0;
+                for (int i = lastIndex + 1; i < pool.size(); i++) {
+                    Fusion f = pool.get(i);
+                    if (!isValidAddition(team, f, run.config)) continue;
+                    visited++;
+                    if (team.size() == 5) continue;
+                    team.add(f);
+                    if (!canPrune(run, base + f.score, team, i, 6 - team.size())) children[kept++] = i;
+                    team.remove(team.size() - 1);
+                }
+                estimate += weight * visited;
+                if (kept == 0) break;
+                weight *= kept;
+                lastIndex = children[rnd.nextInt(kept)];
+                team.add(pool.get(lastIndex));
+                base += pool.get(lastIndex).score;
+            }
+            return estimate;
+        }
+    }
+
+    /**
+     * Drops ability variants that can never do better than a sibling variant.
+     * calculateDelta and isValidAddition only look at species, typing, self-fusion
+     * and role, so two variants sharing all of those are interchangeable in any team
+     * and only the higher score matters. We keep the best {@code slots} of each such
+     * group (or just one when the species clause is a hard ban, since two members with
+     * the same species can never coexist), which keeps the search exact.
+     */
+    private List<Fusion> reduceDominated(List<Fusion> sortedPool, int slots, TeamBuildConfig config) {
+        int keep = config.speciesClauseVal == 100 ? 1 : Math.max(1, slots);
+        Map<String, Integer> kept = new HashMap<>();
+        List<Fusion> reduced = new ArrayList<>();
+
+        // Pool is sorted best-first, so the first variants seen per footprint are the dominant ones
+        for (Fusion f : sortedPool) {
+            int seen = kept.merge(footprint(f, config), 1, Integer::sum);
+            if (seen <= keep) reduced.add(f);
+        }
+        return reduced;
+    }
+
+    static String footprint(Fusion f, TeamBuildConfig config) {
+        String head = f.headName.toLowerCase();
+        String body = f.bodyName.toLowerCase();
+        String species = head.compareTo(body) <= 0 ? head + "+" + body : body + "+" + head;
+        String[] types = f.typing.split("/");
+        Arrays.sort(types);
+        String footprint = species + "|" + String.join("/", types) + "|" + f.role;
+        // Abilities that change weaknesses stop being interchangeable once defense counts
+        if (config.defensiveClauseVal > 0) footprint += "|" + f.weaknessMask;
+        // Nor are variants that the team rules tell apart
+        return config.constraints.isEmpty() ? footprint : footprint + "|" + config.constraints.signature(f);
+    }
+
+    public void setSplitThreshold(long estimatedLeaves) {
+        this.splitThreshold = Math.max(1, estimatedLeaves);
+    }
+
+    public void clearSearchCache() {
+        cache.clear();
     }
 
-    private void initializeLowerBound(List<Fusion> pool, List<Fusion> pinned, TeamBuildConfig config) {
+    public TeamSearchStats getLiveStats() {
+        return liveStats;
+    }
+
+    private void initializeLowerBound(TeamSearchContext run, List<Fusion> pinned) {
         Team greedyTeam = new Team();
         greedyTeam.members.addAll(pinned);
         
-        for (Fusion candidate : pool) {
+        for (Fusion candidate : run.pool) {
             if (greedyTeam.members.size() >= 6) break;
-            if (isValidAddition(greedyTeam.members, candidate, config)) {
+            if (isValidAddition(greedyTeam.members, candidate, run.config)) {
                 greedyTeam.members.add(candidate);
             }
         }
         
         if (greedyTeam.members.size() == 6) {
-            double score = calculateTotalScore(greedyTeam.members, config);
-            updateGlobalBest(score, greedyTeam);
+            double baseSum = greedyTeam.members.stream().mapToDouble(f -> f.score).sum();
+            run.offer(baseSum, greedyTeam.members, calculateDelta(greedyTeam.members, run.config));
         }
     }
 
-    private void solveBranch(List<Fusion> pool, List<Fusion> currentTeam, double currentBaseScore, 
-                             int lastIndex, TeamBuildConfig config, TaskController task) {
-        
-        if (task.isCancelled()) return;
+    /**
+     * Depth-first search below a partial team. {@code weakness} carries the team's
+     * DefensiveCoverage counters so candidates are checked without rescanning the team.
+     */
+    private long solveBranch(TeamSearchContext run, List<Fusion> currentTeam, double currentBaseScore, long weakness, int lastIndex) {
+        TeamScorer scorer = new TeamScorer(run.config);
+        scorer.set(currentTeam);
+        return solveBranch(run, currentTeam, currentBaseScore, scorer, weakness, lastIndex);
+    }
 
+    /**
+     * The recursion itself; {@code scorer} holds the current team and follows every
+     * member added and removed, so leaves and bounds are scored without a rescan.
+     */
+    private long solveBranch(TeamSearchContext run, List<Fusion> currentTeam, double currentBaseScore, TeamScorer scorer,
+                             long weakness, int lastIndex) {
         if (currentTeam.size() == 6) {
-            double delta = calculateDelta(currentTeam, config);
-            double finalScore = currentBaseScore + delta;
-            
-            Team t = new Team();
-            t.members.addAll(currentTeam);
-            t.realScore = finalScore;
-            // Store the "delta" specifically for the UI to display the bonus/penalty
-            t.balanceBonus = delta; 
-            
-            updateGlobalBest(finalScore, t);
-            return;
+            run.stats.expanded(6);
+            run.offer(currentBaseScore, currentTeam, scorer.delta());
+            return 1;
         }
 
         int slotsRemaining = 6 - currentTeam.size();
         
-        if (lastIndex + 1 >= pool.size()) return;
-        if (canPrune(currentBaseScore, lastIndex, slotsRemaining, pool)) return;
+        if (run.shouldStop()) {
+            run.abandon(ceiling(run, currentBaseScore, currentTeam, lastIndex, slotsRemaining, scorer));
+            return 1;
+        }
+        if (canPrune(run, currentBaseScore, currentTeam, lastIndex, slotsRemaining, scorer)) {
+            run.stats.pruned(currentTeam.size());
+            return 1;
+        }
+        run.stats.expanded(currentTeam.size());
 
+        List<Fusion> pool = run.pool;
+        long nodes = 1;
         for (int i = lastIndex + 1; i < pool.size(); i++) {
             Fusion candidate = pool.get(i);
 
-            if (!isValidAddition(currentTeam, candidate, config)) continue;
+            if (!isValidAddition(currentTeam, weakness, candidate, run.config)) {
+                run.stats.rejected();
+                continue;
+            }
 
             currentTeam.add(candidate);
-            solveBranch(pool, currentTeam, currentBaseScore + candidate.score, i, config, task);
+            scorer.add(candidate);
+            nodes += solveBranch(run, currentTeam, currentBaseScore + candidate.score, scorer,
+                                 DefensiveCoverage.add(weakness, candidate.weaknessMask), i);
+            scorer.remove(candidate);
             currentTeam.remove(currentTeam.size() - 1);
+
+            if (run.stopped) {
+                // Siblings after i are never visited; one ceiling covers all of them
+                run.abandon(ceiling(run, currentBaseScore, currentTeam, i, slotsRemaining, scorer));
+                break;
+            }
         }
+        return nodes;
     }
 
-    private boolean canPrune(double currentBase, int lastIndex, int slotsRemaining, List<Fusion> pool) {
-        double maxFutureBase = 0;
-        int count = 0;
-        
-        for (int i = lastIndex + 1; i < pool.size() && count < slotsRemaining; i++) {
-            maxFutureBase += pool.get(i).score;
-            count++;
+    /**
+     * Rough leaf count of the subtree below a node: choosing the remaining slots
+     * from the candidates after it. Pruning makes the real tree far smaller, but
+     * the ratio between siblings is what decides where it is worth splitting.
+     */
+    private static double estimateSubtree(int candidatesLeft, int slotsRemaining) {
+        double leaves = 1;
+        for (int s = 0; s < slotsRemaining; s++) {
+            leaves = leaves * (candidatesLeft - s) / (s + 1);
         }
-        
-        if (count < slotsRemaining) return true;
-
-        double theoreticalCeiling = currentBase + maxFutureBase + MAX_POSSIBLE_DELTA;
-        return theoreticalCeiling <= globalMaxScore;
+        return Math.max(0, leaves);
     }
 
-    private synchronized void updateGlobalBest(double score, Team team) {
-        if (score > globalMaxScore) {
-            globalMaxScore = score;
-            globalBestTeam = new Team();
-            globalBestTeam.members.addAll(team.members);
-            globalBestTeam.realScore = score;
-            globalBestTeam.balanceBonus = team.balanceBonus;
+    /**
+     * Bookkeeping of one first-level branch of the exact search: its state for the
+     * progress bar and estimator, which of its children are searched to the end, so
+     * a checkpoint can save a branch that is only partly done, and how many tasks
+     * forked below those children have not started yet.
+     */
+    private static final class RootBranch {
+        // Children finished before this run started; never changes
+        private final BitSet resumed;
+        private final BitSet done = new BitSet();
+        private final AtomicLong nestedQueued = new AtomicLong();
+        // Children the estimator found pruned by the bound; only its thread uses this
+        private final BitSet boundPruned = new BitSet();
+        private final Runnable onStart, onFinish;
+
+        RootBranch(BitSet resumed, Runnable onStart, Runnable onFinish) {
+            this.resumed = resumed != null ? resumed : new BitSet();
+            this.done.or(this.resumed);
+            this.onStart = onStart;
+            this.onFinish = onFinish;
+        }
+
+        void started() {
+            onStart.run();
+        }
+
+        void finished() {
+            onFinish.run();
+        }
+
+        boolean wasResumed(int child) {
+            return resumed.get(child);
+        }
+
+        synchronized void childDone(int child) {
+            done.set(child);
+        }
+
+        synchronized BitSet childrenDone() {
+            return (BitSet) done.clone();
+        }
+
+        void nestedForked() {
+            nestedQueued.incrementAndGet();
+        }
+
+        void nestedStarted() {
+            nestedQueued.decrementAndGet();
         }
-    }
 
-    private double calculateTotalScore(List<Fusion> members, TeamBuildConfig config) {
-        double baseSum = members.stream().mapToDouble(f -> f.score).sum();
-        return baseSum + calculateDelta(members, config);
+        long nestedQueued() {
+            return nestedQueued.get();
+        }
     }
 
-    private double calculateDelta(List<Fusion> members, TeamBuildConfig config) {
-        double delta = 0.0;
+    /**
+     * One node of the search tree. Children whose subtree is estimated to be large
+     * are forked so idle workers can steal them; small ones are searched inline.
+     * Returns the number of nodes it expanded.
+     */
+    @SuppressWarnings("serial") // never serialized; ForkJoinTask is Serializable only by inheritance
+    private class BranchTask extends RecursiveTask<Long> {
+        private final TeamSearchContext run;
+        private final List<Fusion> team;
+        private final double base;
+        private final long weakness;
+        private final int lastIndex;
+        // Set on a first-level branch (child ROOT), its forked children (child = their pool index)
+        // and the tasks forked below those (child NESTED)
+        private final RootBranch root;
+        private final int child;
 
-        // 1. Species Clause (Slider Logic)
-        if (config.speciesClauseVal > 0) {
-            Set<String> species = new HashSet<>();
-            int dupes = 0;
-            for (Fusion f : members) {
-                if (!species.add(f.headName.toLowerCase())) dupes++;
-                if (!species.add(f.bodyName.toLowerCase())) dupes++;
-            }
-            if (dupes > 0) {
-                // If Slider is < 100, it's a soft penalty. If 100, we shouldn't be here (pruned earlier).
-                double weight = config.speciesClauseVal / 20.0; // 0.0 to 5.0
-                delta -= (dupes * weight);
+        BranchTask(TeamSearchContext run, List<Fusion> team, double base, long weakness, int lastIndex,
+                   RootBranch root, int child) {
+            this.run = run;
+            this.team = team;
+            this.base = base;
+            this.weakness = weakness;
+            this.lastIndex = lastIndex;
+            this.root = root;
+            this.child = child;
+        }
+
+        private boolean isRoot() {
+            return root != null && child == ROOT;
+        }
+
+        @Override
+        protected Long compute() {
+            if (isRoot()) root.started();
+            else if (root != null && child == NESTED) root.nestedStarted();
+            long nodes = expand();
+            // A branch cut short by a stop is not finished, whatever the progress bar says
+            if (root != null && !run.stopped) {
+                if (isRoot()) root.finished();
+                else if (child >= 0) root.childDone(child);
             }
+            return nodes;
         }
 
-        // 2. Type Sharing (Slider Logic)
-        if (config.typeClauseVal > 0) {
-            Map<String, Integer> typeCounts = new HashMap<>();
-            for (Fusion f : members) {
-                String[] types = f.typing.contains("/") ? f.typing.split("/") : new String[]{f.typing};
-                for(String t : types) {
-                    typeCounts.put(t, typeCounts.getOrDefault(t, 0) + 1);
-                }
+        private long expand() {
+            // A first-level candidate may clash with the pinned members
+            if (isRoot() && !isValidAddition(team.subList(0, team.size() - 1), team.get(team.size() - 1), run.config)) return 1;
+
+            List<Fusion> pool = run.pool;
+            int slotsRemaining = 6 - team.size();
+            if (slotsRemaining == 0 || estimateSubtree(pool.size() - lastIndex - 1, slotsRemaining) <= splitThreshold) {
+                long start = System.nanoTime();
+                long nodes = solveBranch(run, team, base, weakness, lastIndex);
+                run.stats.recordWork(System.nanoTime() - start, nodes);
+                return nodes;
             }
-            int violations = 0;
-            for (int count : typeCounts.values()) {
-                if (count > 2) violations += (count - 2);
+            if (run.shouldStop()) {
+                run.abandon(ceiling(run, base, team, lastIndex, slotsRemaining));
+                return 1;
             }
-            if (violations > 0) {
-                double weight = config.typeClauseVal / 20.0;
-                delta -= (violations * weight);
+            if (canPrune(run, base, team, lastIndex, slotsRemaining)) {
+                run.stats.pruned(team.size());
+                return 1;
             }
-        }
-        
-        // 3. Self Fusion (Soft Penalty if not hard banned)
-        if (config.selfFusionClauseVal > 0 && config.selfFusionClauseVal < 100) {
-            for(Fusion f : members) {
-                if (f.headName.equalsIgnoreCase(f.bodyName)) {
-                    double weight = config.selfFusionClauseVal / 20.0;
-                    delta -= weight;
+            run.stats.expanded(team.size());
+
+            long nodes = 1;
+            long inlineNanos = 0, inlineNodes = 0;
+            List<BranchTask> forked = new ArrayList<>();
+            for (int i = lastIndex + 1; i < pool.size(); i++) {
+                // Searched to the end by the run this one resumes
+                if (isRoot() && root.wasResumed(i)) continue;
+                Fusion candidate = pool.get(i);
+                if (!isValidAddition(team, weakness, candidate, run.config)) {
+                    run.stats.rejected();
+                    continue;
+                }
+
+                long childWeakness = DefensiveCoverage.add(weakness, candidate.weaknessMask);
+                if (estimateSubtree(pool.size() - i - 1, slotsRemaining - 1) > splitThreshold) {
+                    BranchTask child = new BranchTask(run, extend(team, candidate), base + candidate.score, childWeakness, i,
+                                                      root, isRoot() ? i : NESTED);
+                    if (root != null && !isRoot()) root.nestedForked();
+                    child.fork();
+                    forked.add(child);
+                } else {
+                    long start = System.nanoTime();
+                    team.add(candidate);
+                    long n = solveBranch(run, team, base + candidate.score, childWeakness, i);
+                    team.remove(team.size() - 1);
+                    inlineNanos += System.nanoTime() - start;
+                    inlineNodes += n;
+                    if (isRoot() && !run.stopped) root.childDone(i);
+                }
+
+                if (run.stopped) {
+                    run.abandon(ceiling(run, base, team, i, slotsRemaining));
+                    break;
                 }
             }
+            run.stats.recordWork(inlineNanos, inlineNodes);
+            nodes += inlineNodes;
+            for (BranchTask child : forked) nodes += child.join();
+            return nodes;
         }
+    }
 
-        // 4. Role Diversity Bonus (Fixed)
-        Set<String> roles = members.stream().map(f -> f.role).collect(Collectors.toSet());
-        if (roles.size() >= 5) delta += 1.5;
-        else if (roles.size() >= 4) delta += 0.8;
+    /**
+     * Exact search of every team that starts with the given pool indices (increasing)
+     * on top of the pins, split over the shared pool like the full search. This is
+     * one work unit of the distributed search. Returns the nodes visited.
+     */
+    long searchPrefix(TeamSearchContext run, int[] prefix) {
+        List<Fusion> team = new ArrayList<>(run.pinned);
+        double base = run.pinnedBase;
+        long weakness = DefensiveCoverage.count(run.pinned);
+        for (int idx : prefix) {
+            Fusion f = run.pool.get(idx);
+            if (!isValidAddition(team, weakness, f, run.config)) return 1;
+            team.add(f);
+            base += f.score;
+            weakness = DefensiveCoverage.add(weakness, f.weaknessMask);
+        }
+        return SEARCH_POOL.invoke(new BranchTask(run, team, base, weakness, prefix[prefix.length - 1], null, ROOT));
+    }
+
+    static List<Fusion> extend(List<Fusion> team, Fusion f) {
+        List<Fusion> copy = new ArrayList<>(team.size() + 1);
+        copy.addAll(team);
+        copy.add(f);
+        return copy;
+    }
+
+    static boolean canPrune(TeamSearchContext run, double currentBase, List<Fusion> currentTeam, int lastIndex, int slotsRemaining) {
+        TeamScorer scorer = TeamScorer.shared(run.config);
+        scorer.set(currentTeam);
+        return canPrune(run, currentBase, currentTeam, lastIndex, slotsRemaining, scorer);
+    }
 
-        return delta;
+    /**
+     * Same check with a scorer that already holds the partial team.
+     */
+    static boolean canPrune(TeamSearchContext run, double currentBase, List<Fusion> currentTeam, int lastIndex, int slotsRemaining,
+                            TeamScorer scorer) {
+        if (ceiling(run, currentBase, currentTeam, lastIndex, slotsRemaining, scorer) <= run.bestScore()) return true;
+        // Team rules the open slots can no longer satisfy
+        return run.constraints != null && run.constraints.cannotComplete(currentTeam, lastIndex, slotsRemaining);
     }
 
-    private boolean isValidAddition(List<Fusion> current, Fusion candidate, TeamBuildConfig config) {
+    /**
+     * Best score any completion of this partial team could reach using candidates
+     * after {@code lastIndex}, or -MAX_VALUE when too few candidates are left.
+     */
+    static double ceiling(TeamSearchContext run, double currentBase, List<Fusion> currentTeam, int lastIndex, int slotsRemaining) {
+        TeamScorer scorer = TeamScorer.shared(run.config);
+        scorer.set(currentTeam);
+        return ceiling(run, currentBase, currentTeam, lastIndex, slotsRemaining, scorer);
+    }
+
+    static double ceiling(TeamSearchContext run, double currentBase, List<Fusion> currentTeam, int lastIndex, int slotsRemaining,
+                          TeamScorer scorer) {
+        List<Fusion> pool = run.pool;
+        double maxFutureBase = 0;
+        int count = 0;
+        
+        for (int i = lastIndex + 1; i < pool.size() && count < slotsRemaining; i++) {
+            maxFutureBase += pool.get(i).score;
+            count++;
+        }
+        
+        if (count < slotsRemaining) return -Double.MAX_VALUE;
+        // Team rules can rule out the best remaining candidates as a group
+        if (run.constraints != null && slotsRemaining > 0) {
+            maxFutureBase = Math.min(maxFutureBase, run.constraints.openScoreBound(currentTeam, lastIndex, slotsRemaining));
+        }
+
+        return currentBase + maxFutureBase + scorer.maxRemainingDelta(slotsRemaining);
+    }
+
+    /**
+     * Upper bound on the delta of any completion of a partial team (see TeamScorer).
+     */
+    static double maxRemainingDelta(List<Fusion> currentTeam, int slotsRemaining, TeamBuildConfig config) {
+        TeamScorer scorer = TeamScorer.shared(config);
+        scorer.set(currentTeam);
+        return scorer.maxRemainingDelta(slotsRemaining);
+    }
+
+    /**
+     * Clause penalties and role bonus of a team, scored by this thread's TeamScorer.
+     */
+    static double calculateDelta(List<Fusion> members, TeamBuildConfig config) {
+        return TeamScorer.shared(config).delta(members);
+    }
+
+    static boolean isValidAddition(List<Fusion> current, Fusion candidate, TeamBuildConfig config) {
+        long weakness = config.defensiveClauseVal == 100 ? DefensiveCoverage.count(current) : 0L;
+        return isValidAddition(current, weakness, candidate, config);
+    }
+
+    /**
+     * Same check with the team's weakness counters already at hand.
+     */
+    static boolean isValidAddition(List<Fusion> current, long weakness, Fusion candidate, TeamBuildConfig config) {
         // Hard Pruning ONLY if slider is 100 (Hard Requirement)
         
+        if (config.defensiveClauseVal == 100 && (DefensiveCoverage.saturated(weakness) & candidate.weaknessMask) != 0) {
+            return false;
+        }
+        
         if (config.speciesClauseVal == 100) {
             for(Fusion f : current) {
                 if (f.headName.equalsIgnoreCase(candidate.headName) || 
@@ -265,6 +1012,6 @@ public class TeamBuilder {
             }
         }
         
-        return true;
+        return config.constraints.isEmpty() || config.constraints.allows(current, candidate);
     }
 }
\ No newline at end of file
@@ -0,0 +1,483 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Hard rules on the team beyond the clause sliders, one per line:
+ *
+ * <pre>
+ * at least 1 role Sweeper        require resist Fairy       exclude legendary
+ * at most 2 type Dragon          average spe >= 90          exclude spe < 60
+ * </pre>
+ *
+ * "require X" means "at least 1 X", and "min"/"max" work for "at least"/"at most".
+ * Members are selected by {@code role}, {@code type}, {@code resist} (immunities
+ * included), {@code weak}, {@code species}, {@code ability}, {@code legendary}, or a
+ * stat comparison on hp, atk, def, spa, spd, spe or bst. Blank lines and lines
+ * starting with # are ignored.
+ *
+ * Rules are compiled into the search rather than checked on finished teams: exclude
+ * rules shrink the pool, "at most" rules reject a candidate in isValidAddition, and
+ * "at least" and average rules prune a branch (see {@link Propagator}) once the open
+ * slots can no longer make up the shortfall. Pinned members count toward every rule
+ * but are never excluded.
+ */
+public class TeamConstraints {
+    public static final TeamConstraints NONE = new TeamConstraints(Collections.emptyList(), Collections.emptySet());
+
+    private static final String[] STATS = {"hp", "atk", "def", "spa", "spd", "spe", "bst"};
+    private static final String[] NUMBER_WORDS = {"zero", "one", "two", "three", "four", "five", "six"};
+
+    private enum Kind { AT_LEAST, AT_MOST, EXCLUDE, AVERAGE_MIN, AVERAGE_MAX }
+
+    private static final class Rule {
+        final Kind kind;
+        final String text;
+        final Predicate<Fusion> selector;
+        final int count;
+        final ToIntFunction<Fusion> stat;
+        final double value;
+
+        Rule(Kind kind, String text, Predicate<Fusion> selector, int count, ToIntFunction<Fusion> stat, double value) {
+            this.kind = kind;
+            this.text = text;
+            this.selector = selector;
+            this.count = count;
+            this.stat = stat;
+            this.value = value;
+        }
+    }
+
+    private final List<Rule> rules;
+    private final List<Rule> atMost = new ArrayList<>();
+    // Legendary species the rules were parsed against; sent along to worker processes
+    private final Set<String> legendaries;
+
+    private TeamConstraints(List<Rule> rules, Set<String> legendaries) {
+        this.rules = rules;
+        this.legendaries = legendaries;
+        for (Rule r : rules) {
+            if (r.kind == Kind.AT_MOST && r.count > 0) atMost.add(r);
+        }
+    }
+
+    public static TeamConstraints load(File file, Set<String> legendaries) throws IOException {
+        return parse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), legendaries);
+    }
+
+    /**
+     * Parses rules from text; throws IllegalArgumentException naming the first line
+     * that cannot be understood.
+     */
+    public static TeamConstraints parse(String text, Set<String> legendaries) {
+        Set<String> legends = new HashSet<>();
+        if (legendaries != null) {
+            for (String name : legendaries) legends.add(name.toLowerCase());
+        }
+        List<Rule> rules = new ArrayList<>();
+        String[] lines = text == null ? new String[0] : text.split("\\r?\\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                rules.add(parseRule(line, legends));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Rule line " + (i + 1) + " (\"" + line + "\"): " + e.getMessage());
+            }
+        }
+        return rules.isEmpty() ? NONE : new TeamConstraints(rules, legends);
+    }
+
+    private static Rule parseRule(String line, Set<String> legendaries) {
+        String lower = line.toLowerCase().replaceAll("\\s+", " ");
+        String text = lower;
+        if (lower.startsWith("exclude ")) {
+            return new Rule(Kind.EXCLUDE, text, selector(lower.substring(8), legendaries), 0, null, 0);
+        }
+        if (lower.startsWith("require ")) {
+            return new Rule(Kind.AT_LEAST, text, selector(lower.substring(8), legendaries), 1, null, 0);
+        }
+        if (lower.startsWith("average ") || lower.startsWith("avg ")) {
+            String[] parts = lower.substring(lower.indexOf(' ') + 1).split(" ");
+            if (parts.length != 3) throw new IllegalArgumentException("expected: average <stat> >= <value>");
+            ToIntFunction<Fusion> stat = stat(parts[0]);
+            double value = number(parts[2]);
+            switch (parts[1]) {
+                case ">=": case ">": return new Rule(Kind.AVERAGE_MIN, text, null, 0, stat, value);
+                case "<=": case "<": return new Rule(Kind.AVERAGE_MAX, text, null, 0, stat, value);
+                default: throw new IllegalArgumentException("average rules use >= or <=");
+            }
+        }
+
+        Kind kind;
+        String rest;
+        if (lower.startsWith("at least ")) {
+            kind = Kind.AT_LEAST;
+            rest = lower.substring(9);
+        } else if (lower.startsWith("min ")) {
+            kind = Kind.AT_LEAST;
+            rest = lower.substring(4);
+        } else if (lower.startsWith("at most ")) {
+            kind = Kind.AT_MOST;
+            rest = lower.substring(8);
+        } else if (lower.startsWith("max ")) {
+            kind = Kind.AT_MOST;
+            rest = lower.substring(4);
+        } else {
+            throw new IllegalArgumentException("expected at least, at most, require, exclude or average");
+        }
+        int space = rest.indexOf(' ');
+        if (space < 0) throw new IllegalArgumentException("expected a count and a selector");
+        int count = count(rest.substring(0, space));
+        return new Rule(kind, text, selector(rest.substring(space + 1), legendaries), count, null, 0);
+    }
+
+    private static Predicate<Fusion> selector(String s, Set<String> legendaries) {
+        s = s.trim();
+        if (s.equals("legendary") || s.equals("legendaries")) {
+            return f -> legendaries.contains(f.headName.toLowerCase()) || legendaries.contains(f.bodyName.toLowerCase());
+        }
+        int space = s.indexOf(' ');
+        if (space < 0) throw new IllegalArgumentException("unknown selector \"" + s + "\"");
+        String key = s.substring(0, space);
+        String arg = s.substring(space + 1).trim();
+        // Plural forms read naturally after a count ("at most 2 types Dragon")
+        if (key.endsWith("s") && !key.equals("species") && !key.equals("resists") && !key.equals("weakness")) {
+            key = key.substring(0, key.length() - 1);
+        }
+        switch (key) {
+            case "role":
+                return f -> f.role != null && f.role.equalsIgnoreCase(arg);
+            case "type": {
+                typeBit(arg);
+                return f -> {
+                    for (String t : f.typing.split("/")) if (t.trim().equalsIgnoreCase(arg)) return true;
+                    return false;
+                };
+            }
+            case "resist": case "resists": {
+                long bit = typeBit(arg);
+                return f -> (f.resistMask & bit) != 0;
+            }
+            case "weak": case "weakness": {
+                long bit = typeBit(arg);
+                return f -> (f.weaknessMask & bit) != 0;
+            }
+            case "species":
+                return f -> f.headName.equalsIgnoreCase(arg) || f.bodyName.equalsIgnoreCase(arg);
+            case "ability":
+                return f -> f.chosenAbility != null && f.chosenAbility.equalsIgnoreCase(arg);
+            default:
+                return statSelector(key, arg);
+        }
+    }
+
+    private static Predicate<Fusion> statSelector(String statName, String comparison) {
+        ToIntFunction<Fusion> stat = stat(statName);
+        String[] parts = comparison.split(" ");
+        if (parts.length != 2) throw new IllegalArgumentException("expected: <stat> <op> <value>");
+        double v = number(parts[1]);
+        switch (parts[0]) {
+            case ">=": return f -> stat.applyAsInt(f) >= v;
+            case ">": return f -> stat.applyAsInt(f) > v;
+            case "<=": return f -> stat.applyAsInt(f) <= v;
+            case "<": return f -> stat.applyAsInt(f) < v;
+            case "=": case "==": return f -> stat.applyAsInt(f) == v;
+            default: throw new IllegalArgumentException("unknown comparison " + parts[0]);
+        }
+    }
+
+    private static ToIntFunction<Fusion> stat(String name) {
+        switch (name) {
+            case "hp": return f -> f.hp;
+            case "atk": return f -> f.atk;
+            case "def": return f -> f.def;
+            case "spa": return f -> f.spa;
+            case "spd": return f -> f.spd;
+            case "spe": case "speed": return f -> f.spe;
+            case "bst": return f -> f.bst;
+            default: throw new IllegalArgumentException("unknown selector or stat \"" + name + "\" (stats: " + String.join(", ", STATS) + ")");
+        }
+    }
+
+    private static long typeBit(String type) {
+        int idx = TypeChart.typeIndex(type);
+        if (idx < 0) throw new IllegalArgumentException("unknown type \"" + type + "\"");
+        return 1L << idx;
+    }
+
+    private static int count(String s) {
+        for (int i = 0; i < NUMBER_WORDS.length; i++) if (NUMBER_WORDS[i].equals(s)) return i;
+        try {
+            int n = Integer.parseInt(s);
+            if (n < 0 || n > 6) throw new IllegalArgumentException("count must be between 0 and 6");
+            return n;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("\"" + s + "\" is not a count");
+        }
+    }
+
+    private static double number(String s) {
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("\"" + s + "\" is not a number");
+        }
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * The rules in normalized form, one per line; part of the search cache key and
+     * what the distributed search sends to its workers.
+     */
+    public String getSource() {
+        StringBuilder sb = new StringBuilder();
+        for (Rule r : rules) sb.append(r.text).append('\n');
+        return sb.toString();
+    }
+
+    Set<String> getLegendaries() {
+        return legendaries;
+    }
+
+    /**
+     * Whether a fusion may enter the pool at all: not excluded, and not selected by
+     * a rule that allows none of it.
+     */
+    boolean admits(Fusion f) {
+        for (Rule r : rules) {
+            if ((r.kind == Kind.EXCLUDE || (r.kind == Kind.AT_MOST && r.count == 0)) && r.selector.test(f)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether adding the candidate keeps every "at most" rule.
+     */
+    boolean allows(List<Fusion> team, Fusion candidate) {
+        for (Rule r : atMost) {
+            if (!r.selector.test(candidate)) continue;
+            int n = 1;
+            for (Fusion f : team) if (r.selector.test(f)) n++;
+            if (n > r.count) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Every counting and average rule holds for this finished team. Exclusions are
+     * left to the pool, so pinned members are never rejected for them.
+     */
+    boolean isSatisfied(List<Fusion> team) {
+        for (Rule r : rules) {
+            switch (r.kind) {
+                case AT_LEAST:
+                    if (matches(r, team) < r.count) return false;
+                    break;
+                case AT_MOST:
+                    if (matches(r, team) > r.count) return false;
+                    break;
+                case AVERAGE_MIN:
+                    if (statSum(r, team) < r.value * team.size()) return false;
+                    break;
+                case AVERAGE_MAX:
+                    if (statSum(r, team) > r.value * team.size()) return false;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Identifies a fusion by what the rules can tell apart, so that dominance
+     * reduction never merges a fusion a rule needs with one it does not.
+     */
+    String signature(Fusion f) {
+        StringBuilder sb = new StringBuilder();
+        for (Rule r : rules) {
+            if (r.selector != null) sb.append(r.selector.test(f) ? '1' : '0');
+            else sb.append(r.stat.applyAsInt(f)).append(',');
+        }
+        return sb.toString();
+    }
+
+    private static int matches(Rule r, List<Fusion> team) {
+        int n = 0;
+        for (Fusion f : team) if (r.selector.test(f)) n++;
+        return n;
+    }
+
+    private static long statSum(Rule r, List<Fusion> team) {
+        long sum = 0;
+        for (Fusion f : team) sum += r.stat.applyAsInt(f);
+        return sum;
+    }
+
+    Propagator compile(List<Fusion> pool) {
+        return new Propagator(this, pool);
+    }
+
+    /**
+     * The "at least" and average rules compiled against one sorted pool. Each is read
+     * as "the six members' values v add up to at least R": v is 1 for a match of an
+     * "at least" rule, a stat for "average >=", and minus the stat for "average <=".
+     *
+     * Feasibility: for every pool position the propagator knows how many later
+     * candidates match each "at least" rule and the best stat still available, so a
+     * partial team whose open slots cannot cover a shortfall is cut right away.
+     *
+     * Score bound: any completion that meets a rule satisfies
+     * sum(score) &lt;= sum(score + lambda * v) - lambda * shortfall for every lambda &gt;= 0,
+     * and the first sum is at most the best {@code s} values of score + lambda * v
+     * among later candidates, kept per position for a few lambdas. That caps what the
+     * open slots can add when the rules push the best candidates out.
+     */
+    static final class Propagator {
+        private static final int MAX_SLOTS = 6;
+        // Multiples of 1 / (value range of the rule) tried as lambda
+        private static final double[] LAMBDA_SCALES = {1.0 / 16, 1.0 / 4, 1.0};
+
+        private final Rule[] rules;
+        // [rule][i]: matches at pool index >= i, or the max (min for AVERAGE_MAX) stat from i on
+        private final int[][] suffix;
+        // [rule * LAMBDA_SCALES.length + j]: lambda, and at [i * (MAX_SLOTS + 1) + s] the best
+        // sum of score + lambda * v over s candidates at pool index >= i
+        private final double[] lambdas;
+        private final double[][] relaxed;
+
+        private Propagator(TeamConstraints constraints, List<Fusion> pool) {
+            List<Rule> active = new ArrayList<>();
+            for (Rule r : constraints.rules) {
+                if (r.kind == Kind.AT_LEAST || r.kind == Kind.AVERAGE_MIN || r.kind == Kind.AVERAGE_MAX) active.add(r);
+            }
+            rules = active.toArray(new Rule[0]);
+            int n = pool.size();
+            suffix = new int[rules.length][n + 1];
+            lambdas = new double[rules.length * LAMBDA_SCALES.length];
+            relaxed = new double[lambdas.length][];
+            for (int k = 0; k < rules.length; k++) {
+                Rule r = rules[k];
+                int[] s = suffix[k];
+                if (r.kind == Kind.AT_LEAST) {
+                    for (int i = n - 1; i >= 0; i--) s[i] = s[i + 1] + (r.selector.test(pool.get(i)) ? 1 : 0);
+                } else {
+                    boolean max = r.kind == Kind.AVERAGE_MIN;
+                    s[n] = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+                    for (int i = n - 1; i >= 0; i--) {
+                        int v = r.stat.applyAsInt(pool.get(i));
+                        s[i] = max ? Math.max(s[i + 1], v) : Math.min(s[i + 1], v);
+                    }
+                }
+
+                double lo = Double.MAX_VALUE, hi = -Double.MAX_VALUE;
+                for (Fusion f : pool) {
+                    double v = value(r, f);
+                    lo = Math.min(lo, v);
+                    hi = Math.max(hi, v);
+                }
+                double unit = 1.0 / Math.max(1.0, hi - lo);
+                for (int j = 0; j < LAMBDA_SCALES.length; j++) {
+                    int slot = k * LAMBDA_SCALES.length + j;
+                    lambdas[slot] = unit * LAMBDA_SCALES[j];
+                    relaxed[slot] = topSums(pool, r, lambdas[slot]);
+                }
+            }
+        }
+
+        // Best s-element sums of score + lambda * v for every suffix of the pool, s up to MAX_SLOTS
+        private static double[] topSums(List<Fusion> pool, Rule r, double lambda) {
+            int n = pool.size();
+            double[] sums = new double[(n + 1) * (MAX_SLOTS + 1)];
+            double[] top = new double[MAX_SLOTS];
+            int size = 0;
+            for (int s = 1; s <= MAX_SLOTS; s++) sums[n * (MAX_SLOTS + 1) + s] = Double.NEGATIVE_INFINITY;
+            for (int i = n - 1; i >= 0; i--) {
+                Fusion f = pool.get(i);
+                double w = f.score + lambda * value(r, f);
+                // Insert into the descending top list
+                int pos = size < MAX_SLOTS ? size++ : MAX_SLOTS;
+                while (pos > 0 && top[pos - 1] < w) {
+                    if (pos < MAX_SLOTS) top[pos] = top[pos - 1];
+                    pos--;
+                }
+                if (pos < MAX_SLOTS) top[pos] = w;
+                double acc = 0;
+                int base = i * (MAX_SLOTS + 1);
+                for (int s = 1; s <= MAX_SLOTS; s++) {
+                    if (s <= size) acc += top[s - 1];
+                    sums[base + s] = s <= size ? acc : Double.NEGATIVE_INFINITY;
+                }
+            }
+            return sums;
+        }
+
+        boolean isEmpty() {
+            return rules.length == 0;
+        }
+
+        /**
+         * True when no completion of the team with candidates after {@code lastIndex}
+         * can satisfy every rule, so the branch can be cut.
+         */
+        boolean cannotComplete(List<Fusion> team, int lastIndex, int slotsRemaining) {
+            int from = lastIndex + 1;
+            for (int k = 0; k < rules.length; k++) {
+                Rule r = rules[k];
+                if (r.kind == Kind.AT_LEAST) {
+                    int deficit = r.count - matches(r, team);
+                    if (deficit > 0 && (deficit > slotsRemaining || suffix[k][from] < deficit)) return true;
+                } else {
+                    double target = r.value * (team.size() + slotsRemaining);
+                    long sum = statSum(r, team);
+                    if (slotsRemaining > 0) sum += (long) slotsRemaining * suffix[k][from];
+                    if (r.kind == Kind.AVERAGE_MIN ? sum < target : sum > target) return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Upper bound on the summed score of the open slots filled from candidates
+         * after {@code lastIndex} so that every rule holds; +infinity without rules.
+         */
+        double openScoreBound(List<Fusion> team, int lastIndex, int slotsRemaining) {
+            int at = (lastIndex + 1) * (MAX_SLOTS + 1) + Math.min(slotsRemaining, MAX_SLOTS);
+            double bound = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < rules.length; k++) {
+                Rule r = rules[k];
+                double shortfall = requirement(r, team.size() + slotsRemaining);
+                for (Fusion f : team) shortfall -= value(r, f);
+                for (int j = k * LAMBDA_SCALES.length; j < (k + 1) * LAMBDA_SCALES.length; j++) {
+                    bound = Math.min(bound, relaxed[j][at] - lambdas[j] * shortfall);
+                }
+            }
+            return bound;
+        }
+
+        // What the members' values must add up to for a team of the given size
+        private static double requirement(Rule r, int teamSize) {
+            switch (r.kind) {
+                case AT_LEAST: return r.count;
+                case AVERAGE_MIN: return r.value * teamSize;
+                default: return -r.value * teamSize;
+            }
+        }
+
+        private static double value(Rule r, Fusion f) {
+            switch (r.kind) {
+                case AT_LEAST: return r.selector.test(f) ? 1 : 0;
+                case AVERAGE_MIN: return r.stat.applyAsInt(f);
+                default: return -r.stat.applyAsInt(f);
+            }
+        }
+    }
+}
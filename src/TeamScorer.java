@@ -0,0 +1,233 @@
+import java.util.*;
+
+/**
+ * The one team scoring model: member scores plus the team delta, made of the clause
+ * penalties (species duplicates, types shared beyond two, self fusions, weaknesses
+ * stacked beyond two, each scaled by its slider) and the role diversity bonus.
+ *
+ * A scorer holds primitive counters for the members added so far: per species, type
+ * and role id, and per attacking type for weaknesses (as DefensiveCoverage's packed
+ * counters, the same the search carries). Adding or removing a member
+ * touches only its own counters and the delta is read back in constant time, so a
+ * depth-first search can carry one scorer down the tree. Species, types and roles
+ * are interned to small ids once per fusion and cached on it; after that no call
+ * allocates. A scorer is not thread-safe; {@link #shared} gives each thread its own.
+ */
+public final class TeamScorer {
+    private static final Map<String, Integer> SPECIES_IDS = new HashMap<>();
+    private static final Map<String, Integer> TYPE_IDS = new HashMap<>();
+    private static final Map<String, Integer> ROLE_IDS = new HashMap<>();
+    // Fusion.scorerIds layout: 16-bit head and body species ids, 8-bit type and role ids
+    private static final int TYPE1_SHIFT = 32, TYPE2_SHIFT = 40, ROLE_SHIFT = 48;
+    private static final int NO_TYPE = 0xFF;
+    // Marks Fusion.scorerIds as filled in (ids themselves may all be 0)
+    private static final long ASSIGNED = 1L << 63;
+
+    // Largest delta any team can have: the full role diversity bonus
+    static final double MAX_BONUS = 1.5;
+
+    private static final ThreadLocal<TeamScorer> SHARED = new ThreadLocal<>();
+
+    private final TeamBuildConfig config;
+    private final double speciesWeight, typeWeight, selfWeight, defensiveWeight;
+
+    // Members per species id (head and body each count), per type id and per role id
+    private int[] speciesCount = new int[64];
+    private int[] typeCount = new int[32];
+    private int[] roleCount = new int[16];
+    // Members weak to each attacking type, as DefensiveCoverage counters
+    private long weakness;
+    private int size, duplicates, sharedTypes, selfFusions, distinctRoles;
+    private double baseScore;
+
+    public TeamScorer(TeamBuildConfig config) {
+        this.config = config;
+        speciesWeight = config.speciesClauseVal > 0 ? config.speciesClauseVal / 20.0 : 0.0;
+        typeWeight = config.typeClauseVal > 0 ? config.typeClauseVal / 20.0 : 0.0;
+        // A hard-banned self fusion never reaches a team, so only the soft range costs anything
+        selfWeight = config.selfFusionClauseVal > 0 && config.selfFusionClauseVal < 100 ? config.selfFusionClauseVal / 20.0 : 0.0;
+        defensiveWeight = config.defensiveClauseVal > 0 ? config.defensiveClauseVal / 20.0 : 0.0;
+    }
+
+    /**
+     * This thread's scorer for the config, emptied. Meant for one-shot scoring of a
+     * whole team; a caller that keeps members in it must not call back into code that
+     * scores through here.
+     */
+    static TeamScorer shared(TeamBuildConfig config) {
+        TeamScorer scorer = SHARED.get();
+        if (scorer == null || scorer.config != config) {
+            scorer = new TeamScorer(config);
+            SHARED.set(scorer);
+        } else {
+            scorer.clear();
+        }
+        return scorer;
+    }
+
+    public void clear() {
+        if (size == 0) return;
+        Arrays.fill(speciesCount, 0);
+        Arrays.fill(typeCount, 0);
+        Arrays.fill(roleCount, 0);
+        weakness = 0L;
+        size = duplicates = sharedTypes = selfFusions = distinctRoles = 0;
+        baseScore = 0;
+    }
+
+    public void add(Fusion f) {
+        long ids = ids(f);
+        int head = (int) (ids & 0xFFFF), body = (int) (ids >>> 16 & 0xFFFF);
+        int type1 = (int) (ids >>> TYPE1_SHIFT & 0xFF), type2 = (int) (ids >>> TYPE2_SHIFT & 0xFF);
+        int role = (int) (ids >>> ROLE_SHIFT & 0xFF);
+        ensureCapacity(Math.max(head, body), type2 != NO_TYPE ? Math.max(type1, type2) : type1, role);
+
+        if (speciesCount[head]++ > 0) duplicates++;
+        if (speciesCount[body]++ > 0) duplicates++;
+        if (typeCount[type1]++ >= 2) sharedTypes++;
+        if (type2 != NO_TYPE && typeCount[type2]++ >= 2) sharedTypes++;
+        if (head == body) selfFusions++;
+        if (roleCount[role]++ == 0) distinctRoles++;
+        weakness = DefensiveCoverage.add(weakness, f.weaknessMask);
+        baseScore += f.score;
+        size++;
+    }
+
+    /**
+     * Takes back a member added earlier (the most recent one or any other).
+     */
+    public void remove(Fusion f) {
+        long ids = ids(f);
+        int head = (int) (ids & 0xFFFF), body = (int) (ids >>> 16 & 0xFFFF);
+        int type1 = (int) (ids >>> TYPE1_SHIFT & 0xFF), type2 = (int) (ids >>> TYPE2_SHIFT & 0xFF);
+        int role = (int) (ids >>> ROLE_SHIFT & 0xFF);
+
+        if (--speciesCount[body] > 0) duplicates--;
+        if (--speciesCount[head] > 0) duplicates--;
+        if (type2 != NO_TYPE && --typeCount[type2] >= 2) sharedTypes--;
+        if (--typeCount[type1] >= 2) sharedTypes--;
+        if (head == body) selfFusions--;
+        if (--roleCount[role] == 0) distinctRoles--;
+        weakness = DefensiveCoverage.remove(weakness, f.weaknessMask);
+        baseScore -= f.score;
+        size--;
+    }
+
+    /**
+     * Clause penalties and role bonus of the current members, the terms in the
+     * order the model has always added them.
+     */
+    public double delta() {
+        double delta = 0.0;
+        if (duplicates > 0) delta -= duplicates * speciesWeight;
+        if (sharedTypes > 0) delta -= sharedTypes * typeWeight;
+        for (int i = 0; i < selfFusions; i++) delta -= selfWeight;
+        int stacked = DefensiveCoverage.stackedWeaknesses(weakness);
+        if (stacked > 0) delta -= stacked * defensiveWeight;
+        return delta + roleBonus(distinctRoles);
+    }
+
+    /**
+     * Member scores plus the delta.
+     */
+    public double score() {
+        return baseScore + delta();
+    }
+
+    /**
+     * Replaces whatever this scorer held with the given members.
+     */
+    public void set(List<Fusion> members) {
+        clear();
+        for (int i = 0; i < members.size(); i++) add(members.get(i));
+    }
+
+    /**
+     * Delta of a whole team, replacing whatever this scorer held.
+     */
+    public double delta(List<Fusion> members) {
+        set(members);
+        return delta();
+    }
+
+    /**
+     * Upper bound on the delta once {@code slotsRemaining} more members join. Penalties
+     * only grow as members are added, so the ones already paid stay paid; the bonus can
+     * at most reach what the open slots could still unlock.
+     */
+    public double maxRemainingDelta(int slotsRemaining) {
+        double penaltiesPaid = roleBonus(distinctRoles) - delta();
+        return Math.min(MAX_BONUS, roleBonus(distinctRoles + slotsRemaining)) - penaltiesPaid;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    int duplicates() {
+        return duplicates;
+    }
+
+    int sharedTypes() {
+        return sharedTypes;
+    }
+
+    int stackedWeaknesses() {
+        return DefensiveCoverage.stackedWeaknesses(weakness);
+    }
+
+    double speciesWeight() {
+        return speciesWeight;
+    }
+
+    double typeWeight() {
+        return typeWeight;
+    }
+
+    double selfWeight() {
+        return selfWeight;
+    }
+
+    double defensiveWeight() {
+        return defensiveWeight;
+    }
+
+    static double roleBonus(int distinctRoles) {
+        if (distinctRoles >= 5) return 1.5;
+        if (distinctRoles >= 4) return 0.8;
+        return 0.0;
+    }
+
+    private void ensureCapacity(int species, int type, int role) {
+        if (species >= speciesCount.length) speciesCount = Arrays.copyOf(speciesCount, Math.max(species + 1, 2 * speciesCount.length));
+        if (type >= typeCount.length) typeCount = Arrays.copyOf(typeCount, Math.max(type + 1, 2 * typeCount.length));
+        if (role >= roleCount.length) roleCount = Arrays.copyOf(roleCount, Math.max(role + 1, 2 * roleCount.length));
+    }
+
+    /**
+     * The fusion's interned ids, packed: head and body species, first type, second
+     * type ({@value #NO_TYPE} for a single type) and role. Worked out on first use and
+     * cached in one volatile long, so a racing thread sees either nothing or all of it.
+     */
+    private static long ids(Fusion f) {
+        long ids = f.scorerIds;
+        if (ids != 0) return ids;
+        String[] types = f.typing.contains("/") ? f.typing.split("/") : new String[]{f.typing};
+        synchronized (SPECIES_IDS) {
+            long head = intern(SPECIES_IDS, f.headName.toLowerCase(), 0xFFFF);
+            long body = intern(SPECIES_IDS, f.bodyName.toLowerCase(), 0xFFFF);
+            long type1 = intern(TYPE_IDS, types[0], NO_TYPE - 1);
+            long type2 = types.length > 1 ? intern(TYPE_IDS, types[1], NO_TYPE - 1) : NO_TYPE;
+            long role = intern(ROLE_IDS, f.role != null ? f.role : "", 0xFF);
+            ids = head | body << 16 | type1 << TYPE1_SHIFT | type2 << TYPE2_SHIFT | role << ROLE_SHIFT | ASSIGNED;
+        }
+        f.scorerIds = ids;
+        return ids;
+    }
+
+    private static int intern(Map<String, Integer> ids, String key, int maxId) {
+        int id = ids.computeIfAbsent(key, k -> ids.size());
+        if (id > maxId) throw new IllegalStateException("Too many distinct values to score: " + key);
+        return id;
+    }
+}
@@ -0,0 +1,153 @@
+import java.util.*;
+
+/**
+ * Remembers finished team searches so that flipping a pin or a slider back returns
+ * instantly, and keeps the latest best teams around to warm-start searches that
+ * miss: re-scored under the new pins and clauses, the best of them becomes the
+ * starting incumbent, which lets the bound prune from the first node.
+ *
+ * Fusions are matched by content (species, ability, typing, role, score), not by
+ * identity, because the pool is rebuilt whenever fusions are recalculated.
+ */
+class TeamSearchCache {
+    private static final int MAX_RESULTS = 32;
+    private static final int MAX_SEED_TEAMS = 16;
+
+    private final Map<String, TeamSearchResult> results = new LinkedHashMap<String, TeamSearchResult>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TeamSearchResult> eldest) {
+            return size() > MAX_RESULTS;
+        }
+    };
+    // Most recent first; members only, scores are recomputed on every use
+    private final LinkedList<List<Fusion>> seedTeams = new LinkedList<>();
+
+    /**
+     * Key of one search: the candidate pool, the pins and every config field that
+     * changes the optimum. Only proven results are stored, so the strategy and time
+     * budget are left out.
+     */
+    static String fingerprint(List<Fusion> fusions, Collection<Fusion> pinned, TeamBuildConfig config) {
+        return fingerprint(fusions) + ":" + fingerprint(pinned) + ":" + config.searchKey();
+    }
+
+    // Order-independent, so a re-sorted pool still matches
+    private static String fingerprint(Collection<Fusion> fusions) {
+        long sum = 0, xor = 0;
+        for (Fusion f : fusions) {
+            long h = contentHash(f);
+            sum += h;
+            xor ^= h * 0x9E3779B97F4A7C15L;
+        }
+        return fusions.size() + "-" + Long.toHexString(sum) + "-" + Long.toHexString(xor);
+    }
+
+    static long contentHash(Fusion f) {
+        long h = identity(f).hashCode();
+        h = h * 31 + f.typing.hashCode();
+        h = h * 31 + f.role.hashCode();
+        h = h * 31 + Double.hashCode(f.score);
+        return h * 31 + f.weaknessMask;
+    }
+
+    static String identity(Fusion f) {
+        return f.headName.toLowerCase() + "+" + f.bodyName.toLowerCase() + "|" + f.chosenAbility;
+    }
+
+    synchronized TeamSearchResult get(String key) {
+        return results.get(key);
+    }
+
+    synchronized void put(String key, TeamSearchResult result) {
+        if (result.complete) results.put(key, result);
+        if (!result.teams.isEmpty()) {
+            List<Fusion> members = new ArrayList<>(result.teams.get(0).members);
+            seedTeams.removeIf(t -> sameMembers(t, members));
+            seedTeams.addFirst(members);
+            while (seedTeams.size() > MAX_SEED_TEAMS) seedTeams.removeLast();
+        }
+    }
+
+    synchronized void clear() {
+        results.clear();
+        seedTeams.clear();
+    }
+
+    /**
+     * Rebuilds every remembered team from the current pool and offers it to the
+     * search: the pins go in first, then the old members that are still candidates
+     * and fit, and any open slot is filled greedily from the sorted pool. An old
+     * member whose variant the pool dropped as dominated is replaced by the pool
+     * variant that dominates it, so every seeded member is a branch of this search.
+     * Returns how many seed teams could be rebuilt.
+     */
+    int warmStart(TeamSearchContext run, List<Fusion> fusions) {
+        List<List<Fusion>> seeds;
+        synchronized (this) {
+            seeds = new ArrayList<>(seedTeams);
+        }
+        if (seeds.isEmpty()) return 0;
+
+        // Old members are found in the full list by content, then mapped onto the pool
+        Map<String, Fusion> latest = new HashMap<>();
+        for (Fusion f : fusions) latest.put(identity(f), f);
+        Map<String, Fusion> current = new HashMap<>();
+        Map<String, Fusion> dominant = new HashMap<>();
+        for (Fusion f : run.pool) {
+            current.put(identity(f), f);
+            // The pool is sorted best-first: the first variant per footprint dominates the rest
+            dominant.putIfAbsent(TeamBuilder.footprint(f, run.config), f);
+        }
+        for (Fusion f : run.pinned) current.put(identity(f), f);
+
+        int rebuilt = 0;
+        for (List<Fusion> old : seeds) {
+            List<Fusion> team = new ArrayList<>(run.pinned);
+            List<Fusion> kept = new ArrayList<>();
+            for (Fusion f : old) {
+                Fusion now = current.get(identity(f));
+                if (now == null) {
+                    Fusion recalculated = latest.get(identity(f));
+                    if (recalculated != null) now = dominant.get(TeamBuilder.footprint(recalculated, run.config));
+                }
+                if (now == null || team.contains(now) || kept.contains(now)) continue;
+                kept.add(now);
+            }
+            kept.sort((a, b) -> Double.compare(b.score, a.score));
+            // Old members that now clash with a new pin are dropped rather than paid for
+            fill(team, kept, run.config, true);
+            fill(team, run.pool, run.config, true);
+            fill(team, run.pool, run.config, false);
+            if (team.size() < 6) continue;
+
+            double base = 0;
+            for (Fusion f : team) base += f.score;
+            run.offer(base, team, TeamBuilder.calculateDelta(team, run.config));
+            rebuilt++;
+        }
+        return rebuilt;
+    }
+
+    private static void fill(List<Fusion> team, List<Fusion> candidates, TeamBuildConfig config, boolean penaltyFree) {
+        double delta = TeamBuilder.calculateDelta(team, config);
+        for (Fusion f : candidates) {
+            if (team.size() >= 6) return;
+            if (team.contains(f) || !TeamBuilder.isValidAddition(team, f, config)) continue;
+            team.add(f);
+            double next = TeamBuilder.calculateDelta(team, config);
+            if (penaltyFree && next < delta) {
+                team.remove(team.size() - 1);
+            } else {
+                delta = next;
+            }
+        }
+    }
+
+    private static boolean sameMembers(List<Fusion> a, List<Fusion> b) {
+        if (a.size() != b.size()) return false;
+        Set<String> ids = new HashSet<>();
+        for (Fusion f : a) ids.add(identity(f));
+        for (Fusion f : b) if (!ids.contains(identity(f))) return false;
+        return true;
+    }
+}
@@ -0,0 +1,159 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Saved progress of an exact team search: which first-level branches are fully
+ * searched, which children of the other branches are, and the incumbent all of
+ * them were searched against. Resuming skips that work and starts from that
+ * incumbent; subtrees that were still running are searched again from their start.
+ *
+ * The incumbent is stored by content (species and ability) with its score, since it
+ * may hold members that are not in the pool; a checkpoint whose incumbent cannot be
+ * rebuilt at that score is refused, as the branches it pruned would be lost.
+ *
+ * The file is tied to the prepared pool (in order, since branches are stored by
+ * pool index), the pins and the clause values, and is refused if any of them changed.
+ * Branches are stored as bitsets, a few bytes per 64, and written to a temporary
+ * file that is moved into place, so a crash mid-write never leaves a broken checkpoint.
+ */
+class TeamSearchCheckpoint {
+    private static final int MAGIC = 0x54534350; // "TSCP"
+    private static final int VERSION = 2;
+
+    private final File file;
+
+    TeamSearchCheckpoint(String path) {
+        this.file = new File(path);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    boolean exists() {
+        return file.isFile();
+    }
+
+    /**
+     * Identifies the search a checkpoint belongs to. Unlike the search cache key
+     * this one depends on pool order, which the branch indices refer to.
+     */
+    static String fingerprint(TeamSearchContext run) {
+        long h = run.pool.size();
+        for (Fusion f : run.pool) h = h * 0x9E3779B97F4A7C15L + TeamSearchCache.contentHash(f);
+        return Long.toHexString(h) + ":" + TeamSearchCache.fingerprint(run.pool, run.pinned, run.config);
+    }
+
+    /**
+     * Saves the finished branches, the finished children of unfinished ones, and the
+     * incumbent. The caller reads the branch state first, so the incumbent read here
+     * covers every team those branches found.
+     */
+    void write(TeamSearchContext run, BitSet finished, Map<Integer, BitSet> partial, long searchedMillis) throws IOException {
+        Team best = run.bestTeam();
+
+        File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprint(run));
+            out.writeLong(searchedMillis);
+            out.writeInt(run.pool.size());
+            writeBits(out, finished);
+            out.writeInt(partial.size());
+            for (Map.Entry<Integer, BitSet> e : partial.entrySet()) {
+                out.writeInt(e.getKey());
+                writeBits(out, e.getValue());
+            }
+
+            List<Fusion> members = best != null ? best.members : Collections.emptyList();
+            out.writeInt(members.size());
+            for (Fusion f : members) out.writeUTF(TeamSearchCache.identity(f));
+            out.writeDouble(best != null ? best.realScore : -Double.MAX_VALUE);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the checkpoint back for the given search, offering the saved incumbent
+     * to it, and returns the finished work and how long the earlier runs searched.
+     * Incumbent members are looked up in the pins, the pool and then {@code fusions}.
+     * Throws if the file belongs to a different pool, pin set or config, or if the
+     * search ends up without an incumbent as good as the saved one.
+     */
+    Resume read(TeamSearchContext run, List<Fusion> fusions) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not a team search checkpoint");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Checkpoint version " + version + ", expected " + VERSION);
+            if (!in.readUTF().equals(fingerprint(run))) {
+                throw new IOException("Checkpoint was made for a different pool, pins or clause settings");
+            }
+            long searchedMillis = in.readLong();
+            int roots = in.readInt();
+            if (roots != run.pool.size()) throw new IOException("Checkpoint has " + roots + " branches, pool has " + run.pool.size());
+            BitSet finished = readBits(in);
+            Map<Integer, BitSet> partial = new HashMap<>();
+            int partialCount = in.readInt();
+            for (int i = 0; i < partialCount; i++) {
+                int root = in.readInt();
+                partial.put(root, readBits(in));
+            }
+
+            Map<String, Fusion> byIdentity = new HashMap<>();
+            for (Fusion f : fusions) byIdentity.put(TeamSearchCache.identity(f), f);
+            for (Fusion f : run.pool) byIdentity.put(TeamSearchCache.identity(f), f);
+            for (Fusion f : run.pinned) byIdentity.put(TeamSearchCache.identity(f), f);
+            int count = in.readInt();
+            List<Fusion> team = new ArrayList<>();
+            double base = 0;
+            for (int i = 0; i < count; i++) {
+                Fusion f = byIdentity.get(in.readUTF());
+                if (f == null || team.contains(f)) continue;
+                team.add(f);
+                base += f.score;
+            }
+            double savedScore = in.readDouble();
+            // Re-scored rather than read back, so the saved team has to earn its place
+            if (team.size() == 6 && team.containsAll(run.pinned)) {
+                run.offer(base, team, TeamBuilder.calculateDelta(team, run.config));
+            }
+            // The saved branches were pruned against the saved incumbent; without one as good they cannot be skipped
+            if (run.bestScore() < savedScore - 1e-9) {
+                throw new IOException(String.format("Checkpoint incumbent (score %.3f) cannot be rebuilt from the current fusions", savedScore));
+            }
+            return new Resume(finished, partial, searchedMillis);
+        }
+    }
+
+    private static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+        long[] words = bits.toLongArray();
+        out.writeInt(words.length);
+        for (long w : words) out.writeLong(w);
+    }
+
+    private static BitSet readBits(DataInputStream in) throws IOException {
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) words[i] = in.readLong();
+        return BitSet.valueOf(words);
+    }
+
+    void delete() {
+        if (file.exists() && !file.delete()) System.out.println("Could not delete checkpoint " + file);
+    }
+
+    static final class Resume {
+        final BitSet finished;
+        // First-level branch -> its children searched to the end
+        final Map<Integer, BitSet> partial;
+        final long searchedMillis;
+
+        Resume(BitSet finished, Map<Integer, BitSet> partial, long searchedMillis) {
+            this.finished = finished;
+            this.partial = partial;
+            this.searchedMillis = searchedMillis;
+        }
+    }
+}
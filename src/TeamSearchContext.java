@@ -0,0 +1,138 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.function.Consumer;
+
+/**
+ * State of one team search, shared by every task or strategy working on it:
+ * the prepared candidate pool, the incumbent, and the stop conditions.
+ */
+class TeamSearchContext {
+    // Candidates sorted best-first, pinned members and dominated variants removed
+    final List<Fusion> pool;
+    final List<Fusion> pinned;
+    final double pinnedBase;
+    final TeamBuildConfig config;
+    final TaskController task;
+    private final Consumer<Team> onImprove;
+    // System.nanoTime() at which the time budget runs out, 0 when unlimited
+    private final long deadlineNanos;
+    // Best team so far; replaced wholesale by CAS, never mutated once published
+    private final AtomicReference<Incumbent> incumbent = new AtomicReference<>(Incumbent.NONE);
+    // Highest ceiling among parts of the search space left unexplored
+    final DoubleAccumulator openBound = new DoubleAccumulator(Math::max, -Double.MAX_VALUE);
+    final TeamSearchStats stats;
+    // Team rules compiled against this pool, null when the config has none
+    final TeamConstraints.Propagator constraints;
+    volatile boolean stopped;
+
+    TeamSearchContext(List<Fusion> pool, List<Fusion> pinned, TeamBuildConfig config, TaskController task,
+                      Consumer<Team> onImprove, long startNanos) {
+        this.pool = pool;
+        this.pinned = pinned;
+        this.config = config;
+        this.task = task;
+        this.onImprove = onImprove;
+        this.deadlineNanos = config.timeBudgetMs > 0 ? startNanos + config.timeBudgetMs * 1_000_000L : 0;
+        this.stats = new TeamSearchStats(startNanos, TeamBuilder.SEARCH_POOL.getParallelism());
+        TeamConstraints.Propagator compiled = config.constraints.compile(pool);
+        this.constraints = compiled.isEmpty() ? null : compiled;
+        double base = 0;
+        for (Fusion p : pinned) base += p.score;
+        this.pinnedBase = base;
+    }
+
+    int slots() {
+        return 6 - pinned.size();
+    }
+
+    boolean hasDeadline() {
+        return deadlineNanos != 0;
+    }
+
+    boolean shouldStop() {
+        if (stopped) return true;
+        if (task.isCancelled() || (deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    void abandon(double subtreeCeiling) {
+        openBound.accumulate(subtreeCeiling);
+    }
+
+    /**
+     * Ceiling over every team the pool can still form: the pins plus the best
+     * remaining scores and the largest delta the open slots could reach.
+     */
+    double rootCeiling() {
+        int slots = slots();
+        if (pool.size() < slots) return -Double.MAX_VALUE;
+        double top = 0;
+        for (int i = 0; i < slots; i++) top += pool.get(i).score;
+        return pinnedBase + top + TeamBuilder.maxRemainingDelta(pinned, slots, config);
+    }
+
+    double bestScore() {
+        return incumbent.get().score;
+    }
+
+    Team bestTeam() {
+        return incumbent.get().team;
+    }
+
+    /**
+     * Publishes a better team with a CAS loop instead of a lock. The snapshot is only
+     * built once the score beats the current incumbent, and a losing CAS simply
+     * re-reads the winner and gives up if that one is already at least as good.
+     */
+    boolean offer(double baseScore, List<Fusion> members, double delta) {
+        double score = baseScore + delta;
+        Incumbent current = incumbent.get();
+        if (score <= current.score) return false;
+        // Every strategy's teams pass through here, so none can break a team rule
+        if (!config.constraints.isEmpty() && !config.constraints.isSatisfied(members)) return false;
+
+        Team t = new Team();
+        t.members.addAll(members);
+        t.realScore = score;
+        // Store the "delta" specifically for the UI to display the bonus/penalty
+        t.balanceBonus = delta;
+        Incumbent next = new Incumbent(score, t);
+
+        while (score > current.score) {
+            if (incumbent.compareAndSet(current, next)) {
+                stats.improved(score);
+                if (onImprove != null) onImprove.accept(t);
+                return true;
+            }
+            current = incumbent.get();
+        }
+        return false;
+    }
+
+    /**
+     * Raises the incumbent score to one found elsewhere (another process, or a floor
+     * set by the caller), without a team to go with it; teams must beat it to count.
+     */
+    void adoptRemoteScore(double score) {
+        Incumbent current = incumbent.get();
+        Incumbent next = new Incumbent(score, null);
+        while (score > current.score && !incumbent.compareAndSet(current, next)) {
+            current = incumbent.get();
+        }
+    }
+
+    private static final class Incumbent {
+        static final Incumbent NONE = new Incumbent(-Double.MAX_VALUE, null);
+
+        final double score;
+        final Team team;
+
+        Incumbent(double score, Team team) {
+            this.score = score;
+            this.team = team;
+        }
+    }
+}
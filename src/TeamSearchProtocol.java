@@ -0,0 +1,139 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Wire format between the distributed search coordinator and its worker JVMs.
+ * Every message is a type byte followed by its fields, written with Data streams.
+ *
+ * Worker to coordinator, first: HELLO (version, the coordinator's session token); a
+ * connection without the right token is closed before anything else is sent.
+ * Coordinator to worker: INIT (config and team rules, pins, prepared pool), UNIT (id, pool indices
+ * of a branch prefix), BEST (global incumbent score), SHUTDOWN.
+ * Worker to coordinator: IMPROVED (score, pool indices of the non-pinned members),
+ * UNIT_DONE (id, nodes visited).
+ *
+ * Fusions carry only what the team score and the team rules need (names, typing, role,
+ * ability, score, type masks and base stats), so workers do not load any data files.
+ */
+final class TeamSearchProtocol {
+    static final int VERSION = 4;
+
+    static final byte INIT = 1;
+    static final byte UNIT = 2;
+    static final byte BEST = 3;
+    static final byte SHUTDOWN = 4;
+    static final byte IMPROVED = 5;
+    static final byte UNIT_DONE = 6;
+    static final byte HELLO = 7;
+
+    private TeamSearchProtocol() {}
+
+    static void writeInit(DataOutputStream out, TeamBuildConfig config, List<Fusion> pinned, List<Fusion> pool,
+                          double best) throws IOException {
+        out.writeByte(INIT);
+        out.writeInt(VERSION);
+        out.writeInt(config.speciesClauseVal);
+        out.writeInt(config.typeClauseVal);
+        out.writeInt(config.selfFusionClauseVal);
+        out.writeInt(config.defensiveClauseVal);
+        // Team rules travel as text, with the legendary list they refer to
+        out.writeUTF(config.constraints.getSource());
+        out.writeInt(config.constraints.getLegendaries().size());
+        for (String name : config.constraints.getLegendaries()) out.writeUTF(name);
+        writeFusions(out, pinned);
+        writeFusions(out, pool);
+        out.writeDouble(best);
+        out.flush();
+    }
+
+    static void writeHello(DataOutputStream out, String token) throws IOException {
+        out.writeByte(HELLO);
+        out.writeInt(VERSION);
+        out.writeUTF(token);
+        out.flush();
+    }
+
+    /**
+     * Reads a worker's HELLO and checks its version and token; throws IOException
+     * when either is wrong.
+     */
+    static void readHello(DataInputStream in, String token) throws IOException {
+        if (in.readByte() != HELLO) throw new IOException("Expected HELLO");
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Protocol version " + version + ", expected " + VERSION);
+        byte[] sent = in.readUTF().getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(sent, token.getBytes(StandardCharsets.UTF_8))) throw new IOException("Wrong session token");
+    }
+
+    static TeamBuildConfig readConfig(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Protocol version " + version + ", expected " + VERSION);
+        int species = in.readInt();
+        int type = in.readInt();
+        int self = in.readInt();
+        int defensive = in.readInt();
+        String rules = in.readUTF();
+        Set<String> legendaries = new HashSet<>();
+        for (int i = in.readInt(); i > 0; i--) legendaries.add(in.readUTF());
+        return new TeamBuildConfig(species, type, self).withDefensiveClause(defensive)
+            .withConstraints(TeamConstraints.parse(rules, legendaries));
+    }
+
+    static void writeIndices(DataOutputStream out, int[] indices) throws IOException {
+        out.writeByte(indices.length);
+        for (int i : indices) out.writeInt(i);
+    }
+
+    static int[] readIndices(DataInputStream in) throws IOException {
+        int[] indices = new int[in.readUnsignedByte()];
+        for (int i = 0; i < indices.length; i++) indices[i] = in.readInt();
+        return indices;
+    }
+
+    private static void writeFusions(DataOutputStream out, List<Fusion> fusions) throws IOException {
+        out.writeInt(fusions.size());
+        for (Fusion f : fusions) {
+            out.writeUTF(f.headName);
+            out.writeUTF(f.bodyName);
+            out.writeUTF(f.typing);
+            out.writeUTF(f.role);
+            out.writeUTF(f.chosenAbility != null ? f.chosenAbility : "");
+            out.writeDouble(f.score);
+            out.writeLong(f.weaknessMask);
+            out.writeLong(f.resistMask);
+            for (int stat : new int[] {f.hp, f.atk, f.def, f.spa, f.spd, f.spe, f.bst}) out.writeShort(stat);
+        }
+    }
+
+    static List<Fusion> readFusions(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        List<Fusion> fusions = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Fusion f = new Fusion();
+            f.headName = in.readUTF();
+            f.bodyName = in.readUTF();
+            f.typing = in.readUTF();
+            f.role = in.readUTF();
+            f.chosenAbility = in.readUTF();
+            f.score = in.readDouble();
+            f.weaknessMask = in.readLong();
+            f.resistMask = in.readLong();
+            f.hp = in.readShort();
+            f.atk = in.readShort();
+            f.def = in.readShort();
+            f.spa = in.readShort();
+            f.spd = in.readShort();
+            f.spe = in.readShort();
+            f.bst = in.readShort();
+            fusions.add(f);
+        }
+        return fusions;
+    }
+}
@@ -0,0 +1,41 @@
+import java.util.*;
+
+public class TeamSearchResult {
+    public final List<Team> teams;
+    // Highest score any team could still reach; equals the best score when the search completed
+    public final double upperBound;
+    // False when the search was stopped by its time budget or cancelled
+    public final boolean complete;
+    // Node, prune and incumbent statistics of the search that produced this result
+    public final TeamSearchStats stats;
+
+    public TeamSearchResult(List<Team> teams, double upperBound, boolean complete, TeamSearchStats stats) {
+        this.teams = teams;
+        this.upperBound = upperBound;
+        this.complete = complete;
+        this.stats = stats;
+    }
+
+    public double getBestScore() {
+        return teams.isEmpty() ? -Double.MAX_VALUE : teams.get(0).realScore;
+    }
+
+    /**
+     * Summed score of all teams; the best score for a single-team search, and what
+     * the upper bound of a disjoint-teams search refers to.
+     */
+    public double getTotalScore() {
+        if (teams.isEmpty()) return -Double.MAX_VALUE;
+        double total = 0;
+        for (Team t : teams) total += t.realScore;
+        return total;
+    }
+
+    /**
+     * How far the result could be from the true optimum (0 when proven optimal).
+     */
+    public double getOptimalityGap() {
+        if (teams.isEmpty()) return Double.POSITIVE_INFINITY;
+        return Math.max(0.0, upperBound - getTotalScore());
+    }
+}
@@ -0,0 +1,187 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one team search. Nodes expanded and pruned are kept per depth
+ * (members on the team, pins included) in LongAdders, so the hot loop never
+ * contends on a shared cache line. Busy time per worker replaces the old
+ * utilization report, and the remaining-tree estimate feeds the ETA.
+ */
+public class TeamSearchStats {
+    public static final int DEPTHS = 7;
+    // Latest improvements listed by format(); the full timeline stays available
+    private static final int TIMELINE_SHOWN = 8;
+
+    private final long startNanos;
+    private final LongAdder[] expanded = new LongAdder[DEPTHS];
+    private final LongAdder[] pruned = new LongAdder[DEPTHS];
+    private final LongAdder hardRejections = new LongAdder();
+    // Nodes visited by other processes (distributed search), not broken down by depth
+    private final LongAdder remoteNodes = new LongAdder();
+    // {elapsed ms, score} per improvement of the incumbent, in the order they were published
+    private final ConcurrentLinkedQueue<double[]> improvements = new ConcurrentLinkedQueue<>();
+    private final AtomicLongArray busyNanos;
+    private final AtomicLongArray workerNodes;
+    // Knuth estimate of nodes still to visit, -1 until the first estimate
+    private volatile long remainingEstimate = -1;
+    private volatile long finishNanos;
+    // Set when the result came from the search cache and nothing was searched
+    private volatile boolean cached;
+
+    TeamSearchStats(long startNanos, int workers) {
+        this.startNanos = startNanos;
+        for (int d = 0; d < DEPTHS; d++) {
+            expanded[d] = new LongAdder();
+            pruned[d] = new LongAdder();
+        }
+        busyNanos = new AtomicLongArray(Math.max(1, workers));
+        workerNodes = new AtomicLongArray(Math.max(1, workers));
+    }
+
+    void expanded(int depth) {
+        expanded[depth].increment();
+    }
+
+    void pruned(int depth) {
+        pruned[depth].increment();
+    }
+
+    void rejected() {
+        hardRejections.increment();
+    }
+
+    void addRemoteNodes(long nodes) {
+        remoteNodes.add(nodes);
+    }
+
+    /**
+     * Adds the node counts of a finished sub-search (the disjoint-teams search runs many).
+     */
+    void absorb(TeamSearchStats other) {
+        for (int d = 0; d < DEPTHS; d++) {
+            expanded[d].add(other.getNodesExpanded(d));
+            pruned[d].add(other.getNodesPruned(d));
+        }
+        hardRejections.add(other.getHardRejections());
+        remoteNodes.add(other.remoteNodes.sum());
+    }
+
+    void improved(double score) {
+        improvements.add(new double[]{elapsedNanos() / 1e6, score});
+    }
+
+    /**
+     * Busy time and nodes of the calling worker. Only inline (non-forking) work is
+     * timed, so nested joins are never double counted.
+     */
+    void recordWork(long nanos, long nodes) {
+        Thread t = Thread.currentThread();
+        int slot = t instanceof ForkJoinWorkerThread ? ((ForkJoinWorkerThread) t).getPoolIndex() % busyNanos.length() : 0;
+        busyNanos.addAndGet(slot, nanos);
+        workerNodes.addAndGet(slot, nodes);
+    }
+
+    void setRemainingEstimate(long nodes) {
+        remainingEstimate = nodes;
+    }
+
+    void markCached() {
+        cached = true;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    void finish() {
+        finishNanos = System.nanoTime();
+        remainingEstimate = 0;
+    }
+
+    private long elapsedNanos() {
+        long end = finishNanos != 0 ? finishNanos : System.nanoTime();
+        return end - startNanos;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos() / 1_000_000;
+    }
+
+    public long getNodesExpanded() {
+        long total = 0;
+        for (LongAdder a : expanded) total += a.sum();
+        return total;
+    }
+
+    /**
+     * Expanded plus pruned nodes: every node the search looked at.
+     */
+    public long getNodesVisited() {
+        long total = getNodesExpanded() + remoteNodes.sum();
+        for (LongAdder a : pruned) total += a.sum();
+        return total;
+    }
+
+    public long getNodesExpanded(int depth) {
+        return expanded[depth].sum();
+    }
+
+    public long getNodesPruned(int depth) {
+        return pruned[depth].sum();
+    }
+
+    public long getHardRejections() {
+        return hardRejections.sum();
+    }
+
+    public List<double[]> getImprovements() {
+        return new ArrayList<>(improvements);
+    }
+
+    public long getRemainingEstimate() {
+        return remainingEstimate;
+    }
+
+    /**
+     * Estimated time left at the current node rate, or -1 while unknown.
+     */
+    public long getEtaMillis() {
+        long remaining = remainingEstimate;
+        long done = getNodesVisited();
+        long elapsed = elapsedNanos();
+        if (remaining < 0 || done == 0 || elapsed <= 0) return -1;
+        return (long) (remaining / (done / (elapsed / 1e6)));
+    }
+
+    public String format() {
+        long wall = elapsedNanos();
+        if (cached) return String.format("Search stats (%d ms): answered from the search cache, nothing searched", wall / 1_000_000);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Search stats (%d ms): %d nodes visited, %d expanded, %d hard-constraint rejections%n",
+            wall / 1_000_000, getNodesVisited(), getNodesExpanded(), getHardRejections()));
+        if (remoteNodes.sum() > 0) sb.append(String.format("   %d nodes visited by worker processes%n", remoteNodes.sum()));
+        for (int d = 0; d < DEPTHS; d++) {
+            long e = expanded[d].sum(), p = pruned[d].sum();
+            if (e == 0 && p == 0) continue;
+            sb.append(String.format("   depth %d: %d expanded, %d pruned%n", d, e, p));
+        }
+        List<double[]> timeline = getImprovements();
+        if (!timeline.isEmpty()) {
+            sb.append(String.format("   incumbent improved %d times:", timeline.size()));
+            if (timeline.size() > TIMELINE_SHOWN) sb.append(" ...");
+            for (double[] point : timeline.subList(Math.max(0, timeline.size() - TIMELINE_SHOWN), timeline.size())) {
+                sb.append(String.format(" %.3f@%.0fms", point[1], point[0]));
+            }
+            sb.append(System.lineSeparator());
+        }
+        sb.append("   workers:");
+        for (int i = 0; i < busyNanos.length(); i++) {
+            double pct = wall > 0 ? 100.0 * busyNanos.get(i) / wall : 0;
+            sb.append(String.format(" [w%d %.0f%% %d]", i, pct, workerNodes.get(i)));
+        }
+        return sb.toString();
+    }
+}
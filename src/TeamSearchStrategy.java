@@ -0,0 +1,18 @@
+import java.util.function.BiConsumer;
+
+/**
+ * One way of searching the prepared candidate pool for the best team. TeamBuilder
+ * sorts and reduces the pool, applies pins and seeds a greedy incumbent; the strategy
+ * reports every better team through {@link TeamSearchContext#offer} and must return
+ * promptly once {@link TeamSearchContext#shouldStop} is true.
+ */
+interface TeamSearchStrategy {
+    String getName();
+
+    /**
+     * Searches for better teams than the context's incumbent.
+     * Returns true only when the incumbent is proven optimal; otherwise the strategy
+     * records a ceiling for what it did not explore via {@link TeamSearchContext#abandon}.
+     */
+    boolean search(TeamSearchContext ctx, BiConsumer<Integer, Integer> progressCallback);
+}
@@ -0,0 +1,118 @@
+import java.io.*;
+import java.net.Socket;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Worker process for the distributed team search. Connects to a coordinator,
+ * receives the prepared pool once, then searches the branch prefixes it is handed
+ * with the regular exact search on all local cores. Improvements are reported
+ * straight away, and the coordinator's global best is adopted as soon as it
+ * arrives, so every node prunes against the best team found anywhere.
+ *
+ * Usage: java -cp &lt;classpath&gt; TeamSearchWorker &lt;host&gt; &lt;port&gt; &lt;token&gt;, with
+ * the session token the coordinator logs when it starts listening.
+ */
+public class TeamSearchWorker {
+    private static final int[] SHUTDOWN_UNIT = new int[0];
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: TeamSearchWorker <host> <port> <token>");
+            return;
+        }
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+            socket.setTcpNoDelay(true);
+            new TeamSearchWorker().run(socket, args[2]);
+        }
+    }
+
+    private void run(Socket socket, String token) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        TeamSearchProtocol.writeHello(out, token);
+
+        if (in.readByte() != TeamSearchProtocol.INIT) throw new IOException("Expected INIT from coordinator");
+        TeamBuildConfig config = TeamSearchProtocol.readConfig(in);
+        List<Fusion> pinned = TeamSearchProtocol.readFusions(in);
+        List<Fusion> pool = Collections.unmodifiableList(TeamSearchProtocol.readFusions(in));
+        double globalBest = in.readDouble();
+
+        Map<Fusion, Integer> poolIndex = new IdentityHashMap<>();
+        for (int i = 0; i < pool.size(); i++) poolIndex.put(pool.get(i), i);
+
+        TaskController task = new TaskController();
+        TeamSearchContext ctx = new TeamSearchContext(pool, pinned, config, task, team -> {
+            List<Integer> picks = new ArrayList<>();
+            for (Fusion f : team.members) {
+                Integer idx = poolIndex.get(f);
+                if (idx != null) picks.add(idx);
+            }
+            try {
+                synchronized (out) {
+                    out.writeByte(TeamSearchProtocol.IMPROVED);
+                    out.writeDouble(team.realScore);
+                    TeamSearchProtocol.writeIndices(out, picks.stream().mapToInt(Integer::intValue).toArray());
+                    out.flush();
+                }
+            } catch (IOException e) {
+                task.cancel();
+            }
+        }, System.nanoTime());
+        ctx.adoptRemoteScore(globalBest);
+        System.out.println("Worker ready: " + pool.size() + " candidates, " + pinned.size() + " pinned");
+
+        // Units are read on a separate thread so global bests land while a unit is being searched
+        BlockingQueue<int[]> units = new LinkedBlockingQueue<>();
+        Map<int[], Integer> unitIds = Collections.synchronizedMap(new IdentityHashMap<>());
+        Thread reader = new Thread(() -> {
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    if (type == TeamSearchProtocol.UNIT) {
+                        int id = in.readInt();
+                        int[] prefix = TeamSearchProtocol.readIndices(in);
+                        unitIds.put(prefix, id);
+                        units.add(prefix);
+                    } else if (type == TeamSearchProtocol.BEST) {
+                        ctx.adoptRemoteScore(in.readDouble());
+                    } else {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                // Coordinator gone; treat like a shutdown
+            }
+            task.cancel();
+            units.add(SHUTDOWN_UNIT);
+        }, "TeamSearchWorker-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        TeamBuilder builder = new TeamBuilder(null);
+        int done = 0;
+        long totalNodes = 0;
+        while (true) {
+            int[] prefix;
+            try {
+                prefix = units.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (prefix == SHUTDOWN_UNIT) break;
+
+            long nodes = builder.searchPrefix(ctx, prefix);
+            if (ctx.shouldStop()) break;
+            synchronized (out) {
+                out.writeByte(TeamSearchProtocol.UNIT_DONE);
+                out.writeInt(unitIds.remove(prefix));
+                out.writeLong(nodes);
+                out.flush();
+            }
+            done++;
+            totalNodes += nodes;
+        }
+        System.out.println("Worker finished " + done + " units, " + totalNodes + " nodes");
+    }
+}
@@ -0,0 +1,238 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Type effectiveness for everything that needs it: the Gen 6+ chart, the ability
+ * modifiers of ability_modifiers.csv (Ability, Type, Multiplier), and for every
+ * (typing, ability) pair the damage multiplier of all 18 attacking types, worked
+ * out once when the class loads.
+ *
+ * Typings and abilities are small ids: a typing is its two type indices (or
+ * {@value #TYPES} for "none") combined, an ability is 0 unless it modifies some
+ * type. The multipliers of one pair are packed into a single long, three bits per
+ * attacking type holding the power of two (0 = immune, 4 = neutral), so a lookup
+ * is an array read and a shift.
+ */
+final class TypeChart {
+    static final int TYPES = 18;
+    static final String[] TYPE_NAMES = {"Normal", "Fire", "Water", "Electric", "Grass", "Ice", "Fighting", "Poison", "Ground",
+                                        "Flying", "Psychic", "Bug", "Rock", "Ghost", "Dragon", "Dark", "Steel", "Fairy"};
+    // Distinct typing ids: each slot is one of the types or none
+    static final int TYPINGS = (TYPES + 1) * (TYPES + 1);
+
+    private static final int LANE = 3;
+    private static final long LANE_MASK = (1L << LANE) - 1;
+    private static final int NEUTRAL = 4;
+    // Multiplier per lane code: immune, then 1/8x .. 8x
+    private static final double[] MULTIPLIERS = {0, 0.125, 0.25, 0.5, 1, 2, 4, 8};
+
+    // 2.0 = Weakness, 0.5 = Resistance, 0.0 = Immunity
+    private static final double[][] CHART = {
+        // Defending:
+        // Nor Fir Wat Ele Gra Ice Fig Poi Gro Fly Psy Bug Roc Gho Dra Dar Ste Fai  <-- Attacking
+        {1, 1, 1, 1, 1, 1, 2, 1, 1, 1, 1, 1, 1, 0, 1, 1, 1, 1}, // Normal
+        {1, 0.5, 2, 1, 0.5, 0.5, 1, 1, 2, 1, 1, 0.5, 2, 1, 1, 1, 0.5, 0.5}, // Fire
+        {1, 0.5, 0.5, 2, 2, 0.5, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 0.5, 1}, // Water
+        {1, 1, 1, 0.5, 1, 1, 1, 1, 2, 0.5, 1, 1, 1, 1, 1, 1, 0.5, 1}, // Electric
+        {1, 2, 0.5, 0.5, 0.5, 2, 1, 2, 0.5, 2, 1, 2, 1, 1, 1, 1, 1, 1}, // Grass
+        {1, 2, 1, 1, 1, 0.5, 2, 1, 1, 1, 1, 1, 2, 1, 1, 1, 2, 1}, // Ice
+        {1, 1, 1, 1, 1, 1, 1, 1, 1, 2, 2, 0.5, 0.5, 1, 1, 0.5, 1, 2}, // Fighting
+        {1, 1, 1, 1, 0.5, 1, 0.5, 0.5, 2, 1, 2, 0.5, 1, 1, 1, 1, 1, 0.5}, // Poison
+        {1, 1, 2, 0, 2, 2, 1, 0.5, 1, 1, 1, 1, 0.5, 1, 1, 1, 1, 1}, // Ground
+        {1, 1, 1, 2, 0.5, 2, 0.5, 1, 0, 1, 1, 0.5, 2, 1, 1, 1, 1, 1}, // Flying
+        {1, 1, 1, 1, 1, 1, 0.5, 1, 1, 1, 0.5, 2, 1, 2, 1, 2, 1, 1}, // Psychic
+        {1, 2, 1, 1, 0.5, 1, 0.5, 1, 0.5, 2, 1, 1, 2, 1, 1, 1, 1, 1}, // Bug
+        {0.5, 0.5, 2, 1, 2, 1, 2, 0.5, 2, 0.5, 1, 1, 1, 1, 1, 1, 2, 1}, // Rock
+        {0, 1, 1, 1, 1, 1, 0, 0.5, 1, 1, 1, 0.5, 1, 2, 1, 2, 1, 1}, // Ghost
+        {1, 0.5, 0.5, 0.5, 0.5, 2, 1, 1, 1, 1, 1, 1, 1, 1, 2, 1, 1, 2}, // Dragon
+        {1, 1, 1, 1, 1, 1, 2, 1, 1, 1, 0, 2, 1, 0.5, 1, 0.5, 1, 2}, // Dark
+        {0.5, 2, 1, 1, 0.5, 0.5, 2, 0, 2, 0.5, 0.5, 0.5, 0.5, 1, 0.5, 1, 0.5, 0.5}, // Steel
+        {1, 1, 1, 1, 1, 1, 0.5, 2, 1, 1, 1, 0.5, 1, 1, 0, 0.5, 2, 1}  // Fairy
+    };
+
+    // Used when ability_modifiers.csv is missing
+    private static final String[][] DEFAULT_MODIFIERS = {
+        {"Levitate", "Ground", "0"}, {"Flash Fire", "Fire", "0"}, {"Volt Absorb", "Electric", "0"},
+        {"Water Absorb", "Water", "0"}, {"Dry Skin", "Water", "0"}, {"Sap Sipper", "Grass", "0"},
+        {"Motor Drive", "Electric", "0"}, {"Storm Drain", "Water", "0"}, {"Thick Fat", "Fire", "0.5"},
+        {"Thick Fat", "Ice", "0.5"}, {"Heatproof", "Fire", "0.5"}
+    };
+
+    private static final Map<String, Integer> TYPE_INDEX = new HashMap<>();
+    // Ability id per lower-case name; abilities that modify nothing are left out (id 0)
+    private static final Map<String, Integer> ABILITY_IDS = new HashMap<>();
+    // Multiplier per attacking type, one row per ability id
+    private static final List<double[]> ABILITY_MODIFIERS = new ArrayList<>();
+    // Packed multipliers at [typingId * abilityCount() + abilityId]
+    private static final long[] VECTORS;
+    // Ids of the typing and ability strings seen so far, as written on the fusions
+    private static final Map<String, Integer> TYPING_CACHE = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> ABILITY_CACHE = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < TYPES; i++) TYPE_INDEX.put(TYPE_NAMES[i].toLowerCase(), i);
+        double[] none = new double[TYPES];
+        Arrays.fill(none, 1);
+        ABILITY_MODIFIERS.add(none);
+        loadAbilityModifiers("ability_modifiers.csv");
+
+        int abilities = ABILITY_MODIFIERS.size();
+        VECTORS = new long[TYPINGS * abilities];
+        for (int typing = 0; typing < TYPINGS; typing++) {
+            for (int ability = 0; ability < abilities; ability++) {
+                long vector = 0L;
+                for (int atk = 0; atk < TYPES; atk++) {
+                    double eff = ABILITY_MODIFIERS.get(ability)[atk];
+                    if (type1(typing) < TYPES) eff *= CHART[type1(typing)][atk];
+                    if (type2(typing) < TYPES) eff *= CHART[type2(typing)][atk];
+                    vector |= (long) code(eff) << (atk * LANE);
+                }
+                VECTORS[typing * abilities + ability] = vector;
+            }
+        }
+    }
+
+    private TypeChart() {}
+
+    private static void loadAbilityModifiers(String filename) {
+        List<String[]> rows = new ArrayList<>();
+        File file = new File(filename);
+        if (file.exists()) {
+            try (Scanner s = new Scanner(file, "UTF-8")) {
+                if (s.hasNextLine()) s.nextLine(); // Header
+                while (s.hasNextLine()) {
+                    String line = s.nextLine().trim();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    String[] p = CSVUtils.parseLine(line);
+                    if (p.length >= 3) rows.add(p);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        } else {
+            System.err.println("Ability modifier file not found: " + filename + " (using built-in modifiers)");
+            rows.addAll(Arrays.asList(DEFAULT_MODIFIERS));
+        }
+
+        for (String[] p : rows) {
+            int type = typeIndex(p[1]);
+            double multiplier;
+            try {
+                multiplier = Double.parseDouble(p[2].trim());
+            } catch (NumberFormatException e) {
+                multiplier = -1;
+            }
+            if (type < 0 || multiplier < 0) {
+                System.err.println("Skipping ability modifier: " + String.join(",", p));
+                continue;
+            }
+            String name = p[0].trim().toLowerCase();
+            Integer id = ABILITY_IDS.get(name);
+            if (id == null) {
+                id = ABILITY_MODIFIERS.size();
+                ABILITY_IDS.put(name, id);
+                double[] modifiers = new double[TYPES];
+                Arrays.fill(modifiers, 1);
+                ABILITY_MODIFIERS.add(modifiers);
+            }
+            ABILITY_MODIFIERS.get(id)[type] *= multiplier;
+        }
+        if (file.exists()) System.out.println("✓ Loaded " + ABILITY_IDS.size() + " type-modifying abilities");
+    }
+
+    // Index of a type in TYPE_NAMES (and bit in the fusion masks), -1 if unknown
+    static int typeIndex(String type) {
+        Integer idx = TYPE_INDEX.get(type.trim().toLowerCase());
+        return idx != null ? idx : -1;
+    }
+
+    /**
+     * Id of a "Type" or "Type1/Type2" typing, 0 to {@link #TYPINGS} - 1. Unknown type
+     * names count as no type.
+     */
+    static int typingId(String typing) {
+        return TYPING_CACHE.computeIfAbsent(typing, TypeChart::parseTypingId);
+    }
+
+    private static int parseTypingId(String typing) {
+        int slash = typing.indexOf('/');
+        int t1 = typeIndex(slash < 0 ? typing : typing.substring(0, slash));
+        int t2 = slash < 0 ? -1 : typeIndex(typing.substring(slash + 1));
+        return (t1 < 0 ? TYPES : t1) * (TYPES + 1) + (t2 < 0 ? TYPES : t2);
+    }
+
+    // First and second type of a typing id, TYPES for none
+    static int type1(int typingId) {
+        return typingId / (TYPES + 1);
+    }
+
+    static int type2(int typingId) {
+        return typingId % (TYPES + 1);
+    }
+
+    // Id of an ability, 0 for null and for abilities that change no multiplier
+    static int abilityId(String ability) {
+        if (ability == null) return 0;
+        return ABILITY_CACHE.computeIfAbsent(ability, a -> ABILITY_IDS.getOrDefault(a.trim().toLowerCase(), 0));
+    }
+
+    static int abilityCount() {
+        return ABILITY_MODIFIERS.size();
+    }
+
+    // Index of a (typing, ability) pair, 0 to TYPINGS * abilityCount() - 1
+    static int vectorId(int typingId, int abilityId) {
+        return typingId * ABILITY_MODIFIERS.size() + abilityId;
+    }
+
+    static int vectorId(Fusion f) {
+        return vectorId(typingId(f.typing), abilityId(f.chosenAbility));
+    }
+
+    static long vector(int vectorId) {
+        return VECTORS[vectorId];
+    }
+
+    static long vector(Fusion f) {
+        return VECTORS[vectorId(f)];
+    }
+
+    // Multiplier of one attacking type in a packed vector
+    static double multiplier(long vector, int attackingType) {
+        return MULTIPLIERS[(int) (vector >>> (attackingType * LANE) & LANE_MASK)];
+    }
+
+    /**
+     * Damage multiplier of an attacking type (index into TYPE_NAMES) against a fusion,
+     * including its ability's immunities and reductions.
+     */
+    static double effectiveness(Fusion f, int attackingType) {
+        return multiplier(vector(f), attackingType);
+    }
+
+    // Attacking types that hit harder than neutral, one bit each
+    static long weaknessMask(long vector) {
+        long mask = 0L;
+        for (int atk = 0; atk < TYPES; atk++) {
+            if ((vector >>> (atk * LANE) & LANE_MASK) > NEUTRAL) mask |= 1L << atk;
+        }
+        return mask;
+    }
+
+    // Attacking types that hit softer than neutral, immunities included
+    static long resistMask(long vector) {
+        long mask = 0L;
+        for (int atk = 0; atk < TYPES; atk++) {
+            if ((vector >>> (atk * LANE) & LANE_MASK) < NEUTRAL) mask |= 1L << atk;
+        }
+        return mask;
+    }
+
+    // Lane code of a multiplier: 0 for immune, else its power of two shifted to 1..7
+    private static int code(double multiplier) {
+        if (multiplier <= 0) return 0;
+        int exponent = (int) Math.round(Math.log(multiplier) / Math.log(2));
+        return Math.max(1, Math.min(7, exponent + NEUTRAL));
+    }
+}
@@ -3,10 +3,17 @@ import java.awt.datatransfer.StringSelection;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.border.*;
@@ -19,6 +26,7 @@ public class UIComponents {
     private final FusionCalculator calculator;
     private final TeamBuilder teamBuilder;
     private final PokedexDatabase pokedexDB;
+    private final GameProgression progression;
     
     private JTextField txtRosterSearch, txtDexSearch;
     private JList<String> listSearchResults, listRoster, listDex;
@@ -33,15 +41,57 @@ public class UIComponents {
     private StrategyPanel strategyPanel;
 
     // Constraint Sliders
-    private JSlider sldSpeciesClause, sldTypeClause, sldSelfFusion;
-    private JLabel lblSpeciesVal, lblTypeVal, lblSelfVal;
+    private JSlider sldSpeciesClause, sldTypeClause, sldSelfFusion, sldDefensiveClause;
+    private JLabel lblSpeciesVal, lblTypeVal, lblSelfVal, lblDefensiveVal;
+    private JComboBox<String> cmbTimeBudget, cmbStrategy;
+    private JSpinner spnBeamWidth, spnLocalWorkers, spnCoordinatorPort, spnTeamCount, spnRosterSize;
+    private JTextField txtCoordinatorAddress;
+    private static final String[] STRATEGY_LABELS = {"Auto", "Exact (Branch & Bound)", "Meet in the Middle", "Beam Search", "Large Neighborhood",
+                                                     "Distributed (worker JVMs)"};
+    private static final TeamBuildConfig.Strategy[] STRATEGIES = {
+        TeamBuildConfig.Strategy.AUTO, TeamBuildConfig.Strategy.EXACT, TeamBuildConfig.Strategy.MITM,
+        TeamBuildConfig.Strategy.BEAM, TeamBuildConfig.Strategy.LNS, TeamBuildConfig.Strategy.DISTRIBUTED
+    };
+    private static final String[] TIME_BUDGET_LABELS = {"Unlimited", "1 s", "2 s", "5 s", "10 s", "30 s"};
+    private static final long[] TIME_BUDGET_MS = {0, 1000, 2000, 5000, 10000, 30000};
+    private static final String CHECKPOINT_FILE = "team_search.ckpt";
+    // Random opponents each team meets when simulating matchups
+    private static final int SIMULATED_BATTLES = 1_000_000;
     
     // Scoring Weights
     private JSlider sldStatWeight, sldTypeWeight, sldAbilityWeight, sldMoveWeight;
     private JLabel lblStatW, lblTypeW, lblAbiW, lblMoveW;
-    private JCheckBox chkHiddenPenalty;
+    private JCheckBox chkHiddenPenalty, chkCheckpoint, chkSwapPairs;
+    private JTextArea txtTeamRules;
     
     private List<Fusion> calculatedFusions = new ArrayList<>();
+    // Fusions listed in the rankings table (all of them, or a filter's matches), in table model order
+    private List<Fusion> rankedFusions = new ArrayList<>();
+    // Fusions the roster optimizer calculated, kept while the scoring weights stay the same
+    private RosterOptimizer.PairCache rosterPairs;
+    // Matchup simulator over calculatedFusions, rebuilt when those change
+    private BattleSimulator simulator;
+    private List<Fusion> simulatorPool;
+    // Guards the per-pool indexes, KD-tree and weight sweep below, which query threads build and read
+    private final Object indexLock = new Object();
+    // Weak / resist / immune bitmaps over calculatedFusions, rebuilt when those change
+    private DefenseIndex defenseIndex;
+    private List<Fusion> defenseIndexPool;
+    // Stat and text indexes over calculatedFusions for the filter dialog, rebuilt when those change
+    private FusionIndex fusionIndex;
+    private List<Fusion> fusionIndexPool;
+    // Skyline tab: dimension choices and the fusions listed, in table model order
+    private final Map<Skyline.Dimension, JCheckBox> skylineDimensions = new EnumMap<>(Skyline.Dimension.class);
+    private DefaultTableModel skylineTableModel;
+    private List<Fusion> skylineFusions = new ArrayList<>();
+    // Stat-space KD-tree over calculatedFusions for "Find Similar", rebuilt when those change
+    private FusionNeighbors neighbors;
+    private List<Fusion> neighborsPool;
+    // Score components of calculatedFusions for the weight sweep, rebuilt when those change
+    private WeightSweep weightSweep;
+    private List<Fusion> weightSweepPool;
+    // Teams currently listed in the team table, in table order
+    private List<Team> shownTeams = new ArrayList<>();
     private Set<Fusion> pinnedFusions = new HashSet<>();
     private Map<String, ImageIcon> typeIconCache = new HashMap<>();
     private AtomicBoolean isCalculating = new AtomicBoolean(false);
@@ -65,6 +115,7 @@ public class UIComponents {
         this.teamBuilder = builder;
         this.strategyPanel = new StrategyPanel();
         this.pokedexDB = new PokedexDatabase("pokedex_data.csv");
+        this.progression = new GameProgression("progression.csv");
         loadLegendaries("legendaries.csv");
         generateTypeIcons();
         loadTypeIcons();
@@ -196,12 +247,95 @@ public class UIComponents {
         sldSelfFusion = new JSlider(0, 100, 0); // Default Allowed
         lblSelfVal = new JLabel();
         panel.add(createConstraintSlider("Self Fusions:", sldSelfFusion, lblSelfVal));
+        panel.add(Box.createVerticalStrut(5));
+        
+        sldDefensiveClause = new JSlider(0, 100, 20); // Default Weighted
+        lblDefensiveVal = new JLabel();
+        panel.add(createConstraintSlider("Shared Weakness (>2):", sldDefensiveClause, lblDefensiveVal));
+        panel.add(Box.createVerticalStrut(5));
+        
+        // Hard team rules, one per line (see TeamConstraints), e.g. "at least 1 role Sweeper"
+        txtTeamRules = new JTextArea(4, 30);
+        txtTeamRules.setFont(new Font("Consolas", Font.PLAIN, 11));
+        txtTeamRules.setToolTipText("<html>One rule per line, e.g.<br>at least 1 role Sweeper<br>at most 2 type Dragon<br>"
+            + "average spe >= 90<br>require resist Fairy<br>exclude legendary</html>");
+        JScrollPane rulesScroll = new JScrollPane(txtTeamRules);
+        rulesScroll.setAlignmentX(Component.LEFT_ALIGNMENT);
+        rulesScroll.setMaximumSize(new Dimension(400, 80));
+        JPanel rulesHeader = new JPanel(new BorderLayout(5, 0));
+        rulesHeader.setBackground(Color.WHITE);
+        rulesHeader.setAlignmentX(Component.LEFT_ALIGNMENT);
+        rulesHeader.setMaximumSize(new Dimension(400, 30));
+        JLabel rulesLbl = new JLabel("Team Rules:");
+        rulesLbl.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        rulesHeader.add(rulesLbl, BorderLayout.WEST);
+        rulesHeader.add(createButton("Load...", this::loadTeamRules, false), BorderLayout.EAST);
+        panel.add(rulesHeader);
+        panel.add(rulesScroll);
+        panel.add(Box.createVerticalStrut(5));
+        
+        // Several teams at once share no species, e.g. one per player
+        spnTeamCount = new JSpinner(new SpinnerNumberModel(1, 1, 8, 1));
+        panel.add(createLabeledRow("Teams (no shared species):", spnTeamCount));
+        panel.add(Box.createVerticalStrut(5));
+        
+        cmbTimeBudget = new JComboBox<>(TIME_BUDGET_LABELS);
+        panel.add(createLabeledRow("Time Budget:", cmbTimeBudget));
+        panel.add(Box.createVerticalStrut(5));
+        
+        cmbStrategy = new JComboBox<>(STRATEGY_LABELS);
+        panel.add(createLabeledRow("Search Engine:", cmbStrategy));
+        panel.add(Box.createVerticalStrut(5));
+        
+        spnBeamWidth = new JSpinner(new SpinnerNumberModel(BeamSearchStrategy.DEFAULT_WIDTH, 1, 4096, 16));
+        panel.add(createLabeledRow("Beam Width:", spnBeamWidth));
+        panel.add(Box.createVerticalStrut(5));
+        
+        // Distributed search: worker JVMs started here, plus any started elsewhere against the port
+        spnLocalWorkers = new JSpinner(new SpinnerNumberModel(2, 0, 32, 1));
+        panel.add(createLabeledRow("Local Workers:", spnLocalWorkers));
+        panel.add(Box.createVerticalStrut(5));
+        spnCoordinatorPort = new JSpinner(new SpinnerNumberModel(0, 0, 65535, 1));
+        spnCoordinatorPort.setEditor(new JSpinner.NumberEditor(spnCoordinatorPort, "#"));
+        panel.add(createLabeledRow("Port (0 = auto):", spnCoordinatorPort));
+        panel.add(Box.createVerticalStrut(5));
+        // Loopback keeps the coordinator private; 0.0.0.0 lets workers on other machines in
+        txtCoordinatorAddress = new JTextField(TeamBuildConfig.LOOPBACK);
+        panel.add(createLabeledRow("Listen On:", txtCoordinatorAddress));
+        
+        panel.add(Box.createVerticalStrut(15));
         
+        // Exact searches save their frontier here, so a stopped one can carry on later
+        chkCheckpoint = new JCheckBox("Save progress of exact searches (" + CHECKPOINT_FILE + ")");
+        chkCheckpoint.setBackground(Color.WHITE);
+        chkCheckpoint.setAlignmentX(Component.LEFT_ALIGNMENT);
+        panel.add(chkCheckpoint);
         panel.add(Box.createVerticalStrut(15));
         
-        JButton btnBuild = createButton("2. Find Optimal Team", this::runTeamBuilder, true);
+        JButton btnBuild = createButton("2. Find Optimal Team", () -> runTeamBuilder(false), true);
         btnBuild.setAlignmentX(Component.LEFT_ALIGNMENT);
         panel.add(btnBuild);
+        panel.add(Box.createVerticalStrut(5));
+        JButton btnResume = createButton("Resume Saved Search", () -> runTeamBuilder(true), false);
+        btnResume.setAlignmentX(Component.LEFT_ALIGNMENT);
+        panel.add(btnResume);
+        panel.add(Box.createVerticalStrut(8));
+        
+        // Which species to catch: the best roster of this size from the roster list (or the whole dex)
+        spnRosterSize = new JSpinner(new SpinnerNumberModel(12, 2, 60, 1));
+        panel.add(createLabeledRow("Roster Size:", spnRosterSize));
+        panel.add(Box.createVerticalStrut(5));
+        JButton btnOptimizeRoster = createButton("Optimize Roster", this::runRosterOptimizer, false);
+        btnOptimizeRoster.setAlignmentX(Component.LEFT_ALIGNMENT);
+        panel.add(btnOptimizeRoster);
+        panel.add(Box.createVerticalStrut(5));
+        JButton btnProgression = createButton("Best Team per Checkpoint", this::runProgressionSearch, false);
+        btnProgression.setAlignmentX(Component.LEFT_ALIGNMENT);
+        panel.add(btnProgression);
+        panel.add(Box.createVerticalStrut(5));
+        JButton btnCounter = createButton("Find Counter Team...", this::runCounterSearch, false);
+        btnCounter.setAlignmentX(Component.LEFT_ALIGNMENT);
+        panel.add(btnCounter);
         panel.add(Box.createVerticalStrut(8));
         
         teamProgress = new JProgressBar(0, 100);
@@ -214,7 +348,30 @@ public class UIComponents {
         return panel;
     }
 
-    private void runTeamBuilder() {
+    private static String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        if (seconds >= 86_400) return "> 1 day";
+        if (seconds < 60) return seconds + "s";
+        if (seconds < 3600) return (seconds / 60) + "m " + (seconds % 60) + "s";
+        return (seconds / 3600) + "h " + (seconds % 3600 / 60) + "m";
+    }
+
+    private JPanel createLabeledRow(String title, JComponent field) {
+        JPanel p = new JPanel(new BorderLayout(5, 5));
+        p.setBackground(Color.WHITE);
+        
+        JLabel titleLbl = new JLabel(title);
+        titleLbl.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        p.add(titleLbl, BorderLayout.WEST);
+        
+        field.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        p.add(field, BorderLayout.CENTER);
+        p.setMaximumSize(new Dimension(400, 26));
+        p.setAlignmentX(Component.LEFT_ALIGNMENT);
+        return p;
+    }
+
+    private void runTeamBuilder(boolean resume) {
         if (isBuilding.get()) {
             JOptionPane.showMessageDialog(frame, "Busy!", "Warning", JOptionPane.WARNING_MESSAGE);
             return;
@@ -224,66 +381,288 @@ public class UIComponents {
             return;
         }
         
+        TeamConstraints rules;
+        try {
+            rules = TeamConstraints.parse(txtTeamRules.getText(), legendarySet);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(frame, e.getMessage(), "Team Rules", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        // A resumed search is always the single-team one its checkpoint came from
+        int teamCount = resume ? 1 : (Integer) spnTeamCount.getValue();
+        if (teamCount > 1 && !pinnedFusions.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "Pinned fusions only apply to single-team searches.\nUnpin them or set Teams to 1.",
+                "Teams", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
         if (currentTask != null) currentTask.cancel();
         currentTask = new TaskController();
         isBuilding.set(true);
         teamProgress.setValue(0);
         
-        // Pass slider values to config
-        TeamBuildConfig config = new TeamBuildConfig(
-            sldSpeciesClause.getValue(),
-            sldTypeClause.getValue(),
-            sldSelfFusion.getValue()
-        );
+        TeamBuildConfig config = scoringConfig(rules)
+         .withStrategy(STRATEGIES[cmbStrategy.getSelectedIndex()], (Integer) spnBeamWidth.getValue())
+         .withDistributed((Integer) spnLocalWorkers.getValue(), (Integer) spnCoordinatorPort.getValue(),
+             txtCoordinatorAddress.getText())
+         .withCheckpoint(resume || chkCheckpoint.isSelected() ? CHECKPOINT_FILE : null);
+        
+        // Latest improved team not yet shown; the EDT only ever renders the newest one
+        AtomicReference<Team> pendingIncumbent = new AtomicReference<>();
         
         new Thread(() -> {
-            log("\n=== TEAM SEARCH (Optimized) ===");
+            log("\n=== TEAM SEARCH (" + (resume ? "RESUMED" : STRATEGY_LABELS[cmbStrategy.getSelectedIndex()]) + ") ===");
             long start = System.currentTimeMillis();
             
-            List<Team> teams = teamBuilder.buildTeams(calculatedFusions, pinnedFusions, config, currentTask,
-                (current, total) -> {
+            BiConsumer<Integer, Integer> progress = (current, total) -> {
+                SwingUtilities.invokeLater(() -> {
+                    // Open-ended strategies (LNS) report rounds without a total
+                    if (total > 0) teamProgress.setValue((int)((current / (float)total) * 100));
+                    TeamSearchStats live = teamBuilder.getLiveStats();
+                    long eta = live != null ? live.getEtaMillis() : -1;
+                    teamProgress.setString((total > 0 ? "Checked: " : "Rounds: ") + current
+                        + (eta >= 0 ? " | ETA " + formatDuration(eta) : ""));
+                });
+            };
+            Consumer<Team> incumbent = team -> {
+                if (pendingIncumbent.getAndSet(team) == null) {
                     SwingUtilities.invokeLater(() -> {
-                        teamProgress.setValue((int)((current / (float)total) * 100));
-                        teamProgress.setString("Checked: " + current);
+                        Team latest = pendingIncumbent.getAndSet(null);
+                        if (latest != null && isBuilding.get()) {
+                            showTeams(Collections.singletonList(latest), "best so far");
+                        }
                     });
-                });
+                }
+            };
+            
+            TeamSearchResult result;
+            if (resume) {
+                try {
+                    result = teamBuilder.resumeTeams(calculatedFusions, pinnedFusions, config, currentTask, progress, incumbent);
+                } catch (IOException e) {
+                    log("Cannot resume: " + e.getMessage());
+                    SwingUtilities.invokeLater(() -> {
+                        isBuilding.set(false);
+                        teamProgress.setString("Ready");
+                        JOptionPane.showMessageDialog(frame, "Cannot resume: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    });
+                    return;
+                }
+            } else if (teamCount > 1) {
+                result = teamBuilder.buildDisjointTeams(calculatedFusions, config, teamCount, currentTask, progress);
+            } else {
+                result = teamBuilder.buildTeams(calculatedFusions, pinnedFusions, config, currentTask, progress, incumbent);
+            }
+            log(result.stats.format());
             
             SwingUtilities.invokeLater(() -> {
-                teamTableModel.setRowCount(0);
-                if (teams.isEmpty()) {
+                isBuilding.set(false);
+                pendingIncumbent.set(null);
+                if (result.teams.isEmpty()) {
+                    teamTableModel.setRowCount(0);
+                    shownTeams = new ArrayList<>();
                     log("No teams found.");
                 } else {
-                    for (int i = 0; i < teams.size(); i++) {
-                        Team t = teams.get(i);
-                        // FIX: Added balance bonus display
-                        String bonusStr = t.balanceBonus > 0 ? String.format(" (+%.3f)", t.balanceBonus) : 
-                                          t.balanceBonus < 0 ? String.format(" (%.3f)", t.balanceBonus) : "";
-                        
-                        teamTableModel.addRow(new Object[]{
-                            "Team " + (i+1) + bonusStr, "", "", "", "", "", 
-                            String.format("%.3f", t.realScore)
-                        });
-                        
-                        t.members.sort((a, b) -> Double.compare(b.score, a.score));
-                        for (Fusion f : t.members) {
-                            teamTableModel.addRow(new Object[]{
-                                "", cap(f.headName), cap(f.bodyName), f.typing, 
-                                f.chosenAbility, f.role, f.score
-                            });
-                        }
-                        teamTableModel.addRow(new Object[]{"", "", "", "", "", "", ""});
+                    String status = result.complete ? "optimal" : String.format("within %.3f of optimal", result.getOptimalityGap());
+                    showTeams(result.teams, status);
+                    strategyPanel.displayTeam(result.teams.get(0));
+                    if (teamCount > 1) {
+                        log(String.format("%d of %d species-disjoint teams, total score %.3f", result.teams.size(), teamCount,
+                            result.getTotalScore()));
                     }
-                    if (!teams.isEmpty()) {
-                        strategyPanel.displayTeam(teams.get(0));
+                    if (!result.complete) {
+                        log(String.format("Not proven optimal: %s %.3f, upper bound %.3f (within %.3f of optimal)",
+                            teamCount > 1 ? "total" : "best", result.getTotalScore(), result.upperBound, result.getOptimalityGap()));
                     }
                 }
                 teamProgress.setValue(100);
-                teamProgress.setString("Done (" + (System.currentTimeMillis() - start) + "ms)");
-                isBuilding.set(false);
+                teamProgress.setString((result.complete ? "Done (" : "Stopped (") + (System.currentTimeMillis() - start) + "ms)");
             });
         }).start();
     }
 
+    /**
+     * Config carrying the clause sliders and team rules, the part every use of the
+     * team score shares.
+     */
+    private TeamBuildConfig scoringConfig(TeamConstraints rules) {
+        return new TeamBuildConfig(
+            sldSpeciesClause.getValue(),
+            sldTypeClause.getValue(),
+            sldSelfFusion.getValue(),
+            TIME_BUDGET_MS[cmbTimeBudget.getSelectedIndex()]
+        ).withDefensiveClause(sldDefensiveClause.getValue())
+         .withConstraints(rules);
+    }
+
+    private void suggestSwaps() {
+        if (shownTeams.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "Build a team first!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (isBuilding.get()) {
+            JOptionPane.showMessageDialog(frame, "Busy!", "Warning", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        TeamConstraints rules;
+        try {
+            rules = TeamConstraints.parse(txtTeamRules.getText(), legendarySet);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(frame, e.getMessage(), "Team Rules", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        // The team whose rows hold the selection, else the first one
+        int teamIndex = 0;
+        int row = teamTable.getSelectedRow();
+        for (int i = 0, first = 0; row >= 0 && i < shownTeams.size(); i++) {
+            first += shownTeams.get(i).members.size() + 2;
+            if (row < first) { teamIndex = i; break; }
+        }
+        Team team = shownTeams.get(teamIndex);
+        String label = "Team " + (teamIndex + 1);
+        TeamBuildConfig config = scoringConfig(rules);
+        List<Fusion> fusions = calculatedFusions;
+        boolean pairs = chkSwapPairs.isSelected();
+
+        isBuilding.set(true);
+        teamProgress.setString("Looking for swaps...");
+        new Thread(() -> {
+            try {
+                List<SwapSuggester.Swap> swaps = teamBuilder.suggestSwaps(team.members, fusions, config, 10, pairs);
+                SwingUtilities.invokeLater(() -> showSwaps(label, team, swaps, config));
+            } catch (RuntimeException e) {
+                log("Swap search failed: " + e);
+            } finally {
+                SwingUtilities.invokeLater(() -> {
+                    isBuilding.set(false);
+                    teamProgress.setString("Ready");
+                });
+            }
+        }).start();
+    }
+
+    private void simulateMatchups() {
+        if (shownTeams.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "Build a team first!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (isBuilding.get()) {
+            JOptionPane.showMessageDialog(frame, "Busy!", "Warning", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        List<Team> teams = new ArrayList<>(shownTeams);
+        List<Fusion> fusions = calculatedFusions;
+        isBuilding.set(true);
+        teamProgress.setString("Simulating...");
+        new Thread(() -> {
+            try {
+                if (simulator == null || simulatorPool != fusions) {
+                    simulator = new BattleSimulator(fusions, 1L);
+                    simulatorPool = fusions;
+                }
+                BattleSimulator sim = simulator;
+                log("\n=== MATCHUP SIMULATION (" + SIMULATED_BATTLES + " random opponents from " + sim.poolSize() + " fusions) ===");
+                Map<Team, Double> winRates = new IdentityHashMap<>();
+                for (int i = 0; i < teams.size(); i++) {
+                    BattleSimulator.Result result = sim.simulate(teams.get(i), SIMULATED_BATTLES);
+                    winRates.put(teams.get(i), result.winRate());
+                    log(String.format("Team %d (%.3f): %s", i + 1, teams.get(i).realScore, result.format()));
+                }
+                // Equal scores are ordered by how the teams fare in battle
+                List<Team> ordered = BattleSimulator.breakTies(teams, winRates);
+                SwingUtilities.invokeLater(() -> {
+                    if (!ordered.equals(teams)) {
+                        showTeams(ordered, "tie broken by simulation");
+                        log("Teams with equal scores reordered by simulated win rate.");
+                    }
+                });
+            } catch (RuntimeException e) {
+                log("Simulation failed: " + e);
+            } finally {
+                SwingUtilities.invokeLater(() -> {
+                    isBuilding.set(false);
+                    teamProgress.setString("Ready");
+                });
+            }
+        }).start();
+    }
+
+    private void showSwaps(String label, Team team, List<SwapSuggester.Swap> swaps, TeamBuildConfig config) {
+        if (swaps.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "No swap raises the score of " + label + ".", "Suggested Swaps",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        DefaultTableModel model = new DefaultTableModel(new String[]{"Out", "In", "New Score", "Gain"}, 0) {
+            public boolean isCellEditable(int r, int c) { return false; }
+        };
+        for (SwapSuggester.Swap s : swaps) {
+            model.addRow(new Object[]{ names(s.removed), names(s.added),
+                String.format("%.3f", s.score), String.format("+%.3f", s.gain) });
+        }
+        // Scored under the current sliders, which may differ from the ones the team was built with
+        double current = swaps.get(0).score - swaps.get(0).gain;
+        JTable table = new JTable(model);
+        table.setRowHeight(24);
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(640, 280));
+
+        JPanel content = new JPanel(new BorderLayout(0, 8));
+        content.add(new JLabel(String.format("%s scores %.3f. Best swaps:", label, current)), BorderLayout.NORTH);
+        content.add(scroll, BorderLayout.CENTER);
+        Object[] options = {"Apply Selected", "Close"};
+        table.setRowSelectionInterval(0, 0);
+        int choice = JOptionPane.showOptionDialog(frame, content, "Suggested Swaps", JOptionPane.DEFAULT_OPTION,
+            JOptionPane.PLAIN_MESSAGE, null, options, options[1]);
+        if (choice == 0 && table.getSelectedRow() >= 0) {
+            SwapSuggester.Swap s = swaps.get(table.getSelectedRow());
+            Team swapped = s.apply(team.members, config);
+            List<Team> teams = new ArrayList<>(shownTeams);
+            teams.set(teams.indexOf(team), swapped);
+            showTeams(teams, "after swap");
+            strategyPanel.displayTeam(swapped);
+            log(String.format("Swapped %s for %s: score %.3f (+%.3f)", names(s.removed), names(s.added), swapped.realScore, s.gain));
+        }
+    }
+
+    private String names(List<Fusion> fusions) {
+        StringBuilder sb = new StringBuilder();
+        for (Fusion f : fusions) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(cap(f.headName)).append('/').append(cap(f.bodyName));
+        }
+        return sb.toString();
+    }
+
+    private void showTeams(List<Team> teams, String status) {
+        shownTeams = new ArrayList<>(teams);
+        teamTableModel.setRowCount(0);
+        for (int i = 0; i < teams.size(); i++) {
+            Team t = teams.get(i);
+            // FIX: Added balance bonus display
+            String bonusStr = t.balanceBonus > 0 ? String.format(" (+%.3f)", t.balanceBonus) : 
+                              t.balanceBonus < 0 ? String.format(" (%.3f)", t.balanceBonus) : "";
+            String statusStr = " - " + status;
+            
+            teamTableModel.addRow(new Object[]{
+                "Team " + (i+1) + bonusStr + statusStr, "", "", "", "", "", 
+                String.format("%.3f", t.realScore)
+            });
+            
+            List<Fusion> members = new ArrayList<>(t.members);
+            members.sort((a, b) -> Double.compare(b.score, a.score));
+            for (Fusion f : members) {
+                teamTableModel.addRow(new Object[]{
+                    "", cap(f.headName), cap(f.bodyName), f.typing, 
+                    f.chosenAbility, f.role, f.score
+                });
+            }
+            teamTableModel.addRow(new Object[]{"", "", "", "", "", "", ""});
+        }
+    }
+
     // ... [Rest of helper methods: createSlider, createRosterPanel, createCalcSettingsPanel, createSpritePanel, showFilterDialog, etc.] ...
     // These remain largely the same, just included for context if needed. I will output the FULL file for safety.
 
@@ -400,48 +779,41 @@ public class UIComponents {
     
     private void showFilterDialog() {
         JDialog dlg = new JDialog(frame, "Filter Fusions", true);
-        dlg.setLayout(new GridLayout(8, 2, 5, 5));
+        dlg.setLayout(new GridLayout(11, 2, 5, 5));
         JTextField txtType = new JTextField();
         JTextField txtAbility = new JTextField();
+        JTextField txtRole = new JTextField();
         JTextField txtHP = new JTextField("0");
         JTextField txtAtk = new JTextField("0");
         JTextField txtDef = new JTextField("0");
         JTextField txtSpA = new JTextField("0");
         JTextField txtSpD = new JTextField("0");
         JTextField txtSpe = new JTextField("0");
+        JTextField txtBST = new JTextField("0");
         dlg.add(new JLabel("Type contains:")); dlg.add(txtType);
         dlg.add(new JLabel("Ability contains:")); dlg.add(txtAbility);
+        dlg.add(new JLabel("Role contains:")); dlg.add(txtRole);
         dlg.add(new JLabel("Min HP:")); dlg.add(txtHP);
         dlg.add(new JLabel("Min Attack:")); dlg.add(txtAtk);
         dlg.add(new JLabel("Min Defense:")); dlg.add(txtDef);
         dlg.add(new JLabel("Min Sp. Atk:")); dlg.add(txtSpA);
         dlg.add(new JLabel("Min Sp. Def:")); dlg.add(txtSpD);
         dlg.add(new JLabel("Min Speed:")); dlg.add(txtSpe);
+        dlg.add(new JLabel("Min BST:")); dlg.add(txtBST);
         JButton apply = createButton("Apply Filter", () -> {
-            List<Fusion> filtered = new ArrayList<>();
-            String tQuery = txtType.getText().toLowerCase();
-            String aQuery = txtAbility.getText().toLowerCase();
-            int minHP = parseIntSafe(txtHP.getText());
-            int minAtk = parseIntSafe(txtAtk.getText());
-            int minDef = parseIntSafe(txtDef.getText());
-            int minSpA = parseIntSafe(txtSpA.getText());
-            int minSpD = parseIntSafe(txtSpD.getText());
-            int minSpe = parseIntSafe(txtSpe.getText());
-            for (Fusion f : calculatedFusions) {
-                boolean match = true;
-                if (!tQuery.isEmpty() && !f.typing.toLowerCase().contains(tQuery)) match = false;
-                if (!aQuery.isEmpty() && !f.chosenAbility.toLowerCase().contains(aQuery)) match = false;
-                if (f.hp < minHP) match = false;
-                if (f.atk < minAtk) match = false;
-                if (f.def < minDef) match = false;
-                if (f.spa < minSpA) match = false;
-                if (f.spd < minSpD) match = false;
-                if (f.spe < minSpe) match = false;
-                if (match) filtered.add(f);
-            }
-            updateFusionTable(filtered); 
-            log("Filter applied. Showing " + filtered.size() + " fusions.");
+            FusionFilter filter = new FusionFilter();
+            filter.typeConstraint = txtType.getText().trim();
+            filter.abilityConstraint = txtAbility.getText().trim();
+            filter.roleConstraint = txtRole.getText().trim();
+            filter.minHP = parseIntSafe(txtHP.getText());
+            filter.minAtk = parseIntSafe(txtAtk.getText());
+            filter.minDef = parseIntSafe(txtDef.getText());
+            filter.minSpa = parseIntSafe(txtSpA.getText());
+            filter.minSpd = parseIntSafe(txtSpD.getText());
+            filter.minSpe = parseIntSafe(txtSpe.getText());
+            filter.minBST = parseIntSafe(txtBST.getText());
             dlg.dispose();
+            applyFilter(filter);
         }, true);
         JPanel btnP = new JPanel(); btnP.add(apply);
         dlg.add(new JLabel("")); dlg.add(btnP);
@@ -449,6 +821,91 @@ public class UIComponents {
         dlg.setLocationRelativeTo(frame);
         dlg.setVisible(true);
     }
+
+    // Runs the filter off the EDT, indexing the calculated fusions the first time after a calculation
+    private void applyFilter(FusionFilter filter) {
+        List<Fusion> fusions = calculatedFusions;
+        new Thread(() -> {
+            FusionIndex index = fusionIndex(fusions);
+            long start = System.nanoTime();
+            List<Fusion> filtered = filter.apply(index);
+            double millis = (System.nanoTime() - start) / 1e6;
+            SwingUtilities.invokeLater(() -> {
+                updateFusionTable(filtered);
+                log(String.format("Filter applied. Showing %d fusions (%.1fms).", filtered.size(), millis));
+            });
+        }).start();
+    }
+    
+    private void showDefenseQueryDialog() {
+        if (calculatedFusions.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "Calculate fusions first!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JTextField txtQuery = new JTextField("resist fire and resist ice and immune ground", 36);
+        JPanel form = new JPanel(new BorderLayout(0, 8));
+        form.add(new JLabel("<html>Terms: weak / resist / immune &lt;type&gt; (resist includes immunities)<br>"
+            + "Combine with and, or, not and parentheses.</html>"), BorderLayout.NORTH);
+        form.add(txtQuery, BorderLayout.CENTER);
+        if (JOptionPane.showConfirmDialog(frame, form, "Defense Query", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        DefenseIndex.Query query;
+        try {
+            query = DefenseIndex.Query.parse(txtQuery.getText());
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(frame, e.getMessage(), "Defense Query", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        List<Fusion> fusions = calculatedFusions;
+        
+        new Thread(() -> {
+            DefenseIndex index = defenseIndex(fusions);
+            long start = System.nanoTime();
+            int[] rows = index.rows(query);
+            double millis = (System.nanoTime() - start) / 1e6;
+            List<Fusion> matches = new ArrayList<>(rows.length);
+            for (int row : rows) matches.add(fusions.get(row));
+            
+            SwingUtilities.invokeLater(() -> {
+                updateFusionTable(matches);
+                log(String.format("Defense query \"%s\": %d of %d fusions in %.1fms", txtQuery.getText().trim(),
+                    rows.length, fusions.size(), millis));
+            });
+        }).start();
+    }
+    
+    /**
+     * The filter index over exactly {@code fusions}, built on first use.
+     */
+    private FusionIndex fusionIndex(List<Fusion> fusions) {
+        synchronized (indexLock) {
+            if (fusionIndexPool != fusions) {
+                long start = System.nanoTime();
+                fusionIndex = new FusionIndex(fusions);
+                fusionIndexPool = fusions;
+                log(String.format("Indexed %d fusions for filtering in %.0fms", fusions.size(), (System.nanoTime() - start) / 1e6));
+            }
+            return fusionIndex;
+        }
+    }
+
+    /**
+     * The defense index over exactly {@code fusions}, built on first use. Row numbers
+     * it returns are positions in that list.
+     */
+    private DefenseIndex defenseIndex(List<Fusion> fusions) {
+        synchronized (indexLock) {
+            if (defenseIndexPool != fusions) {
+                long start = System.nanoTime();
+                defenseIndex = new DefenseIndex(fusions);
+                defenseIndexPool = fusions;
+                log(String.format("Indexed %d fusions by defensive profile in %.0fms", fusions.size(), (System.nanoTime() - start) / 1e6));
+            }
+            return defenseIndex;
+        }
+    }
     
     private int parseIntSafe(String s) {
         try { return Integer.parseInt(s.trim()); } catch (Exception e) { return 0; }
@@ -489,6 +946,7 @@ public class UIComponents {
         JTabbedPane tabs = new JTabbedPane();
         tabs.setFont(new Font("Segoe UI", Font.BOLD, 12));
         tabs.addTab("Rankings", createRankingsTab());
+        tabs.addTab("Skyline", createSkylineTab());
         tabs.addTab("Team Builder", createTeamTab());
         tabs.addTab("Strategy Heatmap", strategyPanel);
         tabs.addTab("Scoring", createScoringTab());
@@ -520,12 +978,98 @@ public class UIComponents {
         JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         bottom.setBackground(Color.WHITE);
         bottom.add(createButton("Filter", this::showFilterDialog, false));
+        bottom.add(createButton("Defense Query", this::showDefenseQueryDialog, false));
         bottom.add(createButton("Copy to Clipboard", () -> copyTable(fusionTable), false));
         bottom.add(createButton("Export CSV", () -> exportData(fusionTable, "fusions.csv"), false));
         panel.add(bottom, BorderLayout.SOUTH);
         return panel;
     }
 
+    private JPanel createSkylineTab() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(Color.WHITE);
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        top.setBackground(Color.WHITE);
+        top.add(new JLabel("Not beaten on all of:"));
+        EnumSet<Skyline.Dimension> defaults = EnumSet.of(Skyline.Dimension.SPEED, Skyline.Dimension.OFFENSE,
+            Skyline.Dimension.BULK, Skyline.Dimension.TYPE_RANK, Skyline.Dimension.ABILITY);
+        for (Skyline.Dimension d : Skyline.Dimension.values()) {
+            JCheckBox chk = new JCheckBox(d.label, defaults.contains(d));
+            chk.setBackground(Color.WHITE);
+            skylineDimensions.put(d, chk);
+            top.add(chk);
+        }
+        top.add(createButton("Compute Skyline", this::computeSkyline, true));
+        panel.add(top, BorderLayout.NORTH);
+        
+        skylineTableModel = new DefaultTableModel() {
+            public boolean isCellEditable(int r, int c) { return false; }
+            public Class<?> getColumnClass(int columnIndex) {
+                return getRowCount() > 0 && getValueAt(0, columnIndex) != null ? getValueAt(0, columnIndex).getClass() : Object.class;
+            }
+        };
+        JTable table = new JTable(skylineTableModel);
+        table.setAutoCreateRowSorter(true);
+        table.setRowHeight(26);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
+        table.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                int row = table.getSelectedRow();
+                if (e.getClickCount() == 2 && row >= 0) showDetailsPopup(skylineFusions.get(table.convertRowIndexToModel(row)));
+            }
+        });
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        bottom.setBackground(Color.WHITE);
+        bottom.add(createButton("Copy to Clipboard", () -> copyTable(table), false));
+        bottom.add(createButton("Export CSV", () -> exportData(table, "skyline.csv"), false));
+        panel.add(bottom, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private void computeSkyline() {
+        if (calculatedFusions.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "Calculate fusions first!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        List<Skyline.Dimension> dimensions = new ArrayList<>();
+        for (Map.Entry<Skyline.Dimension, JCheckBox> e : skylineDimensions.entrySet()) {
+            if (e.getValue().isSelected()) dimensions.add(e.getKey());
+        }
+        if (dimensions.size() < 2) {
+            JOptionPane.showMessageDialog(frame, "Pick at least two dimensions.", "Skyline", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        List<Fusion> fusions = calculatedFusions;
+        
+        new Thread(() -> {
+            long start = System.currentTimeMillis();
+            List<Fusion> skyline = Skyline.compute(fusions, dimensions);
+            long millis = System.currentTimeMillis() - start;
+            
+            SwingUtilities.invokeLater(() -> {
+                List<String> cols = new ArrayList<>(Arrays.asList("Head", "Body", "Types", "Ability", "Role"));
+                for (Skyline.Dimension d : dimensions) cols.add(d.label);
+                cols.add("Score");
+                skylineTableModel.setDataVector(new Object[0][], cols.toArray());
+                for (Fusion f : skyline) {
+                    List<Object> row = new ArrayList<>(Arrays.asList(cap(f.headName), cap(f.bodyName), f.typing, f.chosenAbility, f.role));
+                    for (Skyline.Dimension d : dimensions) {
+                        double v = d.value.applyAsDouble(f);
+                        boolean fractional = d == Skyline.Dimension.ABILITY || d == Skyline.Dimension.SCORE;
+                        row.add(fractional ? (Object) v : (Object) (int) v);
+                    }
+                    row.add(f.score);
+                    skylineTableModel.addRow(row.toArray());
+                }
+                skylineFusions = skyline;
+                log(String.format("Skyline over %s: %d of %d fusions are not dominated (%dms)",
+                    dimensions, skyline.size(), fusions.size(), millis));
+            });
+        }).start();
+    }
+
     private JPanel createTeamTab() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(Color.WHITE);
@@ -542,6 +1086,11 @@ public class UIComponents {
         panel.add(new JScrollPane(teamTable), BorderLayout.CENTER);
         JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         bottom.setBackground(Color.WHITE);
+        chkSwapPairs = new JCheckBox("Include two-member swaps");
+        chkSwapPairs.setBackground(Color.WHITE);
+        bottom.add(chkSwapPairs);
+        bottom.add(createButton("Suggest Swaps", this::suggestSwaps, false));
+        bottom.add(createButton("Simulate Matchups", this::simulateMatchups, false));
         bottom.add(createButton("Copy to Clipboard", () -> copyTable(teamTable), false));
         bottom.add(createButton("Export CSV", () -> exportData(teamTable, "teams.csv"), false));
         panel.add(bottom, BorderLayout.SOUTH);
@@ -578,6 +1127,7 @@ public class UIComponents {
         btnPanel.setBackground(Color.WHITE);
         btnPanel.add(createButton("Recalculate with New Weights", this::runCalculation, true));
         btnPanel.add(createButton("Reset to Defaults", this::resetWeights, false));
+        btnPanel.add(createButton("Weight Sensitivity...", this::runWeightSweep, false));
         panel.add(btnPanel);
         panel.add(Box.createVerticalGlue());
         updateAlgoInfo();
@@ -660,12 +1210,7 @@ public class UIComponents {
             for (int i = 0; i < modelRoster.getSize(); i++) {
                 roster.add(data.pokemon.get(modelRoster.getElementAt(i)));
             }
-            ScoringWeights weights = new ScoringWeights(
-                sldStatWeight.getValue() / 100.0,
-                sldTypeWeight.getValue() / 100.0,
-                sldAbilityWeight.getValue() / 100.0,
-                sldMoveWeight.getValue() / 100.0
-            );
+            ScoringWeights weights = currentWeights();
             FusionPool pool = new FusionPool();
             int approximatePairs = roster.size() * roster.size();
             calculator.calculateAll(roster, weights, chkHiddenPenalty.isSelected(), pool, currentTask, (count) -> {
@@ -691,6 +1236,285 @@ public class UIComponents {
         }).start();
     }
 
+    private ScoringWeights currentWeights() {
+        return new ScoringWeights(
+            sldStatWeight.getValue() / 100.0,
+            sldTypeWeight.getValue() / 100.0,
+            sldAbilityWeight.getValue() / 100.0,
+            sldMoveWeight.getValue() / 100.0
+        );
+    }
+
+    private void runRosterOptimizer() {
+        if (isBuilding.get() || isCalculating.get()) {
+            JOptionPane.showMessageDialog(frame, "Busy!", "Warning", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        TeamConstraints rules;
+        try {
+            rules = TeamConstraints.parse(txtTeamRules.getText(), legendarySet);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(frame, e.getMessage(), "Team Rules", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        // A roster list longer than the roster size is the shortlist to choose from; otherwise the whole dex is
+        int rosterSize = (Integer) spnRosterSize.getValue();
+        List<Pokemon> candidates = speciesToChooseFrom(rosterSize + 1);
+        RosterOptimizer.PairCache pairs = pairCache();
+        TeamBuildConfig config = scoringConfig(rules)
+            .withStrategy(STRATEGIES[cmbStrategy.getSelectedIndex()], (Integer) spnBeamWidth.getValue());
+        
+        if (currentTask != null) currentTask.cancel();
+        currentTask = new TaskController();
+        TaskController task = currentTask;
+        isBuilding.set(true);
+        teamProgress.setValue(0);
+        
+        new Thread(() -> {
+            log("\n=== ROSTER OPTIMIZER (" + rosterSize + " of " + candidates.size() + " species) ===");
+            long start = System.currentTimeMillis();
+            RosterOptimizer.Result result = teamBuilder.optimizeRoster(candidates, rosterSize, pairs, config, task,
+                (current, total) -> SwingUtilities.invokeLater(() -> teamProgress.setString("Rosters searched: " + current)));
+            
+            SwingUtilities.invokeLater(() -> {
+                isBuilding.set(false);
+                teamProgress.setValue(100);
+                teamProgress.setString("Done (" + (System.currentTimeMillis() - start) + "ms)");
+                if (result.team == null) {
+                    log("No roster gives a valid team.");
+                    return;
+                }
+                StringBuilder names = new StringBuilder();
+                for (Pokemon p : result.roster) names.append(names.length() > 0 ? ", " : "").append(p.name);
+                log(String.format("Best roster (%d searched, %d skipped by bound, %d pairs calculated): %s",
+                    result.evaluated, result.pruned, result.pairsCalculated, names));
+                showTeams(Collections.singletonList(result.team), "best roster");
+                strategyPanel.displayTeam(result.team);
+                
+                int replace = JOptionPane.showConfirmDialog(frame,
+                    String.format("Best team %.3f with:%n%s%n%nReplace the roster list with these species?", result.team.realScore, names),
+                    "Roster Optimizer", JOptionPane.YES_NO_OPTION);
+                if (replace == JOptionPane.YES_OPTION) {
+                    modelRoster.clear();
+                    for (Pokemon p : result.roster) modelRoster.addElement(p.name);
+                    updateRosterBorder();
+                    calculatedFusions = result.fusions;
+                    updateFusionTable(result.fusions);
+                    log("Roster replaced; its " + result.fusions.size() + " variants are in the fusion table.");
+                }
+            });
+        }).start();
+    }
+
+    /**
+     * The species of the roster list when it holds at least {@code minimum}, else the
+     * whole dex in name order.
+     */
+    private List<Pokemon> speciesToChooseFrom(int minimum) {
+        List<Pokemon> species = new ArrayList<>();
+        if (modelRoster.getSize() >= minimum) {
+            for (int i = 0; i < modelRoster.getSize(); i++) species.add(data.pokemon.get(modelRoster.getElementAt(i)));
+        } else {
+            List<String> names = new ArrayList<>(data.pokemon.getAllNames());
+            Collections.sort(names);
+            for (String name : names) species.add(data.pokemon.get(name));
+        }
+        return species;
+    }
+
+    // The pair cache for the current weights, a fresh one when they changed
+    private RosterOptimizer.PairCache pairCache() {
+        ScoringWeights weights = currentWeights();
+        boolean hiddenPenalty = chkHiddenPenalty.isSelected();
+        if (rosterPairs == null || !rosterPairs.matches(weights, hiddenPenalty)) {
+            rosterPairs = new RosterOptimizer.PairCache(calculator, weights, hiddenPenalty);
+        }
+        return rosterPairs;
+    }
+
+    private void runCounterSearch() {
+        if (isBuilding.get()) {
+            JOptionPane.showMessageDialog(frame, "Busy!", "Warning", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (calculatedFusions.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "Calculate fusions first!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        // Opponents as Head/Body lines; a single name is that Pokémon fused with itself
+        JTextArea txtOpponents = new JTextArea(6, 28);
+        if (!shownTeams.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (Fusion f : shownTeams.get(0).members) sb.append(cap(f.headName)).append('/').append(cap(f.bodyName)).append('\n');
+            txtOpponents.setText(sb.toString());
+        }
+        JSpinner spnWeight = new JSpinner(new SpinnerNumberModel(50, 0, 100, 5));
+        JPanel form = new JPanel(new BorderLayout(0, 8));
+        form.add(new JLabel("Opponent team, one Head/Body per line (up to 6):"), BorderLayout.NORTH);
+        form.add(new JScrollPane(txtOpponents), BorderLayout.CENTER);
+        form.add(createLabeledRow("Matchup weight (%):", spnWeight), BorderLayout.SOUTH);
+        if (JOptionPane.showConfirmDialog(frame, form, "Find Counter Team", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        
+        ScoringWeights weights = currentWeights();
+        List<Fusion> opponents = new ArrayList<>();
+        for (String line : txtOpponents.getText().split("\n")) {
+            if (line.trim().isEmpty()) continue;
+            String[] names = line.split("/");
+            Pokemon head = data.pokemon.get(names[0].trim().toLowerCase());
+            Pokemon body = data.pokemon.get((names.length > 1 ? names[1] : names[0]).trim().toLowerCase());
+            if (head == null || body == null) {
+                JOptionPane.showMessageDialog(frame, "Unknown Pokémon in \"" + line.trim() + "\"", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            // The opponent's best ability variant
+            List<Fusion> variants = calculator.calculateVariants(head, body, weights, chkHiddenPenalty.isSelected());
+            variants.sort((a, b) -> Double.compare(b.score, a.score));
+            if (!variants.isEmpty()) opponents.add(variants.get(0));
+        }
+        if (opponents.isEmpty() || opponents.size() > 6) {
+            JOptionPane.showMessageDialog(frame, "Enter one to six opponents.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        TeamConstraints rules;
+        try {
+            rules = TeamConstraints.parse(txtTeamRules.getText(), legendarySet);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(frame, e.getMessage(), "Team Rules", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        double weight = (Integer) spnWeight.getValue() / 100.0;
+        TeamBuildConfig config = scoringConfig(rules)
+            .withStrategy(STRATEGIES[cmbStrategy.getSelectedIndex()], (Integer) spnBeamWidth.getValue());
+        List<Fusion> fusions = calculatedFusions;
+        
+        if (currentTask != null) currentTask.cancel();
+        currentTask = new TaskController();
+        TaskController task = currentTask;
+        isBuilding.set(true);
+        teamProgress.setValue(0);
+        
+        new Thread(() -> {
+            log("\n=== COUNTER TEAM vs " + names(opponents) + " (matchup weight " + Math.round(weight * 100) + "%) ===");
+            long start = System.currentTimeMillis();
+            CounterSearch.Result result;
+            try {
+                result = teamBuilder.buildCounterTeam(fusions, opponents, weight, config, task,
+                    (current, total) -> SwingUtilities.invokeLater(() -> {
+                        if (total > 0) teamProgress.setValue((int) ((current / (float) total) * 100));
+                        teamProgress.setString((total > 0 ? "Checked: " : "Rounds: ") + current);
+                    }));
+            } catch (RuntimeException e) {
+                log("Counter search failed: " + e);
+                SwingUtilities.invokeLater(() -> {
+                    isBuilding.set(false);
+                    teamProgress.setString("Ready");
+                });
+                return;
+            }
+            
+            SwingUtilities.invokeLater(() -> {
+                isBuilding.set(false);
+                teamProgress.setValue(100);
+                teamProgress.setString("Done (" + (System.currentTimeMillis() - start) + "ms)");
+                if (result.team == null) {
+                    teamTableModel.setRowCount(0);
+                    shownTeams = new ArrayList<>();
+                    log("No teams found.");
+                    return;
+                }
+                log(String.format("Counter team: score %.3f, mean matchup %.3f, blended objective %.3f%s",
+                    result.team.realScore, result.matchup, result.objective, result.search.complete ? "" : " (not proven optimal)"));
+                showTeams(Collections.singletonList(result.team), String.format("counter, matchup %.2f", result.matchup));
+                strategyPanel.displayTeam(result.team);
+            });
+        }).start();
+    }
+
+    private void runProgressionSearch() {
+        if (isBuilding.get() || isCalculating.get()) {
+            JOptionPane.showMessageDialog(frame, "Busy!", "Warning", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (progression.size() == 0) {
+            JOptionPane.showMessageDialog(frame, "No game checkpoints loaded (progression.csv).", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        TeamConstraints rules;
+        try {
+            rules = TeamConstraints.parse(txtTeamRules.getText(), legendarySet);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(frame, e.getMessage(), "Team Rules", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        // The roster list, when there is one, limits which species the player will catch
+        List<Pokemon> species = speciesToChooseFrom(1);
+        RosterOptimizer.PairCache pairs = pairCache();
+        TeamBuildConfig config = scoringConfig(rules)
+            .withStrategy(STRATEGIES[cmbStrategy.getSelectedIndex()], (Integer) spnBeamWidth.getValue());
+        
+        if (currentTask != null) currentTask.cancel();
+        currentTask = new TaskController();
+        TaskController task = currentTask;
+        isBuilding.set(true);
+        teamProgress.setValue(0);
+        
+        new Thread(() -> {
+            log("\n=== BEST TEAM PER CHECKPOINT (" + species.size() + " species) ===");
+            long start = System.currentTimeMillis();
+            List<ProgressionSearch.Stage> stages = teamBuilder.buildProgressionTeams(species, progression, pokedexDB, pairs,
+                config, task, (current, total) -> SwingUtilities.invokeLater(() -> {
+                    teamProgress.setValue((int) ((current / (float) total) * 100));
+                    teamProgress.setString("Checkpoints: " + current + " / " + total);
+                }));
+            
+            SwingUtilities.invokeLater(() -> {
+                isBuilding.set(false);
+                teamProgress.setValue(100);
+                teamProgress.setString("Done (" + (System.currentTimeMillis() - start) + "ms)");
+                for (ProgressionSearch.Stage st : stages) {
+                    log(String.format("%-16s %3d species  %s", st.checkpoint, st.species,
+                        st.team != null ? String.format("%.3f %s", st.team.realScore, names(st.team.members)) : "no team yet"));
+                }
+                showProgression(stages);
+            });
+        }).start();
+    }
+
+    private void showProgression(List<ProgressionSearch.Stage> stages) {
+        DefaultTableModel model = new DefaultTableModel(new String[]{"Checkpoint", "Species", "New", "Score", "Team"}, 0) {
+            public boolean isCellEditable(int r, int c) { return false; }
+        };
+        for (ProgressionSearch.Stage st : stages) {
+            model.addRow(new Object[]{ st.checkpoint, st.species, st.newSpecies,
+                st.team == null ? "-" : String.format("%.3f", st.team.realScore) + (st.complete ? "" : " *"),
+                st.team == null ? "" : names(st.team.members) });
+        }
+        JTable table = new JTable(model);
+        table.setRowHeight(24);
+        table.getColumnModel().getColumn(4).setPreferredWidth(520);
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(860, 320));
+        
+        JPanel content = new JPanel(new BorderLayout(0, 8));
+        content.add(scroll, BorderLayout.CENTER);
+        content.add(new JLabel("* not proven optimal within the time budget"), BorderLayout.SOUTH);
+        Object[] options = {"Show Selected Team", "Close"};
+        int choice = JOptionPane.showOptionDialog(frame, content, "Best Team per Checkpoint", JOptionPane.DEFAULT_OPTION,
+            JOptionPane.PLAIN_MESSAGE, null, options, options[1]);
+        int row = table.getSelectedRow();
+        if (choice == 0 && row >= 0 && stages.get(row).team != null) {
+            ProgressionSearch.Stage st = stages.get(row);
+            showTeams(Collections.singletonList(st.team), st.checkpoint);
+            strategyPanel.displayTeam(st.team);
+        }
+    }
+
     private void setupTableMenu(JTable table, boolean allowPin) {
         JPopupMenu menu = new JPopupMenu();
         JMenuItem detailItem = new JMenuItem("Show Scoring Details");
@@ -699,8 +1523,11 @@ public class UIComponents {
         if (allowPin) {
             JMenuItem pinItem = new JMenuItem("Pin/Unpin Fusion (Force into Team)");
             pinItem.addActionListener(e -> togglePin());
+            JMenuItem similarItem = new JMenuItem("Find Similar Fusions...");
+            similarItem.addActionListener(e -> findSimilar());
             menu.addSeparator();
             menu.add(pinItem);
+            menu.add(similarItem);
         }
         table.setComponentPopupMenu(menu);
         table.addMouseListener(new MouseAdapter() {
@@ -714,8 +1541,8 @@ public class UIComponents {
         int row = fusionTable.getSelectedRow();
         if (row == -1) return;
         int modelRow = fusionTable.convertRowIndexToModel(row);
-        if (modelRow >= calculatedFusions.size()) return;
-        Fusion f = calculatedFusions.get(modelRow);
+        if (modelRow >= rankedFusions.size()) return;
+        Fusion f = rankedFusions.get(modelRow);
         if (pinnedFusions.contains(f)) {
             pinnedFusions.remove(f);
             log("Unpinned: " + f.getDisplayName());
@@ -729,13 +1556,117 @@ public class UIComponents {
         }
     }
 
+    private void findSimilar() {
+        int row = fusionTable.getSelectedRow();
+        if (row == -1) return;
+        int modelRow = fusionTable.convertRowIndexToModel(row);
+        if (modelRow >= rankedFusions.size()) return;
+        Fusion target = rankedFusions.get(modelRow);
+        
+        JSpinner spnCount = new JSpinner(new SpinnerNumberModel(10, 1, 100, 1));
+        JComboBox<String> cmbTyping = new JComboBox<>(new String[]{"Any typing", "Shares a type", "Same typing"});
+        JCheckBox chkRole = new JCheckBox("Same role (" + target.role + ")");
+        JCheckBox chkSpecies = new JCheckBox("Without " + cap(target.headName) + " or " + cap(target.bodyName), true);
+        JPanel weightsRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 0));
+        JSpinner[] spnWeights = new JSpinner[FusionNeighbors.DIMS];
+        for (int i = 0; i < spnWeights.length; i++) {
+            spnWeights[i] = new JSpinner(new SpinnerNumberModel(1.0, 0.0, 5.0, 0.5));
+            weightsRow.add(new JLabel(FusionNeighbors.STAT_NAMES[i]));
+            weightsRow.add(spnWeights[i]);
+        }
+        JPanel form = new JPanel(new GridLayout(0, 1, 0, 6));
+        form.add(new JLabel("Fusions with stats closest to " + target.getDisplayName() + " (" + target.typing + ")"));
+        form.add(createLabeledRow("How many:", spnCount));
+        form.add(cmbTyping);
+        form.add(chkRole);
+        form.add(chkSpecies);
+        form.add(new JLabel("Stat weights:"));
+        form.add(weightsRow);
+        if (JOptionPane.showConfirmDialog(frame, form, "Find Similar Fusions", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        
+        int k = (Integer) spnCount.getValue();
+        double[] weights = new double[FusionNeighbors.DIMS];
+        for (int i = 0; i < weights.length; i++) weights[i] = (Double) spnWeights[i].getValue();
+        Set<String> targetTypes = new HashSet<>(Arrays.asList(target.typing.split("/")));
+        int typing = cmbTyping.getSelectedIndex();
+        boolean sameRole = chkRole.isSelected(), otherSpecies = chkSpecies.isSelected();
+        Predicate<Fusion> filter = f -> {
+            if (typing == 2 && !f.typing.equals(target.typing)) return false;
+            if (typing == 1 && Collections.disjoint(targetTypes, Arrays.asList(f.typing.split("/")))) return false;
+            if (sameRole && !Objects.equals(f.role, target.role)) return false;
+            if (otherSpecies) {
+                for (String name : new String[]{f.headName, f.bodyName}) {
+                    if (name.equalsIgnoreCase(target.headName) || name.equalsIgnoreCase(target.bodyName)) return false;
+                }
+            }
+            return true;
+        };
+        List<Fusion> fusions = calculatedFusions;
+        
+        new Thread(() -> {
+            FusionNeighbors tree = neighbors(fusions);
+            long start = System.nanoTime();
+            List<FusionNeighbors.Match> matches = tree.nearest(target, k, weights, filter);
+            double millis = (System.nanoTime() - start) / 1e6;
+            SwingUtilities.invokeLater(() -> {
+                log(String.format("Found %d fusions similar to %s in %.1fms", matches.size(), target.getDisplayName(), millis));
+                showSimilar(target, matches);
+            });
+        }).start();
+    }
+
+    /**
+     * The stat KD-tree over exactly {@code fusions}, built on first use.
+     */
+    private FusionNeighbors neighbors(List<Fusion> fusions) {
+        synchronized (indexLock) {
+            if (neighborsPool != fusions) {
+                long start = System.nanoTime();
+                neighbors = new FusionNeighbors(fusions);
+                neighborsPool = fusions;
+                log(String.format("Indexed %d fusions by stats in %.0fms", fusions.size(), (System.nanoTime() - start) / 1e6));
+            }
+            return neighbors;
+        }
+    }
+
+    private void showSimilar(Fusion target, List<FusionNeighbors.Match> matches) {
+        String[] cols = {"Head", "Body", "Types", "Ability", "Role", "HP", "Atk", "Def", "SpA", "SpD", "Spe", "Distance", "Score"};
+        DefaultTableModel model = new DefaultTableModel(cols, 0) {
+            public boolean isCellEditable(int r, int c) { return false; }
+            public Class<?> getColumnClass(int c) {
+                if (c >= 5 && c <= 10) return Integer.class;
+                return c >= 11 ? Double.class : String.class;
+            }
+        };
+        List<Fusion> similar = new ArrayList<>();
+        for (FusionNeighbors.Match m : matches) {
+            Fusion f = m.fusion;
+            similar.add(f);
+            model.addRow(new Object[]{cap(f.headName), cap(f.bodyName), f.typing, f.chosenAbility, f.role,
+                f.hp, f.atk, f.def, f.spa, f.spd, f.spe, Math.round(m.distance * 10) / 10.0, f.score});
+        }
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.setRowHeight(24);
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(900, Math.min(500, 60 + 24 * matches.size())));
+        String[] options = {"Show in Rankings", "Close"};
+        int choice = JOptionPane.showOptionDialog(frame, scroll, "Similar to " + target.getDisplayName(),
+            JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[1]);
+        if (choice == 0) updateFusionTable(similar);
+    }
+
     private void showDetails(JTable table) {
         int row = table.getSelectedRow();
         if (row == -1) return;
         if (table == fusionTable) {
             int modelRow = table.convertRowIndexToModel(row);
-            if (modelRow >= calculatedFusions.size()) return;
-            Fusion f = calculatedFusions.get(modelRow);
+            if (modelRow >= rankedFusions.size()) return;
+            Fusion f = rankedFusions.get(modelRow);
             showDetailsPopup(f);
         } else if (table == teamTable) {
             JOptionPane.showMessageDialog(frame, "Please view details in the Rankings tab.");
@@ -754,6 +1685,23 @@ public class UIComponents {
         JOptionPane.showMessageDialog(frame, new JScrollPane(area), "Fusion Details", JOptionPane.INFORMATION_MESSAGE);
     }
 
+    private void loadTeamRules() {
+        JFileChooser fc = new JFileChooser(new File("."));
+        if (fc.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+            try {
+                String text = new String(Files.readAllBytes(fc.getSelectedFile().toPath()), StandardCharsets.UTF_8);
+                // Parsed once here so a broken file is reported right away
+                TeamConstraints.parse(text, legendarySet);
+                txtTeamRules.setText(text);
+                log("Loaded team rules from " + fc.getSelectedFile().getName());
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(frame, e.getMessage(), "Team Rules", JOptionPane.ERROR_MESSAGE);
+            } catch (IOException e) {
+                log("Error loading rules: " + e.getMessage());
+            }
+        }
+    }
+
     private void exportData(JTable table, String defaultName) {
         JFileChooser fc = new JFileChooser();
         fc.setSelectedFile(new File(defaultName));
@@ -768,6 +1716,7 @@ public class UIComponents {
     }
 
     private void updateFusionTable(List<Fusion> list) {
+        rankedFusions = list;
         fusionTableModel.setRowCount(0);
         for (Fusion f : list) {
             fusionTableModel.addRow(new Object[]{
@@ -1059,10 +2008,158 @@ public class UIComponents {
         log("Weights reset to defaults");
     }
 
+    private void runWeightSweep() {
+        if (calculatedFusions.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "Calculate fusions first.", "Weight Sensitivity", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        ScoringWeights reference = currentWeights();
+        if (reference.getTotal() <= 0) {
+            JOptionPane.showMessageDialog(frame, "The scoring weights are all zero.", "Weight Sensitivity", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JRadioButton rdoSample = new JRadioButton("Random sample around the current weights", true);
+        JRadioButton rdoGrid = new JRadioButton("Grid of weight ranges");
+        ButtonGroup mode = new ButtonGroup();
+        mode.add(rdoSample);
+        mode.add(rdoGrid);
+        JSpinner spnPoints = new JSpinner(new SpinnerNumberModel(1000, 1, 10000, 100));
+        JSpinner spnSpread = new JSpinner(new SpinnerNumberModel(50, 0, 100, 5));
+        double[] current = {reference.stat, reference.type, reference.ability, reference.moveset};
+        String[] weightNames = {"Base Stats:", "Type Synergy:", "Ability:", "Moveset:"};
+        JTextField[] txtRanges = new JTextField[4];
+        for (int i = 0; i < 4; i++) {
+            txtRanges[i] = new JTextField(String.format(Locale.ROOT, "%.2f-%.2f", current[i] * 0.5, current[i] * 1.5));
+        }
+        JSpinner spnSteps = new JSpinner(new SpinnerNumberModel(5, 1, 10, 1));
+        JSpinner spnTopK = new JSpinner(new SpinnerNumberModel(10, 1, 500, 1));
+        JPanel form = new JPanel(new GridLayout(0, 1, 0, 6));
+        form.add(new JLabel("Re-score the fusions under many weightings; ranks are compared with the current sliders."));
+        form.add(createLabeledRow("Top K:", spnTopK));
+        form.add(rdoSample);
+        form.add(createLabeledRow("Weight vectors:", spnPoints));
+        form.add(createLabeledRow("Each weight within +/- (%):", spnSpread));
+        form.add(rdoGrid);
+        for (int i = 0; i < 4; i++) form.add(createLabeledRow(weightNames[i], txtRanges[i]));
+        form.add(createLabeledRow("Values per weight:", spnSteps));
+        if (JOptionPane.showConfirmDialog(frame, form, "Weight Sensitivity", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        
+        List<ScoringWeights> points;
+        try {
+            if (rdoSample.isSelected()) {
+                points = WeightSweep.sample(reference, (Integer) spnSpread.getValue() / 100.0, (Integer) spnPoints.getValue(), 1);
+            } else {
+                double[] from = new double[4], to = new double[4];
+                for (int i = 0; i < 4; i++) {
+                    String[] range = txtRanges[i].getText().trim().split("\\s*-\\s*");
+                    if (range.length < 1 || range.length > 2) throw new IllegalArgumentException("Expected a range like 0.2-0.6, not \"" + txtRanges[i].getText() + "\"");
+                    from[i] = Double.parseDouble(range[0]);
+                    to[i] = Double.parseDouble(range[range.length - 1]);
+                    if (from[i] < 0 || to[i] < from[i]) throw new IllegalArgumentException(weightNames[i] + " needs 0 <= from <= to");
+                }
+                points = WeightSweep.grid(from, to, (Integer) spnSteps.getValue());
+                if (points.isEmpty()) throw new IllegalArgumentException("Every weighting in the grid is all zeros.");
+            }
+        } catch (IllegalArgumentException e) {
+            String message = e instanceof NumberFormatException ? "Not a number: " + e.getMessage() : e.getMessage();
+            JOptionPane.showMessageDialog(frame, message, "Weight Sensitivity", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        int k = (Integer) spnTopK.getValue();
+        List<Fusion> fusions = calculatedFusions;
+        
+        new Thread(() -> {
+            try {
+                WeightSweep sweep = weightSweep(fusions);
+                long start = System.nanoTime();
+                WeightSweep.Result result = sweep.run(reference, points, k);
+                double millis = (System.nanoTime() - start) / 1e6;
+                SwingUtilities.invokeLater(() -> {
+                    log(String.format("Swept %d weight vectors over %d fusions in %.0fms", points.size(), fusions.size(), millis));
+                    showWeightSweep(result);
+                });
+            } catch (RuntimeException e) {
+                log("Weight sweep failed: " + e);
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame, "Weight sweep failed: " + e.getMessage(),
+                    "Weight Sensitivity", JOptionPane.ERROR_MESSAGE));
+            }
+        }).start();
+    }
+
+    /**
+     * The score components of exactly {@code fusions}, read on first use.
+     */
+    private WeightSweep weightSweep(List<Fusion> fusions) {
+        synchronized (indexLock) {
+            if (weightSweepPool != fusions) {
+                long start = System.nanoTime();
+                weightSweep = new WeightSweep(fusions);
+                weightSweepPool = fusions;
+                log(String.format("Read score components of %d fusions (%d distinct) in %.0fms",
+                    fusions.size(), weightSweep.distinct(), (System.nanoTime() - start) / 1e6));
+            }
+            return weightSweep;
+        }
+    }
+
+    private void showWeightSweep(WeightSweep.Result result) {
+        int k = result.k;
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%d weight vectors, top %d.%n", result.points.size(), k));
+        summary.append(String.format("Top %d overlap with the current ranking: %.0f%% on average, %.0f%% at worst.%n",
+            k, 100 * result.meanOverlap, 100 * result.minOverlap));
+        summary.append(String.format("In the top %d under every vector: %d; under at least one: %d.", k, result.alwaysTop, result.distinct));
+        if (result.leader != null) {
+            summary.append(String.format("%n%s stays #1 under %.0f%% of them.", result.leader.getDisplayName(), 100 * result.leaderKept));
+        }
+        log(summary.toString());
+        
+        String[] cols = {"Head", "Body", "Ability", "Score", "Rank", "Top " + k + " %", "Best", "P10", "Median", "P90", "Worst"};
+        DefaultTableModel model = new DefaultTableModel(cols, 0) {
+            public boolean isCellEditable(int r, int c) { return false; }
+            public Class<?> getColumnClass(int c) {
+                if (c == 3 || c == 5) return Double.class;
+                return c >= 4 ? Integer.class : String.class;
+            }
+        };
+        List<Fusion> listed = new ArrayList<>();
+        for (WeightSweep.Entry e : result.entries) {
+            Fusion f = e.fusion;
+            listed.add(f);
+            model.addRow(new Object[]{cap(f.headName), cap(f.bodyName), f.chosenAbility, f.score, e.referenceRank,
+                Math.round(e.topShare * 1000) / 10.0, e.best, e.p10, e.median, e.p90, e.worst});
+        }
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.setRowHeight(24);
+        table.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                int row = table.getSelectedRow();
+                if (e.getClickCount() == 2 && row >= 0) showDetailsPopup(listed.get(table.convertRowIndexToModel(row)));
+            }
+        });
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(900, Math.min(500, 60 + 24 * listed.size())));
+        JTextArea text = new JTextArea(summary.toString());
+        text.setEditable(false);
+        text.setOpaque(false);
+        JPanel panel = new JPanel(new BorderLayout(0, 8));
+        panel.add(text, BorderLayout.NORTH);
+        panel.add(scroll, BorderLayout.CENTER);
+        String[] options = {"Show in Rankings", "Close"};
+        int choice = JOptionPane.showOptionDialog(frame, panel, "Weight Sensitivity",
+            JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[1]);
+        if (choice == 0) updateFusionTable(listed);
+    }
+
     private void resetTeamSettings() {
         sldSpeciesClause.setValue(100);
         sldTypeClause.setValue(50);
         sldSelfFusion.setValue(0);
+        sldDefensiveClause.setValue(20);
         log("Team settings reset to defaults");
     }
 
@@ -1078,9 +2175,9 @@ public class UIComponents {
         sb.append(String.format("   * Type Synergy:    %.2f\n", sldTypeWeight.getValue() / total));
         sb.append(String.format("   * Ability:         %.2f\n", sldAbilityWeight.getValue() / total));
         sb.append(String.format("   * Moveset:         %.2f\n\n", sldMoveWeight.getValue() / total));
-        sb.append("ALGORITHM: OPTIMIZED BRANCH AND BOUND\n");
+        sb.append("ALGORITHM: BRANCH AND BOUND / MITM / BEAM / LNS\n");
         sb.append("   * Sorts fusions by Base Score\n");
-        sb.append("   * Focuses on Top 120 Candidates for speed\n");
+        sb.append("   * Drops dominated ability variants (no cap)\n");
         sb.append("   * Prunes impossible branches instantly\n\n");
         sb.append("TEAM BALANCE:\n");
         sb.append("   * Role diversity bonus applied\n");
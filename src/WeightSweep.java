@@ -0,0 +1,404 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * How much a ranking depends on its ScoringWeights: the pool is re-scored under many
+ * weight vectors (a grid, or a random sample around the current weights) and every
+ * fusion that reaches the top K under any of them gets its rank distribution across
+ * the sweep, next to overlap figures for the top K as a whole.
+ *
+ * Fusions are never recalculated. Each variant's score components (stat, type,
+ * ability and moveset scores, plus the bonus) are read off the pool once, and a weight
+ * vector only changes how FusionCalculator.combine blends them. Variants with the same
+ * components always score the same, so each distinct set of components is scored once
+ * and counted as many times as it occurs (a quarter of the rows in a full pool).
+ *
+ * Scores are rounded to 0.001, so one pass per weight vector counts the pool into 1001
+ * score buckets, which gives the rank of any score (one plus the count above it)
+ * without sorting; a raw score finds its bucket in a table built from
+ * FusionCalculator.finalScore rather than by working the final score out. The top K
+ * are then the rows at or above the bucket where that count reaches K; they are found
+ * by scanning only the components whose best possible score over the whole sweep can
+ * get there. Weight vectors are split
+ * across the search pool, and components are taken in cache-sized blocks so a block
+ * is re-scored under each of a task's vectors while it is still in cache.
+ */
+final class WeightSweep {
+    // Scores are rounded to 0.001
+    private static final int BUCKETS = 1001;
+    private static final int BLOCK = 4096;
+    private static final FusionCalculator.AbilityResult NO_ABILITY = new FusionCalculator.AbilityResult("None", 0, 0, 0);
+
+    // Final scores step up one bucket at a time as the raw score (weighted score plus
+    // bonus) grows. Per 1/4096-wide cell of raw scores: the bucket at the start of the
+    // cell and the raw score where the next one begins. Steps are at least 0.001
+    // apart, so no cell holds two.
+    private static final int CELLS_PER_UNIT = 4096;
+    private static final int[] CELL_BUCKET = new int[CELLS_PER_UNIT * 3 / 2];
+    private static final double[] CELL_NEXT = new double[CELL_BUCKET.length];
+
+    static {
+        // steps[b]: the lowest raw score in bucket b, found by bisection
+        double[] steps = new double[BUCKETS + 1];
+        steps[BUCKETS] = Double.POSITIVE_INFINITY;
+        for (int b = 1; b < BUCKETS; b++) {
+            double lo = -1, hi = 2;
+            while (Math.nextUp(lo) < hi) {
+                double mid = lo + (hi - lo) / 2;
+                if (mid <= lo || mid >= hi) mid = Math.nextUp(lo);
+                if (exactBucket(mid) >= b) hi = mid;
+                else lo = mid;
+            }
+            steps[b] = hi;
+        }
+        for (int c = 0; c < CELL_BUCKET.length; c++) {
+            CELL_BUCKET[c] = exactBucket(c / (double) CELLS_PER_UNIT);
+            CELL_NEXT[c] = steps[CELL_BUCKET[c] + 1];
+        }
+    }
+
+    private final List<Fusion> pool;
+    // Per distinct tuple of components: the four weighted ones, the bonus added after
+    // weighting, and how many rows have them
+    private final double[] stat, type, ability, move, bonus;
+    private final int[] weight;
+    // The tuple of each row, and the rows of tuple t at rows[starts[t]] to rows[starts[t + 1] - 1]
+    private final int[] tupleOf, starts, rows;
+
+    WeightSweep(List<Fusion> pool) {
+        this.pool = pool;
+        int n = pool.size();
+        Map<List<Double>, Integer> ids = new HashMap<>();
+        double[][] tuples = new double[5][n];
+        tupleOf = new int[n];
+        for (int row = 0; row < n; row++) {
+            Fusion f = pool.get(row);
+            FusionCalculator.AbilityResult chosen = NO_ABILITY;
+            for (FusionCalculator.AbilityResult ab : f.allAbilities) {
+                if (ab.name.equals(f.chosenAbility)) {
+                    chosen = ab;
+                    break;
+                }
+            }
+            List<Double> key = Arrays.asList(FusionCalculator.statScore(f), FusionCalculator.typeScore(f),
+                Math.min(1.0, chosen.score), f.moveScore, FusionCalculator.bonus(f, chosen));
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = ids.size();
+                ids.put(key, id);
+                for (int c = 0; c < 5; c++) tuples[c][id] = key.get(c);
+            }
+            tupleOf[row] = id;
+        }
+        int distinct = ids.size();
+        stat = Arrays.copyOf(tuples[0], distinct);
+        type = Arrays.copyOf(tuples[1], distinct);
+        ability = Arrays.copyOf(tuples[2], distinct);
+        move = Arrays.copyOf(tuples[3], distinct);
+        bonus = Arrays.copyOf(tuples[4], distinct);
+        weight = new int[distinct];
+        for (int t : tupleOf) weight[t]++;
+        starts = new int[distinct + 1];
+        for (int t = 0; t < distinct; t++) starts[t + 1] = starts[t] + weight[t];
+        rows = new int[n];
+        int[] next = Arrays.copyOf(starts, distinct);
+        for (int row = 0; row < n; row++) rows[next[tupleOf[row]]++] = row;
+    }
+
+    int size() {
+        return pool.size();
+    }
+
+    // Distinct sets of score components, each scored once per weight vector
+    int distinct() {
+        return stat.length;
+    }
+
+    /**
+     * A sample of {@code count} weight vectors, each weight scaled by its own random
+     * factor within +-spread (0.5 for +-50%). The same arguments give the same sample.
+     */
+    static List<ScoringWeights> sample(ScoringWeights center, double spread, int count, long seed) {
+        Random random = new Random(seed);
+        List<ScoringWeights> points = new ArrayList<>(count);
+        while (points.size() < count) {
+            ScoringWeights w = new ScoringWeights(
+                center.stat * (1 + spread * (2 * random.nextDouble() - 1)),
+                center.type * (1 + spread * (2 * random.nextDouble() - 1)),
+                center.ability * (1 + spread * (2 * random.nextDouble() - 1)),
+                center.moveset * (1 + spread * (2 * random.nextDouble() - 1)));
+            if (w.getTotal() <= 0) throw new IllegalArgumentException("the weights must not all be zero");
+            points.add(w);
+        }
+        return points;
+    }
+
+    /**
+     * Every combination of {@code steps} evenly spaced values per weight between
+     * from[i] and to[i] (stat, type, ability, moveset), skipping all-zero vectors.
+     */
+    static List<ScoringWeights> grid(double[] from, double[] to, int steps) {
+        double[][] axes = new double[4][steps];
+        for (int i = 0; i < 4; i++) {
+            for (int s = 0; s < steps; s++) axes[i][s] = steps == 1 ? from[i] : from[i] + (to[i] - from[i]) * s / (steps - 1);
+        }
+        List<ScoringWeights> points = new ArrayList<>();
+        for (double a : axes[0]) for (double b : axes[1]) for (double c : axes[2]) for (double d : axes[3]) {
+            ScoringWeights w = new ScoringWeights(a, b, c, d);
+            if (w.getTotal() > 0) points.add(w);
+        }
+        return points;
+    }
+
+    /**
+     * Re-scores the pool under every point and reports on the top {@code k} (ties at
+     * the K-th score included), compared with the ranking under {@code reference}.
+     */
+    Result run(ScoringWeights reference, List<ScoringWeights> points, int k) {
+        if (points.isEmpty()) throw new IllegalArgumentException("no weight vectors to sweep");
+        for (ScoringWeights w : points) {
+            if (w.stat < 0 || w.type < 0 || w.ability < 0 || w.moveset < 0 || w.getTotal() <= 0) {
+                throw new IllegalArgumentException("weights must be non-negative and not all zero");
+            }
+        }
+        // Point 0 is the reference ranking
+        List<ScoringWeights> all = new ArrayList<>(points.size() + 1);
+        all.add(reference);
+        all.addAll(points);
+        int n = pool.size(), p = all.size();
+        int[] byBound = new int[stat.length];
+        int[] boundCount = tuplesByBound(all, byBound);
+
+        // [point][bucket]: rows scoring above the bucket; [point]: rows in its top k
+        int[][] above = new int[p][];
+        int[][] tops = new int[p][];
+        int chunks = Math.min(p, 4 * TeamBuilder.SEARCH_POOL.getParallelism());
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) p * c / chunks), to = (int) ((long) p * (c + 1) / chunks);
+            tasks.add(ForkJoinTask.adapt(() -> sweep(all, from, to, k, above, tops, byBound, boundCount)));
+        }
+        TeamBuilder.SEARCH_POOL.invoke(ForkJoinTask.adapt(() -> {
+            ForkJoinTask.invokeAll(tasks);
+        }));
+
+        // Every fusion in some top k, with its rank under each swept point
+        int[] tracked = new int[n];
+        Arrays.fill(tracked, -1);
+        List<Integer> topRows = new ArrayList<>();
+        for (int[] top : tops) {
+            for (int row : top) {
+                if (tracked[row] < 0) {
+                    tracked[row] = topRows.size();
+                    topRows.add(row);
+                }
+            }
+        }
+        boolean[] inReference = new boolean[topRows.size()];
+        for (int row : tops[0]) inReference[tracked[row]] = true;
+
+        int swept = p - 1;
+        List<Entry> entries = new ArrayList<>(topRows.size());
+        int distinct = 0, alwaysTop = 0;
+        for (int row : topRows) {
+            int[] ranks = new int[swept];
+            int inTop = 0;
+            for (int q = 1; q < p; q++) {
+                ranks[q - 1] = 1 + above[q][bucket(tupleOf[row], all.get(q))];
+                if (ranks[q - 1] <= k) inTop++;
+            }
+            if (inTop > 0) distinct++;
+            if (inTop == swept) alwaysTop++;
+            entries.add(new Entry(pool.get(row), 1 + above[0][bucket(tupleOf[row], reference)], ranks, inTop / (double) swept));
+        }
+        entries.sort(Comparator.comparingDouble((Entry e) -> -e.topShare)
+            .thenComparingInt(e -> e.median).thenComparingInt(e -> e.referenceRank));
+
+        // Overlap of each swept top k with the reference one
+        double overlapSum = 0, minOverlap = 1;
+        for (int q = 1; q < p; q++) {
+            int shared = 0;
+            for (int row : tops[q]) if (inReference[tracked[row]]) shared++;
+            double overlap = shared / (double) (tops[q].length + tops[0].length - shared);
+            overlapSum += overlap;
+            minOverlap = Math.min(minOverlap, overlap);
+        }
+        // The reference leader is the first rank-1 row, i.e. the top of the rankings table
+        int leader = n;
+        for (int row : tops[0]) if (above[0][bucket(tupleOf[row], reference)] == 0) leader = Math.min(leader, row);
+        int leaderKept = 0;
+        if (leader < n) {
+            for (int q = 1; q < p; q++) if (above[q][bucket(tupleOf[leader], all.get(q))] == 0) leaderKept++;
+        }
+        return new Result(points, k, entries, overlapSum / swept, minOverlap, leader < n ? pool.get(leader) : null,
+            leaderKept / (double) swept, alwaysTop, distinct);
+    }
+
+    // Counts points [from, to) into score buckets, then collects each one's top k
+    private void sweep(List<ScoringWeights> all, int from, int to, int k, int[][] above, int[][] tops,
+                       int[] byBound, int[] boundCount) {
+        int n = stat.length;
+        int[][] counts = new int[to - from][BUCKETS];
+        for (int start = 0; start < n; start += BLOCK) {
+            int end = Math.min(n, start + BLOCK);
+            for (int q = from; q < to; q++) {
+                ScoringWeights w = all.get(q);
+                int[] count = counts[q - from];
+                for (int t = start; t < end; t++) count[bucket(t, w)] += weight[t];
+            }
+        }
+        for (int q = from; q < to; q++) {
+            // Counts become "rows above": the rank of bucket b is 1 + above[b]
+            int[] a = counts[q - from];
+            int running = 0;
+            for (int b = BUCKETS - 1; b >= 0; b--) {
+                int c = a[b];
+                a[b] = running;
+                running += c;
+            }
+            int threshold = 0;
+            while (a[threshold] >= k) threshold++;
+
+            // Only tuples whose bound reaches the threshold can be in the top k
+            ScoringWeights w = all.get(q);
+            int[] top = new int[16];
+            int size = 0;
+            for (int i = 0, limit = boundCount[threshold]; i < limit; i++) {
+                int t = byBound[i];
+                if (bucket(t, w) < threshold) continue;
+                if (size + weight[t] > top.length) top = Arrays.copyOf(top, 2 * (size + weight[t]));
+                System.arraycopy(rows, starts[t], top, size, weight[t]);
+                size += weight[t];
+            }
+            above[q] = a;
+            tops[q] = Arrays.copyOf(top, size);
+        }
+    }
+
+    private int bucket(int tuple, ScoringWeights w) {
+        return rawBucket(FusionCalculator.weightedScore(stat[tuple], type[tuple], ability[tuple], move[tuple], w) + bonus[tuple]);
+    }
+
+    // The final score of a raw score in thousandths, by table
+    private static int rawBucket(double raw) {
+        int cell = Math.max(0, Math.min((int) (raw * CELLS_PER_UNIT), CELL_BUCKET.length - 1));
+        return raw >= CELL_NEXT[cell] ? CELL_BUCKET[cell] + 1 : CELL_BUCKET[cell];
+    }
+
+    private static int exactBucket(double raw) {
+        return (int) Math.round(FusionCalculator.finalScore(raw) * 1000.0);
+    }
+
+    /**
+     * Orders the tuples by the best score bucket they can reach under any of the points,
+     * highest first, into {@code order}; returns how many tuples reach each bucket or
+     * more. Each point's weights, as shares of their total, lie within the sweep's
+     * per-weight share ranges, so the best average a tuple can get is found by starting
+     * every share at its minimum and handing what is left to its largest components.
+     */
+    private int[] tuplesByBound(List<ScoringWeights> points, int[] order) {
+        double[] lo = new double[4], hi = new double[4];
+        Arrays.fill(lo, 1);
+        for (ScoringWeights w : points) {
+            double[] share = {w.stat, w.type, w.ability, w.moveset};
+            for (int i = 0; i < 4; i++) {
+                lo[i] = Math.min(lo[i], share[i] / w.getTotal());
+                hi[i] = Math.max(hi[i], share[i] / w.getTotal());
+            }
+        }
+        double spare = 1;
+        for (double l : lo) spare -= l;
+
+        int n = stat.length;
+        int[] bounds = new int[n];
+        int[] count = new int[BUCKETS + 1];
+        double[] c = new double[4];
+        int[] at = new int[4];
+        for (int t = 0; t < n; t++) {
+            c[0] = stat[t]; c[1] = type[t]; c[2] = ability[t]; c[3] = move[t];
+            // Components by value, largest first
+            for (int i = 0; i < 4; i++) {
+                int j = i;
+                while (j > 0 && c[at[j - 1]] < c[i]) {
+                    at[j] = at[j - 1];
+                    j--;
+                }
+                at[j] = i;
+            }
+            double best = 0, left = spare;
+            for (int i = 0; i < 4; i++) {
+                int comp = at[i];
+                double extra = Math.min(left, hi[comp] - lo[comp]);
+                left -= extra;
+                best += (lo[comp] + extra) * c[comp];
+            }
+            // One bucket of slack covers rounding in the weighted average
+            bounds[t] = Math.min(BUCKETS - 1, rawBucket(best + bonus[t]) + 1);
+            count[bounds[t]]++;
+        }
+        // Descending counting sort; reach[b] = tuples with a bound of b or more
+        int[] reach = new int[BUCKETS];
+        int running = 0;
+        for (int b = BUCKETS - 1; b >= 0; b--) {
+            reach[b] = running + count[b];
+            running = reach[b];
+        }
+        int[] next = new int[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) next[b] = reach[b] - count[b];
+        for (int t = 0; t < n; t++) order[next[bounds[t]]++] = t;
+        return reach;
+    }
+
+    /**
+     * One fusion that reached the top K somewhere in the sweep: its rank under the
+     * reference weights, the spread of its ranks over the sweep, and the share of
+     * weight vectors that put it in the top K.
+     */
+    static final class Entry {
+        final Fusion fusion;
+        final int referenceRank;
+        final int best, p10, median, p90, worst;
+        final double topShare;
+
+        Entry(Fusion fusion, int referenceRank, int[] ranks, double topShare) {
+            this.fusion = fusion;
+            this.referenceRank = referenceRank;
+            this.topShare = topShare;
+            int[] sorted = ranks.clone();
+            Arrays.sort(sorted);
+            int last = sorted.length - 1;
+            best = sorted[0];
+            p10 = sorted[last / 10];
+            median = sorted[last / 2];
+            p90 = sorted[last * 9 / 10];
+            worst = sorted[last];
+        }
+    }
+
+    static final class Result {
+        final List<ScoringWeights> points;
+        final int k;
+        // Most often in the top K first
+        final List<Entry> entries;
+        // Jaccard overlap of the swept top K sets with the reference top K
+        final double meanOverlap, minOverlap;
+        // The reference #1, and the share of weight vectors keeping it #1
+        final Fusion leader;
+        final double leaderKept;
+        // Fusions in the top K under every vector, and under at least one
+        final int alwaysTop, distinct;
+
+        Result(List<ScoringWeights> points, int k, List<Entry> entries, double meanOverlap, double minOverlap,
+               Fusion leader, double leaderKept, int alwaysTop, int distinct) {
+            this.points = points;
+            this.k = k;
+            this.entries = entries;
+            this.meanOverlap = meanOverlap;
+            this.minOverlap = minOverlap;
+            this.leader = leader;
+            this.leaderKept = leaderKept;
+            this.alwaysTop = alwaysTop;
+            this.distinct = distinct;
+        }
+    }
+}